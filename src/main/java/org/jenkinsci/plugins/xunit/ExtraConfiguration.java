@@ -34,6 +34,9 @@ public class ExtraConfiguration implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private final long testTimeMargin;
+    private int workerCount = 1;
+    private boolean singlePass;
+    private boolean cacheConversions;
 
     public ExtraConfiguration(long testTimeMargin) {
         this.testTimeMargin = testTimeMargin;
@@ -42,4 +45,46 @@ public class ExtraConfiguration implements Serializable {
     public long getTestTimeMargin() {
         return testTimeMargin;
     }
+
+    /**
+     * Returns the maximum number of reports of a tool converted at the same
+     * time on the node.
+     *
+     * @return the number of conversion workers, one by default
+     */
+    public int getWorkerCount() {
+        return workerCount < 1 ? 1 : workerCount;
+    }
+
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Returns if reports are validated while they are converted instead of
+     * read them again after the conversion.
+     *
+     * @return true if reports are converted and validated in a single pass
+     */
+    public boolean isSinglePass() {
+        return singlePass;
+    }
+
+    public void setSinglePass(boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    /**
+     * Returns if converted reports are kept on the node to be reused when the
+     * same report is processed again.
+     *
+     * @return true if conversions are cached
+     */
+    public boolean isCacheConversions() {
+        return cacheConversions;
+    }
+
+    public void setCacheConversions(boolean cacheConversions) {
+        this.cacheConversions = cacheConversions;
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import hudson.model.InvisibleAction;
+
+/**
+ * Keeps the reports recorded by {@link XUnitReportWatcher} in a build until
+ * they are processed.
+ * <p>
+ * The reports of a workspace are used by the first processing that follows
+ * the watch, later ones search the workspace again.
+ */
+public class WatchedReportsAction extends InvisibleAction {
+
+    // not saved, the reports are processed by the same build
+    private transient Map<String, TreeMap<String, Long>> reports;
+    private transient Map<String, Set<String>> folders;
+
+    /**
+     * Adds the reports recorded in some folders of a workspace.
+     *
+     * @param workspace the path of the workspace on its node
+     * @param workspaceFolders the watched folders relative to the workspace
+     * @param workspaceReports the last modified time of the reports by their
+     *        relative path, {@code null} if some of them could be missing
+     */
+    public synchronized void add(@Nonnull String workspace, @Nonnull List<String> workspaceFolders, @CheckForNull TreeMap<String, Long> workspaceReports) {
+        if (reports == null) {
+            reports = new HashMap<>();
+            folders = new HashMap<>();
+        }
+        if (workspaceReports == null || (reports.containsKey(workspace) && reports.get(workspace) == null)) {
+            // the reports of the other watches are not enough
+            reports.put(workspace, null);
+        } else if (reports.containsKey(workspace)) {
+            reports.get(workspace).putAll(workspaceReports);
+        } else {
+            reports.put(workspace, new TreeMap<>(workspaceReports));
+        }
+        if (!folders.containsKey(workspace)) {
+            folders.put(workspace, new LinkedHashSet<String>());
+        }
+        folders.get(workspace).addAll(workspaceFolders);
+    }
+
+    /**
+     * Returns the reports recorded in a workspace.
+     *
+     * @param workspace the path of the workspace on its node
+     * @return the last modified time of the reports by their relative path or
+     *         {@code null} if the workspace was not watched or some reports
+     *         could be missing
+     */
+    @CheckForNull
+    public synchronized SortedMap<String, Long> getReports(@Nonnull String workspace) {
+        return reports != null ? reports.get(workspace) : null;
+    }
+
+    /**
+     * Returns the watched folders of a workspace.
+     *
+     * @param workspace the path of the workspace on its node
+     * @return the folders relative to the workspace, empty if the workspace
+     *         was not watched
+     */
+    @Nonnull
+    public synchronized Set<String> getFolders(@Nonnull String workspace) {
+        Set<String> workspaceFolders = folders != null ? folders.get(workspace) : null;
+        return workspaceFolders != null ? new LinkedHashSet<>(workspaceFolders) : Collections.<String> emptySet();
+    }
+
+    /**
+     * Forgets the reports of a workspace once they have been processed.
+     *
+     * @param workspace the path of the workspace on its node
+     */
+    public synchronized void remove(@Nonnull String workspace) {
+        if (reports != null) {
+            reports.remove(workspace);
+            folders.remove(workspace);
+        }
+    }
+
+}
@@ -30,7 +30,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
 
 import javax.annotation.CheckForNull;
@@ -38,12 +46,15 @@ import javax.annotation.Nonnull;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
-import org.apache.tools.ant.DirectoryScanner;
-import org.apache.tools.ant.types.FileSet;
 import org.jenkinsci.lib.dtkit.model.InputMetric;
 import org.jenkinsci.lib.dtkit.model.InputMetricXSL;
 import org.jenkinsci.lib.dtkit.type.TestType;
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsAction;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsFile;
 import org.jenkinsci.plugins.xunit.service.NoTestFoundException;
+import org.jenkinsci.plugins.xunit.service.XSLContentNotFoundException;
+import org.jenkinsci.plugins.xunit.service.XSLContentStore;
 import org.jenkinsci.plugins.xunit.service.XUnitConversionService;
 import org.jenkinsci.plugins.xunit.service.XUnitLog;
 import org.jenkinsci.plugins.xunit.service.XUnitReportProcessorService;
@@ -52,7 +63,12 @@ import org.jenkinsci.plugins.xunit.service.XUnitTransformerCallable;
 import org.jenkinsci.plugins.xunit.service.XUnitValidationService;
 import org.jenkinsci.plugins.xunit.threshold.XUnitThreshold;
 import org.jenkinsci.plugins.xunit.types.CustomType;
+import org.jenkinsci.plugins.xunit.types.Valgrind;
+import org.jenkinsci.plugins.xunit.types.ValgrindJunitHudsonTestType;
+import org.jenkinsci.plugins.xunit.util.DownloadableResourceCache;
 import org.jenkinsci.plugins.xunit.util.DownloadableResourceUtil;
+import org.jenkinsci.plugins.xunit.util.ReportManifest;
+import org.jenkinsci.plugins.xunit.util.ReportScanner;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -83,36 +99,92 @@ public class XUnitProcessor {
         private static final long serialVersionUID = 1L;
 
         private final String junitFilePattern;
-        private final long buildTime;
-        private final long nowMaster;
         private final String processorId;
 
-        public ReportParserCallable(long buildTime,
-                                    @Nonnull String junitFilePattern,
-                                    long nowMaster,
+        public ReportParserCallable(@Nonnull String junitFilePattern,
                                     String processorId) {
-            this.buildTime = buildTime;
             this.junitFilePattern = junitFilePattern;
-            this.nowMaster = nowMaster;
             this.processorId = processorId;
         }
 
         @Override
         public TestResult invoke(File ws, VirtualChannel channel) throws IOException {
-            final long nowSlave = System.currentTimeMillis();
             File generatedJUnitDir = new File(new File(ws, XUnitDefaultValues.GENERATED_JUNIT_DIR), processorId);
             FileUtils.forceMkdir(generatedJUnitDir);
-            FileSet fs = Util.createFileSet(generatedJUnitDir, junitFilePattern);
-            DirectoryScanner ds = fs.getDirectoryScanner();
-            String[] files = ds.getIncludedFiles();
+            Set<String> files = new ReportScanner(junitFilePattern).scan(generatedJUnitDir).keySet();
 
-            if (files.length == 0) {
+            if (files.isEmpty()) {
                 // no test result. Most likely a configuration error or fatal
                 // problem
                 return null;
 
             }
-            return new TestResult(buildTime + (nowSlave - nowMaster), ds, true);
+
+            // every report in the processor folder has been generated by this
+            // build. JUnit reports could be hard links to the original files,
+            // their timestamp is not the one of the build and so they are
+            // parsed without the check on the report age
+            TestResult result = new TestResult(true);
+            for (String file : files) {
+                result.parse(new File(generatedJUnitDir, file));
+            }
+            result.tally();
+            return result;
+        }
+    }
+
+    /**
+     * Finds the files of the tool patterns with a single walk of the
+     * workspace on a slave node.
+     */
+    private static final class WorkspaceScannerCallable extends jenkins.MasterToSlaveFileCallable<ArrayList<TreeMap<String, Long>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ArrayList<String> patterns;
+
+        public WorkspaceScannerCallable(@Nonnull List<String> patterns) {
+            this.patterns = new ArrayList<>(patterns);
+        }
+
+        @Override
+        public ArrayList<TreeMap<String, Long>> invoke(File ws, VirtualChannel channel) throws IOException {
+            List<String> workspacePatterns = new ArrayList<>(patterns.size());
+            for (String pattern : patterns) {
+                workspacePatterns.add(XUnitReportProcessorService.getWorkspacePattern(pattern));
+            }
+            TreeMap<String, Long> files = ReportScanner.getLastModifiedTimes(new ReportScanner(Util.join(workspacePatterns, ",")).scan(ws));
+
+            ArrayList<TreeMap<String, Long>> toolFiles = new ArrayList<>(patterns.size());
+            for (String pattern : patterns) {
+                toolFiles.add(getMatchingFiles(files, pattern));
+            }
+            return toolFiles;
+        }
+    }
+
+    /**
+     * Reads the measurements of the generated JUnit reports on a slave node.
+     */
+    private static final class MeasurementsParserCallable extends jenkins.SlaveToMasterFileCallable<ArrayList<Measurement>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String processorId;
+
+        public MeasurementsParserCallable(String processorId) {
+            this.processorId = processorId;
+        }
+
+        @Override
+        public ArrayList<Measurement> invoke(File ws, VirtualChannel channel) throws IOException {
+            ArrayList<Measurement> measurements = new ArrayList<>();
+            File generatedJUnitDir = new File(new File(ws, XUnitDefaultValues.GENERATED_JUNIT_DIR), processorId);
+            if (!generatedJUnitDir.isDirectory()) {
+                return measurements;
+            }
+            for (String file : new ReportScanner("**/*" + MeasurementsFile.EXTENSION).scan(generatedJUnitDir).keySet()) {
+                measurements.addAll(MeasurementsFile.read(new File(generatedJUnitDir, file)));
+            }
+            return measurements;
         }
     }
 
@@ -152,6 +224,7 @@ public class XUnitProcessor {
         }
 
         TestResult testResult = recordTestResult(build, workspace, listener);
+        recordMeasurements(build, workspace);
 
         processDeletion(workspace);
 
@@ -167,14 +240,78 @@ public class XUnitProcessor {
         int processedReports = 0;
 
         XUnitReportProcessorService xUnitReportService = new XUnitReportProcessorService(logger);
+        List<XUnitToolInfo> toolInfos = new ArrayList<>(tools.length);
         for (TestType tool : tools) {
-            logger.info("Processing " + tool.getDescriptor().getDisplayName());
-
             if (!isEmptyGivenPattern(xUnitReportService, tool)) {
-                XUnitToolInfo xUnitToolInfo = buildXUnitToolInfo(tool, build, workspace, listener);
-                XUnitTransformerCallable xUnitTransformer = newXUnitTransformer(xUnitToolInfo);
+                toolInfos.add(buildXUnitToolInfo(tool, build, workspace, listener));
+            } else {
+                toolInfos.add(null);
+            }
+        }
+
+        // the reports written during the build could have been recorded by a
+        // watch, only the first processing after it uses them
+        SortedMap<String, Long> watchedFiles = null;
+        Set<String> watchedFolders = Collections.emptySet();
+        WatchedReportsAction watchedReports = build.getAction(WatchedReportsAction.class);
+        if (watchedReports != null) {
+            watchedFiles = watchedReports.getReports(workspace.getRemote());
+            watchedFolders = watchedReports.getFolders(workspace.getRemote());
+            watchedReports.remove(workspace.getRemote());
+        }
+
+        List<String> patterns = new ArrayList<>(tools.length);
+        List<XUnitToolInfo> walkedToolInfos = new ArrayList<>(tools.length);
+        int watchedTools = 0;
+        for (XUnitToolInfo xUnitToolInfo : toolInfos) {
+            if (xUnitToolInfo == null || ReportManifest.isManifest(xUnitToolInfo.getPattern())) {
+                // the tools with a manifest do not need the workspace files
+                continue;
+            }
+            String workspacePattern = XUnitReportProcessorService.getWorkspacePattern(xUnitToolInfo.getPattern());
+            if (watchedFiles != null && new ReportScanner(workspacePattern).isWithin(watchedFolders)) {
+                xUnitToolInfo.setWorkspaceFiles(getMatchingFiles(watchedFiles, xUnitToolInfo.getPattern()));
+                xUnitToolInfo.setWatchedFiles(true);
+                watchedTools++;
+            } else {
+                patterns.add(xUnitToolInfo.getPattern());
+                walkedToolInfos.add(xUnitToolInfo);
+            }
+        }
+        if (watchedTools > 0) {
+            logger.info("Using the " + watchedFiles.size() + " file(s) written in the watched folders of the workspace for " + watchedTools + " tool(s).");
+        }
+        if (!patterns.isEmpty()) {
+            // the workspace is walked once for the patterns of all the other
+            // tools
+            Iterator<TreeMap<String, Long>> toolFiles = workspace.act(new WorkspaceScannerCallable(patterns)).iterator();
+            for (XUnitToolInfo xUnitToolInfo : walkedToolInfos) {
+                xUnitToolInfo.setWorkspaceFiles(toolFiles.next());
+            }
+        }
+
+        for (int i = 0; i < tools.length; i++) {
+            logger.info("Processing " + tools[i].getDescriptor().getDisplayName());
+
+            XUnitToolInfo xUnitToolInfo = toolInfos.get(i);
+            if (xUnitToolInfo != null) {
+                String xslDigest = xUnitToolInfo.getXSLDigest();
+                VirtualChannel channel = workspace.getChannel();
+                if (xslDigest != null && workspace.isRemote() && XSLContentStore.isSent(channel, xslDigest)) {
+                    // the node should already know this stylesheet
+                    xUnitToolInfo.omitXSLContent();
+                }
                 try {
-                    processedReports += workspace.act(xUnitTransformer);
+                    try {
+                        processedReports += workspace.act(newXUnitTransformer(xUnitToolInfo));
+                    } catch (XSLContentNotFoundException e) {
+                        // evicted from the store of the node
+                        xUnitToolInfo.includeXSLContent();
+                        processedReports += workspace.act(newXUnitTransformer(xUnitToolInfo));
+                    }
+                    if (xslDigest != null && workspace.isRemote()) {
+                        XSLContentStore.setSent(channel, xslDigest);
+                    }
                 } catch (NoTestFoundException e) {
                     if (xUnitToolInfo.isSkipNoTestFiles()) {
                         logger.info(e.getMessage());
@@ -188,6 +325,20 @@ public class XUnitProcessor {
         return processedReports;
     }
 
+    /**
+     * Returns the workspace files of a tool among the files of the workspace.
+     */
+    private static TreeMap<String, Long> getMatchingFiles(SortedMap<String, Long> files, String pattern) {
+        ReportScanner scanner = new ReportScanner(XUnitReportProcessorService.getWorkspacePattern(pattern));
+        TreeMap<String, Long> matches = new TreeMap<>();
+        for (Map.Entry<String, Long> file : files.entrySet()) {
+            if (scanner.matches(file.getKey())) {
+                matches.put(file.getKey(), file.getValue());
+            }
+        }
+        return matches;
+    }
+
     private boolean isEmptyGivenPattern(XUnitReportProcessorService xUnitReportService, TestType tool) {
         return xUnitReportService.isEmptyPattern(tool.getPattern());
     }
@@ -215,6 +366,9 @@ public class XUnitProcessor {
                 bind(XUnitConversionService.class).in(Singleton.class);
             }
         }).getInstance(inputMetric.getClass());
+        if (tool instanceof ValgrindJunitHudsonTestType) {
+            ((Valgrind) inputMetric).setFingerprintFrames(((ValgrindJunitHudsonTestType) tool).getFingerprintFrames());
+        }
 
         String xslContent = null;
         if (tool instanceof CustomType) {
@@ -225,7 +379,11 @@ public class XUnitProcessor {
 
         final String pattern = getExpandedResolvedPattern(tool, build, listener);
 
-        return new XUnitToolInfo(inputMetric, pattern, tool.isSkipNoTestFiles(), tool.isFailIfNotNew(), tool.isDeleteOutputFiles(), tool.isStopProcessingIfError(), build.getTimeInMillis(), this.extraConfiguration.getTestTimeMargin(), xslContent);
+        XUnitToolInfo xUnitToolInfo = new XUnitToolInfo(inputMetric, pattern, tool.isSkipNoTestFiles(), tool.isFailIfNotNew(), tool.isDeleteOutputFiles(), tool.isStopProcessingIfError(), build.getTimeInMillis(), this.extraConfiguration.getTestTimeMargin(), xslContent);
+        xUnitToolInfo.setWorkerCount(this.extraConfiguration.getWorkerCount());
+        xUnitToolInfo.setSinglePass(this.extraConfiguration.isSinglePass());
+        xUnitToolInfo.setCacheConversions(this.extraConfiguration.isCacheConversions());
+        return xUnitToolInfo;
     }
 
     private String getUserStylesheet(final TestType tool) throws IOException, InterruptedException {
@@ -252,7 +410,7 @@ public class XUnitProcessor {
         
         // Try URL
         if (DownloadableResourceUtil.isURL(customXSLPath)) {
-            return DownloadableResourceUtil.download(customXSLPath);
+            return DownloadableResourceCache.getInstance().get(customXSLPath);
         }
 
         // Try full path on master
@@ -307,10 +465,7 @@ public class XUnitProcessor {
                                         FilePath workspace,
                                         TaskListener listener) throws IOException, InterruptedException {
         TestResultAction existingAction = build.getAction(TestResultAction.class);
-        final long buildTime = build.getTimestamp().getTimeInMillis();
-        final long nowMaster = System.currentTimeMillis();
-
-        TestResult result = getTestResult(workspace, "**/TEST-*.xml", buildTime, nowMaster);
+        TestResult result = getTestResult(workspace, "**/TEST-*.xml");
         if (result != null) {
             TestResultAction action;
             if (existingAction == null) {
@@ -335,6 +490,21 @@ public class XUnitProcessor {
         return result;
     }
 
+    private void recordMeasurements(Run<?, ?> build, FilePath workspace) throws IOException, InterruptedException {
+        ArrayList<Measurement> measurements = workspace.act(new MeasurementsParserCallable(processorId));
+        if (measurements.isEmpty()) {
+            return;
+        }
+
+        logger.info("Recording " + measurements.size() + " test measurements.");
+        MeasurementsAction action = build.getAction(MeasurementsAction.class);
+        if (action == null) {
+            build.addAction(new MeasurementsAction(measurements));
+        } else {
+            action.addAll(measurements);
+        }
+    }
+
     private void merge(TestResultAction action, TestResult result, TaskListener listener) {
         try {
             // move to reflection to bypass sandbox
@@ -351,18 +521,14 @@ public class XUnitProcessor {
      *
      * @param workspace the build's workspace
      * @param junitFilePattern the JUnit search pattern
-     * @param buildTime the build time
-     * @param nowMaster the time on master
      * @return the test result object
      * @throws InterruptedException
      * @throws IOException
      */
     private TestResult getTestResult(final FilePath workspace,
-                                     final String junitFilePattern,
-                                     final long buildTime,
-                                     final long nowMaster) throws IOException, InterruptedException {
+                                     final String junitFilePattern) throws IOException, InterruptedException {
 
-        return workspace.act(new ReportParserCallable(buildTime, junitFilePattern, nowMaster, processorId));
+        return workspace.act(new ReportParserCallable(junitFilePattern, processorId));
     }
 
     @Nonnull
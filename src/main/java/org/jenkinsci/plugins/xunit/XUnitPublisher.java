@@ -38,6 +38,7 @@ import org.jenkinsci.plugins.xunit.threshold.SkippedThreshold;
 import org.jenkinsci.plugins.xunit.threshold.XUnitThreshold;
 import org.jenkinsci.plugins.xunit.threshold.XUnitThresholdDescriptor;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
@@ -94,6 +95,42 @@ public class XUnitPublisher extends Recorder implements SimpleBuildStep {
         return String.valueOf(getExtraConfiguration().getTestTimeMargin());
     }
 
+    /*
+     * Needed to support Snippet Generator and Workflow properly
+     */
+    public int getWorkerCount() {
+        return getExtraConfiguration().getWorkerCount();
+    }
+
+    @DataBoundSetter
+    public void setWorkerCount(int workerCount) {
+        getExtraConfiguration().setWorkerCount(workerCount);
+    }
+
+    /*
+     * Needed to support Snippet Generator and Workflow properly
+     */
+    public boolean isSinglePass() {
+        return getExtraConfiguration().isSinglePass();
+    }
+
+    @DataBoundSetter
+    public void setSinglePass(boolean singlePass) {
+        getExtraConfiguration().setSinglePass(singlePass);
+    }
+
+    /*
+     * Needed to support Snippet Generator and Workflow properly
+     */
+    public boolean isCacheConversions() {
+        return getExtraConfiguration().isCacheConversions();
+    }
+
+    @DataBoundSetter
+    public void setCacheConversions(boolean cacheConversions) {
+        getExtraConfiguration().setCacheConversions(cacheConversions);
+    }
+
     public XUnitThreshold[] getThresholds() {
         return thresholds;
     }
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.xunit.service.XUnitLog;
+import org.jenkinsci.plugins.xunit.util.ReportWatcher;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.AbstractProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.tasks.BuildWrapperDescriptor;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.tasks.SimpleBuildWrapper;
+
+/**
+ * Records the reports written in some folders of the workspace while the
+ * wrapped steps run.
+ * <p>
+ * The xUnit processing that follows takes the recorded reports in place of a
+ * walk of the workspace. Reports are new by construction, so they are not
+ * checked against the build time. Reports outside the watched folders are
+ * not seen.
+ */
+public class XUnitReportWatcher extends SimpleBuildWrapper {
+
+    // watchers running on this node by their identifier
+    private static final Map<String, ReportWatcher> WATCHERS = new ConcurrentHashMap<>();
+
+    private final String directories;
+
+    /**
+     * Creates a watcher of the given folders.
+     *
+     * @param directories comma separated folders relative to the workspace
+     */
+    @DataBoundConstructor
+    public XUnitReportWatcher(@CheckForNull String directories) {
+        this.directories = Util.fixEmptyAndTrim(directories);
+    }
+
+    public String getDirectories() {
+        return directories;
+    }
+
+    @Override
+    public void setUp(Context context,
+                      Run<?, ?> build,
+                      FilePath workspace,
+                      Launcher launcher,
+                      TaskListener listener,
+                      EnvVars initialEnvironment) throws IOException, InterruptedException {
+        List<String> folders = new ArrayList<>();
+        String expanded = directories != null ? initialEnvironment.expand(directories) : ".";
+        for (String folder : expanded.split(",")) {
+            if (!folder.trim().isEmpty()) {
+                folders.add(folder.trim());
+            }
+        }
+
+        String watcherId = UUID.randomUUID().toString();
+        workspace.act(new StartCallable(watcherId, folders));
+        new XUnitLog(listener).info("Watching the test reports written in " + folders + ".");
+        context.setDisposer(new StopDisposer(watcherId, folders));
+    }
+
+    /**
+     * Starts a watcher on a slave node.
+     */
+    private static final class StartCallable extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final String watcherId;
+        private final ArrayList<String> folders;
+
+        public StartCallable(@Nonnull String watcherId, @Nonnull List<String> folders) {
+            this.watcherId = watcherId;
+            this.folders = new ArrayList<>(folders);
+        }
+
+        @Override
+        public Void invoke(File ws, VirtualChannel channel) throws IOException {
+            WATCHERS.put(watcherId, new ReportWatcher(ws, folders));
+            return null;
+        }
+    }
+
+    /**
+     * Stops a watcher on a slave node and returns the recorded reports.
+     */
+    private static final class StopCallable extends MasterToSlaveFileCallable<TreeMap<String, Long>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String watcherId;
+
+        public StopCallable(@Nonnull String watcherId) {
+            this.watcherId = watcherId;
+        }
+
+        @Override
+        public TreeMap<String, Long> invoke(File ws, VirtualChannel channel) throws IOException, InterruptedException {
+            ReportWatcher watcher = WATCHERS.remove(watcherId);
+            return watcher != null ? watcher.stop() : null;
+        }
+    }
+
+    private static final class StopDisposer extends Disposer {
+        private static final long serialVersionUID = 1L;
+
+        private final String watcherId;
+        private final ArrayList<String> folders;
+
+        public StopDisposer(@Nonnull String watcherId, @Nonnull List<String> folders) {
+            this.watcherId = watcherId;
+            this.folders = new ArrayList<>(folders);
+        }
+
+        @Override
+        public void tearDown(Run<?, ?> build,
+                             FilePath workspace,
+                             Launcher launcher,
+                             TaskListener listener) throws IOException, InterruptedException {
+            TreeMap<String, Long> reports = workspace.act(new StopCallable(watcherId));
+            XUnitLog logger = new XUnitLog(listener);
+            if (reports == null) {
+                logger.warn("Some changes of the test reports were lost, the workspace will be searched.");
+            } else {
+                logger.info(reports.size() + " file(s) were written in the watched folders.");
+            }
+
+            WatchedReportsAction action = build.getAction(WatchedReportsAction.class);
+            if (action == null) {
+                action = new WatchedReportsAction();
+                build.addAction(action);
+            }
+            action.add(workspace.getRemote(), folders, reports);
+        }
+    }
+
+    @Extension
+    @Symbol("xunitWatch")
+    public static final class XUnitReportWatcherDescriptor extends BuildWrapperDescriptor {
+
+        public XUnitReportWatcherDescriptor() {
+            super(XUnitReportWatcher.class);
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Messages.xUnitReportWatcher_displayName();
+        }
+
+        @Override
+        public boolean isApplicable(AbstractProject<?, ?> item) {
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.measurement;
+
+import java.io.Serializable;
+
+import javax.annotation.Nonnull;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * A numeric value measured by a test, like its execution time or a custom
+ * metric reported by the test tool.
+ */
+@ExportedBean(defaultVisibility = 2)
+public class Measurement implements Serializable {
+    private static final long serialVersionUID = -2817734062581294731L;
+
+    private final String className;
+    private final String testName;
+    private final String name;
+    private final double value;
+
+    public Measurement(@Nonnull String className, @Nonnull String testName, @Nonnull String name, double value) {
+        this.className = className;
+        this.testName = testName;
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * Returns the class name of the test case, the same of the JUnit report.
+     *
+     * @return the test class name
+     */
+    @Exported
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the name of the test case, the same of the JUnit report.
+     *
+     * @return the test name
+     */
+    @Exported
+    public String getTestName() {
+        return testName;
+    }
+
+    /**
+     * Returns the name of the measurement.
+     *
+     * @return the measurement name
+     */
+    @Exported
+    public String getName() {
+        return name;
+    }
+
+    @Exported
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Returns if this measurement is the same metric of the given test.
+     *
+     * @param className the test class name
+     * @param testName the test name
+     * @param name the measurement name
+     * @return true if this measurement is of the given test and it has the
+     *         given name
+     */
+    public boolean isOf(String className, String testName, String name) {
+        return this.className.equals(className) && this.testName.equals(testName) && this.name.equals(name);
+    }
+
+    @Override
+    public String toString() {
+        return className + '.' + testName + " [" + name + "] = " + value;
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.measurement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.jenkinsci.plugins.xunit.Messages;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.model.Action;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import jenkins.tasks.SimpleBuildStep;
+
+/**
+ * The measurements of the tests of a build.
+ * <p>
+ * The measurements are stored with the build and exported through the
+ * remote API, so that they could be compared across builds. The last build
+ * contributes the trend view to its job.
+ */
+@ExportedBean
+public class MeasurementsAction implements RunAction2, SimpleBuildStep.LastBuildAction {
+
+    private transient Run<?, ?> run;
+    private final List<Measurement> measurements = new ArrayList<>();
+    // the values by measurement key, not saved
+    private transient Map<List<String>, Double> values;
+
+    public MeasurementsAction(@Nonnull Collection<Measurement> measurements) {
+        this.measurements.addAll(measurements);
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public synchronized void onLoad(Run<?, ?> run) {
+        this.run = run;
+        this.values = null;
+        getValues();
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.measurementsAction_displayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "xunitMeasurements";
+    }
+
+    @Override
+    public Collection<? extends Action> getProjectActions() {
+        if (run == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new MeasurementsProjectAction(run.getParent()));
+    }
+
+    /**
+     * Adds the measurements of another report of the same build, for example
+     * recorded by another step.
+     *
+     * @param measurements to add
+     */
+    public synchronized void addAll(@Nonnull Collection<Measurement> measurements) {
+        this.measurements.addAll(measurements);
+        if (values != null) {
+            index(measurements);
+        }
+    }
+
+    @Exported(inline = true)
+    public synchronized List<Measurement> getMeasurements() {
+        return Collections.unmodifiableList(new ArrayList<>(measurements));
+    }
+
+    /**
+     * Returns the value of the given measurement of a test.
+     *
+     * @param className the test class name
+     * @param testName the test name
+     * @param name the measurement name
+     * @return the measured value, null if this build does not have the
+     *         measurement
+     */
+    @CheckForNull
+    public synchronized Double getValue(String className, String testName, String name) {
+        return getValues().get(Arrays.asList(className, testName, name));
+    }
+
+    private Map<List<String>, Double> getValues() {
+        if (values == null) {
+            values = new HashMap<>();
+            index(measurements);
+        }
+        return values;
+    }
+
+    private void index(Collection<Measurement> measurements) {
+        for (Measurement measurement : measurements) {
+            List<String> key = Arrays.asList(measurement.getClassName(), measurement.getTestName(), measurement.getName());
+            // the first measurement wins, as in the list
+            if (!values.containsKey(key)) {
+                values.put(key, measurement.getValue());
+            }
+        }
+    }
+
+}
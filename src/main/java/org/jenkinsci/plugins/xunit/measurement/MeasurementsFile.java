@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.measurement;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The measurements of a converted report, stored next to the JUnit report.
+ * <p>
+ * There is a line for each measurement with class name, test name,
+ * measurement name and value separated by tabs, the tab, new line and
+ * backslash characters of the names are escaped.
+ */
+public final class MeasurementsFile {
+
+    /**
+     * Extension of the measurements files, the JUnit reports pattern does not
+     * match it.
+     */
+    public static final String EXTENSION = ".measurements";
+
+    private MeasurementsFile() {
+    }
+
+    /**
+     * Returns the measurements file of the given JUnit report.
+     *
+     * @param junitFile the converted report
+     * @return the measurements file, it could not exist
+     */
+    public static File getFile(@Nonnull File junitFile) {
+        String name = junitFile.getName();
+        int index = name.lastIndexOf('.');
+        return new File(junitFile.getParentFile(), (index != -1 ? name.substring(0, index) : name) + EXTENSION);
+    }
+
+    /**
+     * Writes the measurements in the given file.
+     *
+     * @param file where write the measurements
+     * @param measurements to write
+     * @throws IOException if the file could not be written
+     */
+    public static void write(@Nonnull File file, @Nonnull Collection<Measurement> measurements) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            for (Measurement measurement : measurements) {
+                writer.write(escape(measurement.getClassName()));
+                writer.write('\t');
+                writer.write(escape(measurement.getTestName()));
+                writer.write('\t');
+                writer.write(escape(measurement.getName()));
+                writer.write('\t');
+                writer.write(Double.toString(measurement.getValue()));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Reads the measurements of the given file.
+     *
+     * @param file the measurements file
+     * @return the measurements in the order they were written
+     * @throws IOException if the file could not be read or it is malformed
+     */
+    @Nonnull
+    public static List<Measurement> read(@Nonnull File file) throws IOException {
+        List<Measurement> measurements = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 4) {
+                    throw new IOException("Malformed measurement '" + line + "' in " + file);
+                }
+                try {
+                    measurements.add(new Measurement(unescape(fields[0]), unescape(fields[1]), unescape(fields[2]), Double.parseDouble(fields[3])));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed measurement '" + line + "' in " + file, e);
+                }
+            }
+        }
+        return measurements;
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                escaped.append("\\\\");
+                break;
+            case '\t':
+                escaped.append("\\t");
+                break;
+            case '\n':
+                escaped.append("\\n");
+                break;
+            case '\r':
+                escaped.append("\\r");
+                break;
+            default:
+                escaped.append(c);
+                break;
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String value) {
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+                if (c == 't') {
+                    c = '\t';
+                } else if (c == 'n') {
+                    c = '\n';
+                } else if (c == 'r') {
+                    c = '\r';
+                }
+            }
+            unescaped.append(c);
+        }
+        return unescaped.toString();
+    }
+
+}
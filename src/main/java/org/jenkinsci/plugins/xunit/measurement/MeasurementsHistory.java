@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.measurement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import hudson.model.Run;
+
+/**
+ * The measurements of the last builds of a job, from the newest to the
+ * oldest. Only a bounded number of builds is loaded.
+ */
+public class MeasurementsHistory {
+
+    /**
+     * The number of builds of the trend view and of the regression
+     * thresholds.
+     */
+    public static final int MAX_BUILDS = 10;
+
+    private final List<MeasurementsAction> actions;
+
+    private MeasurementsHistory(List<MeasurementsAction> actions) {
+        this.actions = actions;
+    }
+
+    /**
+     * Returns the measurements of the completed builds before the given one.
+     *
+     * @param run the build whose history is returned, excluded
+     * @param maxBuilds the number of builds to look at
+     * @return the history of the measurements
+     */
+    public static MeasurementsHistory before(@Nonnull Run<?, ?> run, int maxBuilds) {
+        return from(run.getPreviousBuild(), maxBuilds);
+    }
+
+    /**
+     * Returns the measurements of the completed builds starting from the
+     * given one.
+     *
+     * @param run the newest build, could be null
+     * @param maxBuilds the number of builds to look at
+     * @return the history of the measurements
+     */
+    public static MeasurementsHistory from(@CheckForNull Run<?, ?> run, int maxBuilds) {
+        List<MeasurementsAction> actions = new ArrayList<>();
+        for (int i = 0; run != null && i < maxBuilds; i++, run = run.getPreviousBuild()) {
+            if (run.isBuilding()) {
+                continue;
+            }
+            MeasurementsAction action = run.getAction(MeasurementsAction.class);
+            if (action != null) {
+                actions.add(action);
+            }
+        }
+        return new MeasurementsHistory(actions);
+    }
+
+    /**
+     * Returns the measurements of the builds that have them, from the newest.
+     *
+     * @return the build measurements
+     */
+    public List<MeasurementsAction> getActions() {
+        return Collections.unmodifiableList(actions);
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.measurement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.jenkinsci.plugins.xunit.Messages;
+
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+
+/**
+ * Shows the trend of the test measurements over the last builds of a job.
+ */
+public class MeasurementsProjectAction implements Action {
+
+    /**
+     * The values of a measurement in the builds of the trend.
+     */
+    public static final class Row {
+        private final Measurement measurement;
+        private final List<Double> values;
+
+        private Row(Measurement measurement, List<Double> values) {
+            this.measurement = measurement;
+            this.values = values;
+        }
+
+        public Measurement getMeasurement() {
+            return measurement;
+        }
+
+        /**
+         * Returns the values from the newest build, null where a build does
+         * not have the measurement.
+         *
+         * @return the measurement values
+         */
+        public List<Double> getValues() {
+            return values;
+        }
+
+        /**
+         * Returns the change in percent of the newest value compared with
+         * the previous build that has the measurement.
+         *
+         * @return the relative change, null if there is no previous value
+         */
+        @CheckForNull
+        public Double getChange() {
+            for (int i = 1; i < values.size(); i++) {
+                Double previous = values.get(i);
+                if (previous != null) {
+                    return previous == 0 ? null : (values.get(0) - previous) / previous * 100;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the change formatted for the trend view.
+         *
+         * @return the signed change in percent, empty if there is no
+         *         previous value
+         */
+        public String getChangeText() {
+            Double change = getChange();
+            return change == null ? "" : String.format(Locale.ENGLISH, "%+.1f%%", change);
+        }
+    }
+
+    /**
+     * The measurements of the builds of the trend.
+     */
+    public static final class Trend {
+        private final List<MeasurementsAction> actions;
+
+        private Trend(MeasurementsHistory history) {
+            this.actions = history.getActions();
+        }
+
+        /**
+         * Returns the builds of the trend that have measurements, from the
+         * newest.
+         *
+         * @return the trend builds
+         */
+        public List<Run<?, ?>> getBuilds() {
+            List<Run<?, ?>> builds = new ArrayList<>();
+            for (MeasurementsAction action : actions) {
+                builds.add(action.getRun());
+            }
+            return builds;
+        }
+
+        /**
+         * Returns the trend of each measurement of the newest build.
+         *
+         * @return a row for each measurement
+         */
+        public List<Row> getRows() {
+            if (actions.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            List<Row> rows = new ArrayList<>();
+            for (Measurement measurement : actions.get(0).getMeasurements()) {
+                List<Double> values = new ArrayList<>(actions.size());
+                for (MeasurementsAction action : actions) {
+                    values.add(action.getValue(measurement.getClassName(), measurement.getTestName(), measurement.getName()));
+                }
+                rows.add(new Row(measurement, values));
+            }
+            return rows;
+        }
+    }
+
+    private final Job<?, ?> job;
+
+    public MeasurementsProjectAction(@Nonnull Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.measurementsProjectAction_displayName();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "xunitMeasurements";
+    }
+
+    /**
+     * Returns the trend of the last builds, its history is read once.
+     *
+     * @return the trend of the measurements
+     */
+    public Trend getTrend() {
+        return new Trend(MeasurementsHistory.from(job.getLastBuild(), MeasurementsHistory.MAX_BUILDS));
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.service;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsFile;
+
+/**
+ * Keeps on the node file system the JUnit reports already converted, so that
+ * the same input report converted by the same stylesheet is not converted
+ * again when a build is rebuilt or a stage retried.
+ * <p>
+ * Entries are keyed by a content digest and stored as files in the directory
+ * configured through the {@link #DIRECTORY_PROPERTY} system property, by
+ * default a folder of the JVM user in the temporary directory. The directory
+ * must be owned by the JVM user and not writable by others, otherwise the
+ * cache is not used, so other local users cannot inject reports. The
+ * measurements file of a report belongs to its entry, they are restored and
+ * evicted together. When the total size of the entries exceeds the
+ * {@link #MAX_SIZE_PROPERTY} system property (in bytes) the least recently
+ * used entries are deleted. The last modified time of the entry files keeps
+ * the LRU order across JVM restarts.
+ */
+public final class ConversionCache {
+
+    public static final String DIRECTORY_PROPERTY = ConversionCache.class.getName() + ".directory";
+    public static final String MAX_SIZE_PROPERTY = ConversionCache.class.getName() + ".maxSize";
+    private static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+    private static final String ENTRY_EXTENSION = ".xml";
+
+    private static final ConversionCache INSTANCE = new ConversionCache(getDefaultDirectory(), Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    private final File directory;
+    private final long maxSize;
+    // entry key and its size in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private boolean loaded;
+    private boolean usable;
+
+    /* package */ ConversionCache(@Nonnull File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    public static ConversionCache getInstance() {
+        return INSTANCE;
+    }
+
+    private static File getDefaultDirectory() {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory != null) {
+            return new File(directory);
+        }
+        return new File(System.getProperty("java.io.tmpdir"), "xunit-conversion-cache-" + System.getProperty("user.name"));
+    }
+
+    /**
+     * Copies the cached report for the given key into the target file, and
+     * its measurements, if any, next to it.
+     *
+     * @param key the content digest of the conversion
+     * @param targetFile where copy the cached JUnit report
+     * @return true if the report was in cache and it has been copied, false
+     *         otherwise
+     * @throws IOException if the cached report could not be copied
+     */
+    public boolean restore(@Nonnull String key, @Nonnull File targetFile) throws IOException {
+        synchronized (entries) {
+            load();
+            if (!usable || entries.get(key) == null) {
+                return false;
+            }
+        }
+
+        File entry = getEntryFile(key);
+        File measurementsEntry = MeasurementsFile.getFile(entry);
+        File measurementsFile = MeasurementsFile.getFile(targetFile);
+        try {
+            FileUtils.copyFile(entry, targetFile);
+            if (measurementsEntry.isFile()) {
+                FileUtils.copyFile(measurementsEntry, measurementsFile);
+            } else {
+                FileUtils.deleteQuietly(measurementsFile);
+            }
+            // the report is evicted first, if it is still there its
+            // measurements were not evicted
+            if (!entry.isFile()) {
+                throw new FileNotFoundException(entry.getPath());
+            }
+        } catch (FileNotFoundException e) {
+            // evicted in the meanwhile by an other executor or JVM
+            synchronized (entries) {
+                remove(key);
+            }
+            FileUtils.deleteQuietly(targetFile);
+            FileUtils.deleteQuietly(measurementsFile);
+            return false;
+        }
+        entry.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Stores a converted report and its measurements, if any, as one entry
+     * for the given key, evicting the least recently used entries if the
+     * cache exceeds its maximum size.
+     *
+     * @param key the content digest of the conversion
+     * @param junitFile the converted JUnit report
+     * @throws IOException if the report could not be copied into the cache
+     */
+    public void store(@Nonnull String key, @Nonnull File junitFile) throws IOException {
+        File measurementsFile = MeasurementsFile.getFile(junitFile);
+        boolean hasMeasurements = measurementsFile.isFile();
+        long length = junitFile.length() + (hasMeasurements ? measurementsFile.length() : 0);
+        if (length > maxSize) {
+            return;
+        }
+
+        synchronized (entries) {
+            load();
+            if (!usable) {
+                return;
+            }
+        }
+        // copy outside the lock to temporary files, than publish them at once
+        String tmpName = UUID.randomUUID().toString();
+        File tmpFile = new File(directory, tmpName + ".tmp");
+        File tmpMeasurementsFile = new File(directory, tmpName + ".tmp" + MeasurementsFile.EXTENSION);
+        try {
+            FileUtils.copyFile(junitFile, tmpFile);
+            if (hasMeasurements) {
+                FileUtils.copyFile(measurementsFile, tmpMeasurementsFile);
+            }
+            synchronized (entries) {
+                load();
+                File entry = getEntryFile(key);
+                if (entries.containsKey(key) || entry.exists()) {
+                    return;
+                }
+                // the report is published last, it makes the entry visible
+                File measurementsEntry = MeasurementsFile.getFile(entry);
+                if (hasMeasurements ? !tmpMeasurementsFile.renameTo(measurementsEntry) : !deleteIfExists(measurementsEntry)) {
+                    return;
+                }
+                if (!tmpFile.renameTo(entry)) {
+                    FileUtils.deleteQuietly(measurementsEntry);
+                    return;
+                }
+                entries.put(key, length);
+                size += length;
+                evict();
+            }
+        } finally {
+            FileUtils.deleteQuietly(tmpFile);
+            FileUtils.deleteQuietly(tmpMeasurementsFile);
+        }
+    }
+
+    private static boolean deleteIfExists(File file) {
+        return !file.exists() || file.delete();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            size -= eldest.getValue();
+            // the report first, so the entry is not restored without its
+            // measurements
+            File entry = getEntryFile(eldest.getKey());
+            FileUtils.deleteQuietly(entry);
+            FileUtils.deleteQuietly(MeasurementsFile.getFile(entry));
+        }
+    }
+
+    private void remove(String key) {
+        Long length = entries.remove(key);
+        if (length != null) {
+            size -= length;
+        }
+    }
+
+    /**
+     * Loads the entries left by a previous JVM in the order they were last
+     * used.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        usable = isPrivate(directory);
+        if (!usable) {
+            return;
+        }
+
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(ENTRY_EXTENSION);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long m1 = f1.lastModified();
+                long m2 = f2.lastModified();
+                return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            String name = file.getName();
+            File measurementsFile = MeasurementsFile.getFile(file);
+            long length = file.length() + (measurementsFile.isFile() ? measurementsFile.length() : 0);
+            entries.put(name.substring(0, name.length() - ENTRY_EXTENSION.length()), length);
+            size += length;
+        }
+        evict();
+    }
+
+    /**
+     * Creates the directory accessible only by the JVM user, or checks that
+     * an existing one is owned by the JVM user and nobody else could write
+     * into it.
+     */
+    private static boolean isPrivate(File directory) {
+        Path path = directory.toPath();
+        boolean posix = path.getFileSystem().supportedFileAttributeViews().contains("posix");
+        try {
+            if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    if (posix) {
+                        Files.createDirectories(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+                    } else {
+                        Files.createDirectories(path);
+                    }
+                } catch (FileAlreadyExistsException e) {
+                    // created in the meanwhile, it is checked below
+                }
+            }
+            if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                return false;
+            }
+            UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+            if (!user.equals(Files.getOwner(path, LinkOption.NOFOLLOW_LINKS))) {
+                return false;
+            }
+            if (posix) {
+                Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS);
+                return !permissions.contains(PosixFilePermission.GROUP_WRITE) && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+            }
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private File getEntryFile(String key) {
+        return new File(directory, key + ENTRY_EXTENSION);
+    }
+
+    /* package */ int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.service;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a report converted and validated in a single pass.
+ */
+public final class SinglePassResult {
+
+    private final File junitTargetFile;
+    private final List<String> inputErrors;
+    private final List<String> outputErrors;
+
+    /* package */ SinglePassResult(File junitTargetFile, List<String> inputErrors, List<String> outputErrors) {
+        this.junitTargetFile = junitTargetFile;
+        this.inputErrors = Collections.unmodifiableList(inputErrors);
+        this.outputErrors = Collections.unmodifiableList(outputErrors);
+    }
+
+    /**
+     * Returns the converted file.
+     *
+     * @return the JUnit report file, could not exists if the input report was
+     *         invalid
+     */
+    public File getJunitTargetFile() {
+        return junitTargetFile;
+    }
+
+    /**
+     * Returns the errors found validating the input report.
+     *
+     * @return the list of input validation errors
+     */
+    public List<String> getInputErrors() {
+        return inputErrors;
+    }
+
+    /**
+     * Returns the errors found validating the converted report.
+     *
+     * @return the list of output validation errors
+     */
+    public List<String> getOutputErrors() {
+        return outputErrors;
+    }
+
+}
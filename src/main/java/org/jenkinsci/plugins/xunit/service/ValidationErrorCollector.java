@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Collects the errors reported by an XSD validator without stop the
+ * validation, except for fatal errors.
+ */
+/* package */ class ValidationErrorCollector implements ErrorHandler {
+
+    private final List<String> errors = new ArrayList<>();
+
+    @Override
+    public void warning(SAXParseException exception) throws SAXException {
+        // not an error
+    }
+
+    @Override
+    public void error(SAXParseException exception) throws SAXException {
+        errors.add(toString(exception));
+    }
+
+    @Override
+    public void fatalError(SAXParseException exception) throws SAXException {
+        errors.add(toString(exception));
+        throw exception;
+    }
+
+    /**
+     * Records an error that has stopped the validation without pass through
+     * this handler.
+     *
+     * @param exception the cause of the validation failure
+     */
+    public void failed(SAXException exception) {
+        if (errors.isEmpty()) {
+            errors.add(exception.getMessage());
+        }
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    private String toString(SAXParseException e) {
+        return "[ERROR] - Line: " + e.getLineNumber() + " - Column: " + e.getColumnNumber() + " - Message: " + e.getMessage();
+    }
+
+}
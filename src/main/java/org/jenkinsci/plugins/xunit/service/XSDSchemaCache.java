@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.service;
+
+import java.io.FileNotFoundException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Keeps the compiled XSD schemas for the whole life of the JVM where reports
+ * are validated (typically the agent JVM), so schemas are parsed only once and
+ * then shared between files and builds.
+ * <p>
+ * A {@link Schema} is immutable and thread safe, callers must create a new
+ * {@link javax.xml.validation.Validator} for each validation.
+ */
+public final class XSDSchemaCache {
+
+    private static final XSDSchemaCache INSTANCE = new XSDSchemaCache();
+
+    private final Map<Class<?>, ConcurrentMap<String, Schema>> schemas = new WeakHashMap<>();
+
+    /* package */ XSDSchemaCache() {
+    }
+
+    public static XSDSchemaCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the schema compiled from all the given XSD resources.
+     *
+     * @param resourceClass the class used to load the XSD resources
+     * @param xsdNames the name of XSD resources relative to the class
+     * @param statistics where the cache hit or miss is recorded
+     * @return the compiled schema
+     * @throws FileNotFoundException if a resource does not exist
+     * @throws SAXException if the schema could not be compiled
+     */
+    @Nonnull
+    public Schema getSchema(@Nonnull Class<?> resourceClass, @Nonnull String[] xsdNames, @Nonnull CacheStatistics statistics) throws FileNotFoundException, SAXException {
+        ConcurrentMap<String, Schema> classSchemas;
+        synchronized (schemas) {
+            classSchemas = schemas.get(resourceClass);
+            if (classSchemas == null) {
+                classSchemas = new ConcurrentHashMap<>();
+                schemas.put(resourceClass, classSchemas);
+            }
+        }
+
+        String key = Arrays.toString(xsdNames);
+        Schema schema = classSchemas.get(key);
+        if (schema != null) {
+            statistics.hit();
+            return schema;
+        }
+        statistics.miss();
+
+        Source[] sources = new Source[xsdNames.length];
+        for (int i = 0; i < xsdNames.length; i++) {
+            URL xsdURL = resourceClass.getResource(xsdNames[i]);
+            if (xsdURL == null) {
+                throw new FileNotFoundException("The XSD resource '" + xsdNames[i] + "' was not found.");
+            }
+            sources[i] = new StreamSource(xsdURL.toExternalForm());
+        }
+        // SchemaFactory is not thread safe
+        schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(sources);
+
+        Schema previous = classSchemas.putIfAbsent(key, schema);
+        return previous != null ? previous : schema;
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.service;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import hudson.remoting.VirtualChannel;
+
+/**
+ * Keeps the user and custom stylesheets received by the node JVM, so the
+ * controller sends only their digest when it has already sent them on the
+ * same channel.
+ * <p>
+ * Entries are evicted in LRU order when the maximum size, configurable through
+ * the {@link #MAX_SIZE_PROPERTY} system property, is exceeded. A node that no
+ * longer has a stylesheet fails with {@link XSLContentNotFoundException} and
+ * the content is sent again.
+ */
+public final class XSLContentStore {
+
+    public static final String MAX_SIZE_PROPERTY = XSLContentStore.class.getName() + ".maxSize";
+    private static final int DEFAULT_MAX_SIZE = 32;
+
+    private static final XSLContentStore INSTANCE = new XSLContentStore(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    // kept on the controller, a reconnected node has a new channel
+    private static final Map<VirtualChannel, Set<String>> SENT_DIGESTS = new WeakHashMap<>();
+
+    private final Map<String, String> contents;
+
+    /* package */ XSLContentStore(final int maxSize) {
+        this.contents = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public static XSLContentStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the stylesheet content with the given digest.
+     *
+     * @param digest the digest of the stylesheet content
+     * @return the stylesheet content, null if it is not in the store
+     */
+    @CheckForNull
+    public String get(@Nonnull String digest) {
+        synchronized (contents) {
+            return contents.get(digest);
+        }
+    }
+
+    /**
+     * Stores a stylesheet content.
+     *
+     * @param digest the digest of the stylesheet content
+     * @param xslContent the stylesheet content
+     */
+    public void put(@Nonnull String digest, @Nonnull String xslContent) {
+        synchronized (contents) {
+            contents.put(digest, xslContent);
+        }
+    }
+
+    /**
+     * Returns if a stylesheet has already been sent on a channel.
+     *
+     * @param channel the channel of a node
+     * @param digest the digest of the stylesheet content
+     * @return true if the node should have the stylesheet in its store
+     */
+    public static boolean isSent(@Nonnull VirtualChannel channel, @Nonnull String digest) {
+        synchronized (SENT_DIGESTS) {
+            Set<String> digests = SENT_DIGESTS.get(channel);
+            return digests != null && digests.contains(digest);
+        }
+    }
+
+    /**
+     * Records that a stylesheet has been sent on a channel.
+     *
+     * @param channel the channel of a node
+     * @param digest the digest of the stylesheet content
+     */
+    public static void setSent(@Nonnull VirtualChannel channel, @Nonnull String digest) {
+        synchronized (SENT_DIGESTS) {
+            Set<String> digests = SENT_DIGESTS.get(channel);
+            if (digests == null) {
+                digests = new HashSet<>();
+                SENT_DIGESTS.put(channel, digests);
+            }
+            digests.add(digest);
+        }
+    }
+
+}
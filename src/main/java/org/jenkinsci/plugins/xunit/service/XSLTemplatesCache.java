@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.xunit.util.DigestUtil;
+
+import net.sf.saxon.TransformerFactoryImpl;
+
+/**
+ * Keeps the compiled XSL stylesheets for the whole life of the JVM where
+ * reports are converted (typically the agent JVM), so the same stylesheet is
+ * not compiled again for each report.
+ * <p>
+ * Entries are keyed by the digest of the stylesheet source and are evicted in
+ * LRU order when the maximum size, configurable through the
+ * {@link #MAX_SIZE_PROPERTY} system property, is exceeded. Compiled
+ * {@link Templates} are thread safe so the same instance is shared between
+ * concurrent executors.
+ */
+public final class XSLTemplatesCache {
+
+    public static final String MAX_SIZE_PROPERTY = XSLTemplatesCache.class.getName() + ".maxSize";
+    private static final int DEFAULT_MAX_SIZE = 64;
+
+    private static final XSLTemplatesCache INSTANCE = new XSLTemplatesCache(Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+    private final Map<String, Templates> templates;
+    private final Map<Class<?>, ConcurrentMap<String, String>> resourceDigests = new WeakHashMap<>();
+
+    /* package */ XSLTemplatesCache(final int maxSize) {
+        this.templates = new LinkedHashMap<String, Templates>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Templates> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public static XSLTemplatesCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the compiled stylesheet for the given source, compiling it only
+     * if it is not already cached.
+     *
+     * @param xslContent the stylesheet source
+     * @param statistics where the cache hit or miss is recorded
+     * @return the compiled stylesheet
+     * @throws TransformerConfigurationException if the stylesheet could not be
+     *         compiled
+     */
+    @Nonnull
+    public Templates getTemplates(@Nonnull String xslContent, @Nonnull CacheStatistics statistics) throws TransformerConfigurationException {
+        return getTemplates(DigestUtil.digest(xslContent), xslContent, statistics);
+    }
+
+    /**
+     * Returns the compiled stylesheet embedded as a classpath resource. The
+     * resource is read only the first time or when its compiled stylesheet has
+     * been evicted.
+     *
+     * @param resourceClass the class used to load the resource
+     * @param resourceName the name of the resource relative to the class
+     * @param statistics where the cache hit or miss is recorded
+     * @return the compiled stylesheet
+     * @throws IOException if the resource could not be found or read
+     * @throws TransformerConfigurationException if the stylesheet could not be
+     *         compiled
+     */
+    @Nonnull
+    public Templates getTemplates(@Nonnull Class<?> resourceClass, @Nonnull String resourceName, @Nonnull CacheStatistics statistics) throws IOException, TransformerConfigurationException {
+        ConcurrentMap<String, String> digests = getResourceDigests(resourceClass);
+
+        String digest = digests.get(resourceName);
+        if (digest != null) {
+            Templates cached = lookup(digest);
+            if (cached != null) {
+                statistics.hit();
+                return cached;
+            }
+        }
+
+        String xslContent = readResource(resourceClass, resourceName);
+        digest = DigestUtil.digest(xslContent);
+        digests.put(resourceName, digest);
+        return getTemplates(digest, xslContent, statistics);
+    }
+
+    /**
+     * Returns the digest of a stylesheet embedded as a classpath resource. The
+     * resource is read only if its digest is not already known.
+     *
+     * @param resourceClass the class used to load the resource
+     * @param resourceName the name of the resource relative to the class
+     * @return the hexadecimal digest of the stylesheet source
+     * @throws IOException if the resource could not be found or read
+     */
+    @Nonnull
+    public String getDigest(@Nonnull Class<?> resourceClass, @Nonnull String resourceName) throws IOException {
+        ConcurrentMap<String, String> digests = getResourceDigests(resourceClass);
+        String digest = digests.get(resourceName);
+        if (digest == null) {
+            digest = DigestUtil.digest(readResource(resourceClass, resourceName));
+            digests.put(resourceName, digest);
+        }
+        return digest;
+    }
+
+    private Templates getTemplates(String digest, String xslContent, CacheStatistics statistics) throws TransformerConfigurationException {
+        Templates cached = lookup(digest);
+        if (cached != null) {
+            statistics.hit();
+            return cached;
+        }
+        statistics.miss();
+
+        // compile outside the lock, two executors that miss the same
+        // stylesheet at the same time at worst compile it twice
+        Templates compiled = compile(new StreamSource(new StringReader(xslContent)));
+        synchronized (templates) {
+            cached = templates.get(digest);
+            if (cached != null) {
+                return cached;
+            }
+            templates.put(digest, compiled);
+        }
+        return compiled;
+    }
+
+    private ConcurrentMap<String, String> getResourceDigests(Class<?> resourceClass) {
+        synchronized (resourceDigests) {
+            ConcurrentMap<String, String> digests = resourceDigests.get(resourceClass);
+            if (digests == null) {
+                digests = new ConcurrentHashMap<>();
+                resourceDigests.put(resourceClass, digests);
+            }
+            return digests;
+        }
+    }
+
+    private String readResource(Class<?> resourceClass, String resourceName) throws IOException {
+        try (InputStream is = resourceClass.getResourceAsStream(resourceName)) {
+            if (is == null) {
+                throw new FileNotFoundException("The XSL resource '" + resourceName + "' was not found.");
+            }
+            return IOUtils.toString(is, "UTF-8");
+        }
+    }
+
+    private Templates lookup(String digest) {
+        synchronized (templates) {
+            return templates.get(digest);
+        }
+    }
+
+    private Templates compile(Source source) throws TransformerConfigurationException {
+        // XSL 2.0 stylesheets requires Saxon whatever is the JAXP default
+        return new TransformerFactoryImpl().newTemplates(source);
+    }
+
+    /* package */ int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+}
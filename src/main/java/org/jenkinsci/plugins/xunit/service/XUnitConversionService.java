@@ -25,27 +25,60 @@
 package org.jenkinsci.plugins.xunit.service;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
 
 import org.apache.commons.io.FileUtils;
 import org.jenkinsci.lib.dtkit.model.InputMetric;
 import org.jenkinsci.lib.dtkit.model.InputMetricXSL;
 import org.jenkinsci.lib.dtkit.util.converter.ConversionException;
 import org.jenkinsci.plugins.xunit.XUnitDefaultValues;
-import org.jenkinsci.plugins.xunit.exception.XUnitException;
-import org.jenkinsci.plugins.xunit.types.CustomInputMetric;
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsFile;
+import org.jenkinsci.plugins.xunit.types.MeasurementsReaderProvider;
+import org.jenkinsci.plugins.xunit.types.ReportSplitter;
+import org.jenkinsci.plugins.xunit.types.ReportSplitterProvider;
+import org.jenkinsci.plugins.xunit.types.StreamingConverter;
+import org.jenkinsci.plugins.xunit.types.StreamingConverterProvider;
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+import org.jenkinsci.plugins.xunit.util.DigestUtil;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
-import hudson.FilePath;
+import net.sf.saxon.TransformerFactoryImpl;
 
 public class XUnitConversionService implements Serializable {
     private static final long serialVersionUID = 6019846684040298718L;
 
     private XUnitLog xUnitLog;
+    private final CacheStatistics templatesStatistics = new CacheStatistics("XSL stylesheet");
+    private final CacheStatistics conversionStatistics = new CacheStatistics("Conversion");
 
     @Inject
     public XUnitConversionService(XUnitLog xUnitLog) {
@@ -74,11 +107,16 @@ public class XUnitConversionService implements Serializable {
 
         File junitTargetFile = getTargetFile(parent);
         try {
-            if (inputMetric instanceof InputMetricXSL && xUnitToolInfo.getXSLFile() != null) {
-                convertCustomMetric(xUnitToolInfo, inputFile, inputMetric, junitTargetFile);
+            if (inputMetric instanceof InputMetricXSL) {
+                if (xUnitToolInfo.getXSLFile() != null) {
+                    convertCustomMetric(xUnitToolInfo, inputFile, (InputMetricXSL) inputMetric, junitTargetFile);
+                } else if (!convertStreaming(inputFile, inputMetric, junitTargetFile)) {
+                    convertEmbeddedMetric(inputFile, (InputMetricXSL) inputMetric, junitTargetFile);
+                }
             } else {
                 inputMetric.convert(inputFile, junitTargetFile);
             }
+            readMeasurements(inputFile, inputMetric, junitTargetFile);
             return junitTargetFile;
 
         } catch (ConversionException e) {
@@ -87,18 +125,386 @@ public class XUnitConversionService implements Serializable {
         }
     }
 
-    private void convertCustomMetric(XUnitToolInfo xUnitToolInfo, File inputFile, InputMetric inputMetric, File junitTargetFile) {
+    /**
+     * Splits a large report in smaller reports, the chunks, that are
+     * converted on their own. The JUnit reports of the chunks together give
+     * the same test results of the conversion of the whole report.
+     * <p>
+     * Reports converted by a custom stylesheet are never split, the
+     * stylesheet could read the whole report.
+     *
+     * @param xUnitToolInfo
+     *            the wrapper object that contains all tool information
+     * @param inputFile
+     *            the report to split
+     * @param chunkDirectory
+     *            the folder where write the chunks
+     * @return the chunks, empty if the report is converted as a whole
+     * @throws IOException when the chunks could not be written
+     */
+    @Nonnull
+    public List<File> split(XUnitToolInfo xUnitToolInfo, File inputFile, File chunkDirectory) throws IOException {
+        InputMetric inputMetric = xUnitToolInfo.getInputMetric();
+        if (xUnitToolInfo.getXSLFile() != null || !(inputMetric instanceof ReportSplitterProvider)) {
+            return Collections.emptyList();
+        }
+        ReportSplitter splitter = ((ReportSplitterProvider) inputMetric).getReportSplitter();
+        if (!splitter.isSplittable(inputFile)) {
+            return Collections.emptyList();
+        }
+
+        try {
+            List<File> chunks = splitter.split(inputFile, chunkDirectory);
+            if (chunks.size() > 1) {
+                xUnitLog.info("The result file '" + inputFile + "' has been split in " + chunks.size() + " parts.");
+                return chunks;
+            }
+            for (File chunk : chunks) {
+                FileUtils.deleteQuietly(chunk);
+            }
+        } catch (XMLStreamException e) {
+            // the whole report is processed and the error reported by the
+            // validation
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the key that identifies the conversion of the given input report
+     * in the {@link ConversionCache}. The key depends on the content of the
+     * report, the content of the stylesheet and the tool version.
+     *
+     * @param xUnitToolInfo
+     *            the xUnit info wrapper object
+     * @param inputFile
+     *            the input file to be converted
+     * @return the conversion key, null if the conversion of this tool could
+     *         not be cached
+     * @throws IOException when the input report or the stylesheet could not be
+     *             read.
+     */
+    @CheckForNull
+    public String getCacheKey(XUnitToolInfo xUnitToolInfo, File inputFile) throws IOException {
+        InputMetric inputMetric = xUnitToolInfo.getInputMetric();
+        if (!(inputMetric instanceof InputMetricXSL)) {
+            return null;
+        }
         InputMetricXSL inputMetricXSL = (InputMetricXSL) inputMetric;
+
+        String xslDigest;
+        if (xUnitToolInfo.getXSLDigest() != null) {
+            xslDigest = xUnitToolInfo.getXSLDigest();
+        } else if (inputMetricXSL.getXslFile() != null) {
+            xslDigest = DigestUtil.digest(inputMetricXSL.getXslFile());
+        } else if (inputMetricXSL.getXslName() != null && inputMetricXSL.getXslResourceClass() != null) {
+            xslDigest = XSLTemplatesCache.getInstance().getDigest(inputMetricXSL.getXslResourceClass(), inputMetricXSL.getXslName());
+        } else {
+            return null;
+        }
+
+        if (xUnitToolInfo.getXSLDigest() == null) {
+            StreamingConverter converter = getStreamingConverter(inputMetric);
+            if (converter != null) {
+                xslDigest += ':' + converter.getClass().getName() + converter.getSettings();
+            }
+        }
+
+        return DigestUtil.digest(DigestUtil.digest(inputFile) + ':' + xslDigest + ':' //
+                + inputMetric.getToolName() + ':' + inputMetric.getToolVersion());
+    }
+
+    /**
+     * Provides the JUnit report of an input file already converted by a
+     * previous build, with its measurements.
+     *
+     * @param xUnitToolInfo
+     *            the xUnit info wrapper object
+     * @param cacheKey
+     *            the conversion key of the input file
+     * @param junitOutputDirectory
+     *            the output parent directory that contains the JUnit output
+     *            file
+     * @return the JUnit report file, null if the conversion is not cached
+     * @throws IOException when converted reports could not be created or
+     *             written.
+     */
+    @CheckForNull
+    public File convertFromCache(XUnitToolInfo xUnitToolInfo, String cacheKey, File junitOutputDirectory) throws IOException {
+        File parent = new File(junitOutputDirectory, xUnitToolInfo.getInputMetric().getToolName());
+        FileUtils.forceMkdir(parent);
+
+        File junitTargetFile = getTargetFile(parent);
+        if (ConversionCache.getInstance().restore(cacheKey, junitTargetFile)) {
+            conversionStatistics.hit();
+            return junitTargetFile;
+        }
+        conversionStatistics.miss();
+        return null;
+    }
+
+    /**
+     * Stores a valid JUnit report and its measurements, if any, so that next
+     * conversions of the same input file are served by
+     * {@link #convertFromCache(XUnitToolInfo, String, File)}.
+     *
+     * @param cacheKey
+     *            the conversion key of the input file
+     * @param junitTargetFile
+     *            the converted report
+     */
+    public void storeInCache(String cacheKey, File junitTargetFile) {
         try {
-            inputMetricXSL.convert(inputFile, junitTargetFile, xUnitToolInfo.getXSLFile(), null);
+            ConversionCache.getInstance().store(cacheKey, junitTargetFile);
+        } catch (IOException e) {
+            xUnitLog.warn("The converted report could not be stored in the conversion cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts the inputFile into a JUnit output file validating the input
+     * report while it is parsed and the JUnit report while it is written.
+     * <p>
+     * The input report is read once and the converted report is never read
+     * back from the disk.
+     *
+     * @param xUnitToolInfo
+     *            the xUnit info wrapper object
+     * @param inputFile
+     *            the input file to be converted
+     * @param junitOutputDirectory
+     *            the output parent directory that contains the JUnit output
+     *            file
+     * @param inputSchema
+     *            the schema of the input report, if null the input report is
+     *            not validated
+     * @param outputSchema
+     *            the schema of the JUnit report, if null the converted report
+     *            is not validated
+     * @return the conversion result, null if the tool could not be converted
+     *         in a single pass and so must be converted by
+     *         {@link #convert(XUnitToolInfo, File, File)}
+     * @throws IOException when converted reports could not be created or
+     *             written.
+     */
+    @CheckForNull
+    public SinglePassResult convertInSinglePass(XUnitToolInfo xUnitToolInfo, File inputFile, File junitOutputDirectory, //
+                                                @CheckForNull Schema inputSchema, @CheckForNull Schema outputSchema) throws IOException {
+        InputMetric inputMetric = xUnitToolInfo.getInputMetric();
+        if (!(inputMetric instanceof InputMetricXSL)) {
+            return null;
+        }
+        if (xUnitToolInfo.getXSLFile() == null && getStreamingConverter(inputMetric) != null) {
+            // streaming converters do not build the report tree in memory
+            return null;
+        }
+
+        Templates templates = getTemplates(xUnitToolInfo, (InputMetricXSL) inputMetric);
+        if (templates == null) {
+            return null;
+        }
+
+        File parent = new File(junitOutputDirectory, inputMetric.getToolName());
+        FileUtils.forceMkdir(parent);
+
+        File junitTargetFile = getTargetFile(parent);
+
+        ValidationErrorCollector inputErrors = new ValidationErrorCollector();
+        ValidationErrorCollector outputErrors = new ValidationErrorCollector();
+        try (OutputStream os = new FileOutputStream(junitTargetFile)) {
+            SAXTransformerFactory transformerFactory = (SAXTransformerFactory) new TransformerFactoryImpl();
+
+            // serializer of the converted report
+            TransformerHandler serializer = transformerFactory.newTransformerHandler();
+            Transformer serializerTransformer = serializer.getTransformer();
+            serializerTransformer.setOutputProperties(templates.getOutputProperties());
+            serializerTransformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            serializer.setResult(new StreamResult(os));
+
+            ContentHandler outputHandler = serializer;
+            if (outputSchema != null) {
+                ValidatorHandler outputValidator = outputSchema.newValidatorHandler();
+                outputValidator.setErrorHandler(outputErrors);
+                outputValidator.setContentHandler(serializer);
+                outputHandler = outputValidator;
+            }
+
+            TransformerHandler stylesheet = transformerFactory.newTransformerHandler(templates);
+            stylesheet.getTransformer().setOutputProperty(OutputKeys.INDENT, "yes");
+            stylesheet.setSystemId(inputFile.toURI().toString());
+            stylesheet.setResult(new SAXResult(outputHandler));
+
+            ContentHandler inputHandler = stylesheet;
+            if (inputSchema != null) {
+                ValidatorHandler inputValidator = inputSchema.newValidatorHandler();
+                inputValidator.setErrorHandler(inputErrors);
+                inputValidator.setContentHandler(stylesheet);
+                inputHandler = inputValidator;
+            }
+
+            SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+            parserFactory.setNamespaceAware(true);
+            XMLReader reader = parserFactory.newSAXParser().getXMLReader();
+            reader.setContentHandler(inputHandler);
+            reader.setErrorHandler(inputErrors);
+            try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+                InputSource source = new InputSource(is);
+                source.setSystemId(inputFile.toURI().toString());
+                reader.parse(source);
+            }
+        } catch (SAXException e) {
+            // fatal validation errors are already collected
+            if (!inputErrors.hasErrors() && !outputErrors.hasErrors()) {
+                // the stylesheet failed, let the classic conversion reports it
+                FileUtils.deleteQuietly(junitTargetFile);
+                return null;
+            }
+        } catch (TransformerConfigurationException | ParserConfigurationException e) {
+            FileUtils.deleteQuietly(junitTargetFile);
+            return null;
+        }
+
+        if (inputErrors.hasErrors()) {
+            FileUtils.deleteQuietly(junitTargetFile);
+        } else {
+            readMeasurements(inputFile, inputMetric, junitTargetFile);
+        }
+        return new SinglePassResult(junitTargetFile, inputErrors.getErrors(), outputErrors.getErrors());
+    }
+
+    @CheckForNull
+    private Templates getTemplates(XUnitToolInfo xUnitToolInfo, InputMetricXSL inputMetricXSL) throws IOException {
+        XSLTemplatesCache cache = XSLTemplatesCache.getInstance();
+        if (xUnitToolInfo.getXSLFile() != null) {
+            try {
+                return cache.getTemplates(xUnitToolInfo.getXSLFile(), templatesStatistics);
+            } catch (Exception xe) {
+                xUnitLog.error("Error occurs on the use of the user stylesheet: " + xe.getMessage());
+                xUnitLog.info("Fallback on the native embedded stylesheet.");
+            }
+        }
+        try {
+            if (inputMetricXSL.getXslFile() != null) {
+                return cache.getTemplates(FileUtils.readFileToString(inputMetricXSL.getXslFile(), "UTF-8"), templatesStatistics);
+            } else if (inputMetricXSL.getXslName() != null && inputMetricXSL.getXslResourceClass() != null) {
+                return cache.getTemplates(inputMetricXSL.getXslResourceClass(), inputMetricXSL.getXslName(), templatesStatistics);
+            }
+        } catch (TransformerConfigurationException e) {
+            // let the classic conversion reports the stylesheet error
+        }
+        return null;
+    }
+
+    /**
+     * Converts the input file with the streaming converter of the metric, if
+     * any.
+     *
+     * @return true if the input file has been converted, false if the metric
+     *         does not provide a streaming converter or it fails
+     */
+    private boolean convertStreaming(File inputFile, InputMetric inputMetric, File junitTargetFile) throws IOException {
+        StreamingConverter converter = getStreamingConverter(inputMetric);
+        if (converter == null) {
+            return false;
+        }
+        try {
+            converter.convert(inputFile, junitTargetFile);
+            return true;
+        } catch (XMLStreamException e) {
+            xUnitLog.info("Streaming conversion of the file '" + inputFile + "' fails: " + e.getMessage() + ". Fallback on the native embedded stylesheet.");
+            String settings = converter.getSettings();
+            if (!settings.isEmpty()) {
+                xUnitLog.warn("The native embedded stylesheet ignores the settings '" + settings + "' of the file '" + inputFile + "'.");
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Writes the measurements of the input file, if the metric provides a
+     * reader for them, next to the converted report. Measurements are
+     * optional, a report whose measurements could not be read is still
+     * recorded.
+     */
+    private void readMeasurements(File inputFile, InputMetric inputMetric, File junitTargetFile) throws IOException {
+        if (!(inputMetric instanceof MeasurementsReaderProvider)) {
+            return;
+        }
+        try {
+            List<Measurement> measurements = ((MeasurementsReaderProvider) inputMetric).getMeasurementsReader().read(inputFile);
+            if (!measurements.isEmpty()) {
+                MeasurementsFile.write(MeasurementsFile.getFile(junitTargetFile), measurements);
+            }
+        } catch (XMLStreamException e) {
+            xUnitLog.warn("The measurements of the file '" + inputFile + "' could not be read: " + e.getMessage());
+        }
+    }
+
+    @CheckForNull
+    private StreamingConverter getStreamingConverter(InputMetric inputMetric) {
+        if (inputMetric instanceof StreamingConverterProvider) {
+            return ((StreamingConverterProvider) inputMetric).getStreamingConverter();
+        }
+        return null;
+    }
+
+    private void convertCustomMetric(XUnitToolInfo xUnitToolInfo, File inputFile, InputMetricXSL inputMetricXSL, File junitTargetFile) throws IOException {
+        try {
+            Templates templates = XSLTemplatesCache.getInstance().getTemplates(xUnitToolInfo.getXSLFile(), templatesStatistics);
+            transform(templates, inputFile, junitTargetFile);
         } catch (Exception xe) {
             xUnitLog.error("Error occurs on the use of the user stylesheet: " + xe.getMessage());
             xUnitLog.info("Fallback on the native embedded stylesheet.");
 
-            inputMetric.convert(inputFile, junitTargetFile);
+            convertEmbeddedMetric(inputFile, inputMetricXSL, junitTargetFile);
+        }
+    }
+
+    private void convertEmbeddedMetric(File inputFile, InputMetricXSL inputMetricXSL, File junitTargetFile) throws IOException {
+        XSLTemplatesCache cache = XSLTemplatesCache.getInstance();
+        try {
+            Templates templates;
+            if (inputMetricXSL.getXslFile() != null) {
+                templates = cache.getTemplates(FileUtils.readFileToString(inputMetricXSL.getXslFile(), "UTF-8"), templatesStatistics);
+            } else if (inputMetricXSL.getXslName() != null && inputMetricXSL.getXslResourceClass() != null) {
+                templates = cache.getTemplates(inputMetricXSL.getXslResourceClass(), inputMetricXSL.getXslName(), templatesStatistics);
+            } else {
+                // nothing to cache, let the metric works as it knows
+                inputMetricXSL.convert(inputFile, junitTargetFile);
+                return;
+            }
+            transform(templates, inputFile, junitTargetFile);
+        } catch (javax.xml.transform.TransformerException e) {
+            throw new ConversionException(e);
         }
     }
 
+    private void transform(Templates templates, File inputFile, File junitTargetFile) throws IOException, javax.xml.transform.TransformerException {
+        Transformer transformer = templates.newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        try (InputStream is = CompressionUtil.newInputStream(inputFile); OutputStream os = new FileOutputStream(junitTargetFile)) {
+            transformer.transform(new StreamSource(is, inputFile.toURI().toString()), new StreamResult(os));
+        }
+    }
+
+    /**
+     * Returns the statistics of the compiled stylesheet lookups done by this
+     * service.
+     *
+     * @return the stylesheet cache statistics
+     */
+    public CacheStatistics getTemplatesStatistics() {
+        return templatesStatistics;
+    }
+
+    /**
+     * Returns the statistics of the reports served by the conversion cache.
+     *
+     * @return the conversion cache statistics
+     */
+    public CacheStatistics getConversionStatistics() {
+        return conversionStatistics;
+    }
+
     /**
      * Provides a unique target file name given an input report.The same input
      * file is intended not be converted twice time.
@@ -25,6 +25,9 @@
 package org.jenkinsci.plugins.xunit.service;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import com.google.inject.Inject;
 
@@ -33,7 +36,27 @@ import hudson.model.TaskListener;
 public class XUnitLog implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    private enum Level {
+        INFO, WARNING, ERROR
+    }
+
+    /**
+     * A message logged while the capture was active on the thread.
+     */
+    public static final class Message implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Level level;
+        private final String text;
+
+        private Message(Level level, String text) {
+            this.level = level;
+            this.text = text;
+        }
+    }
+
     private TaskListener buildListener;
+    private transient ThreadLocal<List<Message>> captured;
 
     @Inject
     public XUnitLog(TaskListener buildListener) {
@@ -46,7 +69,9 @@ public class XUnitLog implements Serializable {
      * @param message The message to be outputted
      */
     public void info(String message) {
-        buildListener.getLogger().println("INFO: " + message);
+        if (!capture(Level.INFO, message)) {
+            buildListener.getLogger().println("INFO: " + message);
+        }
     }
 
     /**
@@ -55,7 +80,9 @@ public class XUnitLog implements Serializable {
      * @param message The message to be outputted
      */
     public void error(String message) {
-        buildListener.error(message);
+        if (!capture(Level.ERROR, message)) {
+            buildListener.error(message);
+        }
     }
 
     /**
@@ -64,7 +91,72 @@ public class XUnitLog implements Serializable {
      * @param message The message to be outputted
      */
     public void warn(String message) {
-        buildListener.getLogger().println("WARNING: " + message);
+        if (!capture(Level.WARNING, message)) {
+            buildListener.getLogger().println("WARNING: " + message);
+        }
+    }
+
+    /**
+     * Starts to hold back the messages logged by the current thread, they
+     * will be returned by {@link #stopCapture()}.
+     * <p>
+     * Used by reports processed concurrently to print their messages in a
+     * deterministic order.
+     */
+    public void startCapture() {
+        getCaptured().set(new ArrayList<Message>());
+    }
+
+    /**
+     * Stops to hold back the messages logged by the current thread.
+     *
+     * @return the messages logged since {@link #startCapture()} was called
+     */
+    public List<Message> stopCapture() {
+        ThreadLocal<List<Message>> threadMessages = getCaptured();
+        List<Message> messages = threadMessages.get();
+        threadMessages.remove();
+        return messages != null ? messages : Collections.<Message> emptyList();
+    }
+
+    /**
+     * Log the given captured messages to the console logger.
+     *
+     * @param messages the messages to be outputted
+     */
+    public void replay(List<Message> messages) {
+        if (messages == null) {
+            return;
+        }
+        for (Message message : messages) {
+            switch (message.level) {
+            case ERROR:
+                error(message.text);
+                break;
+            case WARNING:
+                warn(message.text);
+                break;
+            default:
+                info(message.text);
+                break;
+            }
+        }
+    }
+
+    private boolean capture(Level level, String message) {
+        List<Message> messages = getCaptured().get();
+        if (messages == null) {
+            return false;
+        }
+        messages.add(new Message(level, message));
+        return true;
+    }
+
+    private synchronized ThreadLocal<List<Message>> getCaptured() {
+        if (captured == null) {
+            captured = new ThreadLocal<>();
+        }
+        return captured;
     }
 
 }
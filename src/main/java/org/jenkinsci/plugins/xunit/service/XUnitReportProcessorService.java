@@ -25,13 +25,22 @@
 package org.jenkinsci.plugins.xunit.service;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
-import org.apache.tools.ant.DirectoryScanner;
-import org.apache.tools.ant.types.FileSet;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+import org.jenkinsci.plugins.xunit.util.ArchiveEntryFile;
+import org.jenkinsci.plugins.xunit.util.DigestUtil;
+import org.jenkinsci.plugins.xunit.util.ReportManifest;
+import org.jenkinsci.plugins.xunit.util.ReportScanner;
 
 import com.google.inject.Inject;
 
@@ -40,6 +49,9 @@ import hudson.Util;
 public class XUnitReportProcessorService implements Serializable {
     private static final long serialVersionUID = 2640258179567685368L;
 
+    // old reports named in the failure message, the others are counted
+    private static final int MAX_LISTED_OLD_REPORTS = 10;
+
     private XUnitLog xUnitLog;
 
     @Inject
@@ -59,6 +71,14 @@ public class XUnitReportProcessorService implements Serializable {
 
     /**
      * Gets all reports from the given parent path and the pattern.
+     * <p>
+     * A comma separated include of the pattern could select the entries of
+     * zip and tar archives with the {@code !/} separator, for example
+     * {@code results/*.zip!/**}{@code /*.xml}. Entries are returned as
+     * {@code <archive>!/<entry>}.
+     * <p>
+     * A pattern that starts with {@code @} names a {@link ReportManifest},
+     * the reports it lists are returned without walking the workspace.
      *
      * @param xUnitToolInfo the xunit tool wrapper
      * @param parentPath parent
@@ -67,28 +87,206 @@ public class XUnitReportProcessorService implements Serializable {
      * @throws NoTestFoundException when not report files were founded
      */
     public List<String> findReports(XUnitToolInfo xUnitToolInfo, File parentPath, String pattern) throws NoTestFoundException {
+        if (ReportManifest.isManifest(pattern)) {
+            return findManifestReports(xUnitToolInfo, parentPath, pattern);
+        }
+
         String toolName = xUnitToolInfo.getInputMetric().getLabel();
 
-        FileSet fs = Util.createFileSet(parentPath, pattern);
-        DirectoryScanner ds = fs.getDirectoryScanner();
-        String[] xunitFiles = ds.getIncludedFiles();
+        SortedMap<String, Long> walkedFiles = xUnitToolInfo.getWorkspaceFiles();
+        if (walkedFiles == null) {
+            try {
+                walkedFiles = ReportScanner.getLastModifiedTimes(new ReportScanner(getWorkspacePattern(pattern)).scan(parentPath));
+            } catch (IOException e) {
+                throw new NoTestFoundException("[" + toolName + "] - The directory '" + parentPath + "' could not be scanned: " + e.getMessage());
+            }
+            // keeps the times read by the walk for the check of new reports
+            xUnitToolInfo.setWorkspaceFiles(walkedFiles);
+        }
+        Collection<String> workspaceFiles = walkedFiles.keySet();
+
+        List<String> xunitFiles = new ArrayList<>();
+        List<String> filePatterns = new ArrayList<>();
+        List<String> archivePatterns = new ArrayList<>();
+        for (String include : pattern.split(",")) {
+            if (include.contains(ArchiveEntryFile.SEPARATOR)) {
+                archivePatterns.add(include.trim());
+            } else {
+                filePatterns.add(include);
+            }
+        }
+        ReportScanner fileScanner = new ReportScanner(Util.join(filePatterns, ","));
+        for (String file : workspaceFiles) {
+            if (fileScanner.matches(file)) {
+                xunitFiles.add(file);
+            }
+        }
+        for (String archivePattern : archivePatterns) {
+            xunitFiles.addAll(findArchiveEntries(parentPath, archivePattern, workspaceFiles));
+        }
+
+        logFoundReports(toolName, parentPath, pattern, xunitFiles);
+        return xunitFiles;
+    }
+
+    /**
+     * Gets the reports listed by the manifest named in the pattern, the
+     * workspace is not walked.
+     */
+    private List<String> findManifestReports(XUnitToolInfo xUnitToolInfo, File parentPath, String pattern) throws NoTestFoundException {
+        String toolName = xUnitToolInfo.getInputMetric().getLabel();
+
+        File manifest = ReportManifest.getFile(parentPath, pattern);
+        List<ReportManifest.Entry> entries;
+        try {
+            entries = ReportManifest.read(manifest);
+        } catch (IOException e) {
+            throw new NoTestFoundException("[" + toolName + "] - The report manifest '" + manifest + "' could not be read: " + e.getMessage());
+        }
+
+        Path workspace = parentPath.toPath().toAbsolutePath().normalize();
+        Path realWorkspace;
+        try {
+            realWorkspace = workspace.toRealPath();
+        } catch (IOException e) {
+            throw new NoTestFoundException("[" + toolName + "] - The directory '" + parentPath + "' could not be read: " + e.getMessage());
+        }
+
+        List<String> xunitFiles = new ArrayList<>();
+        TreeMap<String, Long> workspaceFiles = new TreeMap<>();
+        for (ReportManifest.Entry entry : entries) {
+            if (!entry.isFor(xUnitToolInfo.getInputMetric().getToolName())) {
+                continue;
+            }
+
+            // the report or its archive must be in the workspace, also once
+            // the .. segments and the symbolic links are resolved
+            String name = entry.getPath();
+            int archiveIndex = name.indexOf(ArchiveEntryFile.SEPARATOR);
+            String fileName = archiveIndex != -1 ? name.substring(0, archiveIndex) : name;
+            Path path = workspace.resolve(fileName).normalize();
+            try {
+                if (!path.startsWith(workspace) || !path.toRealPath().startsWith(realWorkspace)) {
+                    xUnitLog.warn("The report '" + name + "' of the manifest is not in the workspace, it is skipped.");
+                    continue;
+                }
+            } catch (IOException e) {
+                xUnitLog.warn("The report '" + name + "' of the manifest does not exist, it is skipped.");
+                continue;
+            }
+            name = workspace.relativize(path).toString().replace(File.separatorChar, '/');
+            if (archiveIndex != -1) {
+                name += entry.getPath().substring(archiveIndex);
+            }
+
+            File report = getCurrentReport(parentPath, name);
+            long lastModified;
+            if (report instanceof ArchiveEntryFile) {
+                if (!report.isFile()) {
+                    xUnitLog.warn("The report '" + name + "' of the manifest does not exist, it is skipped.");
+                    continue;
+                }
+                lastModified = report.lastModified();
+            } else {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(report.toPath(), BasicFileAttributes.class);
+                    if (!attrs.isRegularFile()) {
+                        xUnitLog.warn("The report '" + name + "' of the manifest is not a file, it is skipped.");
+                        continue;
+                    }
+                    lastModified = attrs.lastModifiedTime().toMillis();
+                } catch (IOException e) {
+                    xUnitLog.warn("The report '" + name + "' of the manifest does not exist, it is skipped.");
+                    continue;
+                }
+            }
 
-        if (xunitFiles.length == 0) {
+            if (entry.getDigest() != null) {
+                try {
+                    if (!entry.getDigest().equalsIgnoreCase(DigestUtil.digest(report))) {
+                        xUnitLog.warn("The report '" + name + "' has changed since it was listed in the manifest, it is skipped.");
+                        continue;
+                    }
+                } catch (IOException e) {
+                    xUnitLog.warn("The report '" + name + "' of the manifest could not be read: " + e.getMessage());
+                    continue;
+                }
+            }
+
+            int separatorIndex = name.indexOf(ArchiveEntryFile.SEPARATOR);
+            workspaceFiles.put(separatorIndex != -1 ? name.substring(0, separatorIndex) : name, lastModified);
+            xunitFiles.add(name);
+        }
+        // keeps the times of the reports for the check of new reports
+        xUnitToolInfo.setWorkspaceFiles(workspaceFiles);
+
+        logFoundReports(toolName, parentPath, pattern, xunitFiles);
+        return xunitFiles;
+    }
+
+    private void logFoundReports(String toolName, File parentPath, String pattern, List<String> xunitFiles) throws NoTestFoundException {
+        if (xunitFiles.isEmpty()) {
             String msg = "[" + toolName + "] - No test report file(s) were found with the pattern '"
                     + pattern + "' relative to '" + parentPath + "' for the testing framework '" + toolName + "'."
                     + "  Did you enter a pattern relative to (and within) the workspace directory?"
                     + "  Did you generate the result report(s) for '" + toolName + "'?";
             throw new NoTestFoundException(msg);
         } else {
-            String msg = "[" + toolName + "] - " + xunitFiles.length + " test report file(s) were found with the pattern '"
+            String msg = "[" + toolName + "] - " + xunitFiles.size() + " test report file(s) were found with the pattern '"
                     + pattern + "' relative to '" + parentPath + "' for the testing framework '" + toolName + "'.";
             xUnitLog.info(msg);
         }
-        return Arrays.asList(xunitFiles);
+    }
+
+    private List<String> findArchiveEntries(File parentPath, String archivePattern, Collection<String> workspaceFiles) {
+        int separatorIndex = archivePattern.indexOf(ArchiveEntryFile.SEPARATOR);
+        String entryPattern = normalize(archivePattern.substring(separatorIndex + ArchiveEntryFile.SEPARATOR.length()));
+        ReportScanner archiveScanner = new ReportScanner(archivePattern.substring(0, separatorIndex));
+
+        List<String> entries = new ArrayList<>();
+        for (String archive : workspaceFiles) {
+            if (!archiveScanner.matches(archive)) {
+                continue;
+            }
+            try {
+                for (String entry : ArchiveEntryFile.list(new File(parentPath, archive))) {
+                    if (SelectorUtils.matchPath(entryPattern, normalize(entry))) {
+                        entries.add(archive + ArchiveEntryFile.SEPARATOR + entry);
+                    }
+                }
+            } catch (IOException e) {
+                xUnitLog.warn("The archive '" + archive + "' could not be read: " + e.getMessage());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the includes that select the workspace files of the pattern,
+     * the includes of archive entries are replaced by the include of their
+     * archives.
+     *
+     * @param pattern the pattern of a tool
+     * @return the comma separated includes of a workspace walk
+     */
+    public static String getWorkspacePattern(String pattern) {
+        List<String> includes = new ArrayList<>();
+        for (String include : pattern.split(",")) {
+            int separatorIndex = include.indexOf(ArchiveEntryFile.SEPARATOR);
+            includes.add(separatorIndex != -1 ? include.substring(0, separatorIndex) : include);
+        }
+        return Util.join(includes, ",");
+    }
+
+    private static String normalize(String path) {
+        return path.replace('/', File.separatorChar).replace('\\', File.separatorChar);
     }
 
     /**
      * Checks if all the finds files are new file.
+     * <p>
+     * The last modified time of the files is the one read by the walk of the
+     * workspace, files are not read again.
      *
      * @param xUnitToolInfo the wrapped object
      * @param files the file list
@@ -98,36 +296,49 @@ public class XUnitReportProcessorService implements Serializable {
      */
     public void checkIfFindsFilesNewFiles(XUnitToolInfo xUnitToolInfo, List<String> files, File workspace) throws NoNewTestReportException {
 
-        if (xUnitToolInfo.isFailIfNotNew()) {
-            ArrayList<File> oldResults = new ArrayList<>();
+        // watched files were all written during the build
+        if (xUnitToolInfo.isFailIfNotNew() && !xUnitToolInfo.isWatchedFiles()) {
+            SortedMap<String, Long> workspaceFiles = xUnitToolInfo.getWorkspaceFiles();
+            long newerThan = xUnitToolInfo.getBuildTime() - xUnitToolInfo.getTestTimeMargin();
+
+            List<String> oldResults = new ArrayList<>();
+            long newestOldResult = Long.MIN_VALUE;
             for (String value : files) {
-                File reportFile = new File(workspace, value);
+                // entries of an archive have the time of the archive
+                int separatorIndex = value.indexOf(ArchiveEntryFile.SEPARATOR);
+                String workspaceFile = separatorIndex != -1 ? value.substring(0, separatorIndex) : value;
+                Long lastModified = workspaceFiles != null ? workspaceFiles.get(workspaceFile) : null;
+                if (lastModified == null) {
+                    lastModified = getCurrentReport(workspace, value).lastModified();
+                }
                 // if the file was not updated this build, that is a problem
-                if (xUnitToolInfo.getBuildTime() - xUnitToolInfo.getTestTimeMargin() > reportFile.lastModified()) {
-                    oldResults.add(reportFile);
+                if (newerThan > lastModified) {
+                    oldResults.add(value);
+                    newestOldResult = Math.max(newestOldResult, lastModified);
                 }
             }
 
-//            if (!oldResults.isEmpty()) {
-//                long localTime = System.currentTimeMillis();
-//                if (localTime < xUnitToolInfo.getBuildTime() - 1000) {
-//                    // build time is in the the future. clock on this slave must
-//                    // be running behind
-//                    String msg = "Clock on this slave is out of sync with the master, and therefore \n" +
-//                            "I can't figure out what test results are new and what are old.\n" +
-//                            "Please keep the slave clock in sync with the master.";
-//                    throw new NoNewTestReportException(msg);
-//                }
-//
-//                StringBuilder stringBuilder = new StringBuilder();
-//                stringBuilder.append(String.format("Test reports were found but not all of them are new. Did all the tests run?%n"));
-//                for (File f : oldResults) {
-//                    stringBuilder.append(String.format("  * %s is %s old%n", f, Util.getTimeSpanString(xUnitToolInfo.getBuildTime()
-//                            - f.lastModified())));
-//                }
-//                String msg = stringBuilder.toString();
-//                throw new NoNewTestReportException(msg);
-//            }
+            if (!oldResults.isEmpty()) {
+                long localTime = System.currentTimeMillis();
+                if (localTime < xUnitToolInfo.getBuildTime() - 1000) {
+                    // build time is in the the future. clock on this slave must
+                    // be running behind
+                    String msg = "Clock on this slave is out of sync with the master, and therefore \n" +
+                            "I can't figure out what test results are new and what are old.\n" +
+                            "Please keep the slave clock in sync with the master.";
+                    throw new NoNewTestReportException(msg);
+                }
+
+                List<String> names = oldResults.size() > MAX_LISTED_OLD_REPORTS ? oldResults.subList(0, MAX_LISTED_OLD_REPORTS) : oldResults;
+                StringBuilder msg = new StringBuilder("Test reports were found but not all of them are new. Did all the tests run? ");
+                msg.append(oldResults.size()).append(" of ").append(files.size()).append(" test report(s) are older than this build")
+                        .append(", the most recent of them is ").append(Util.getTimeSpanString(xUnitToolInfo.getBuildTime() - newestOldResult)).append(" old: ")
+                        .append(Util.join(names, ", "));
+                if (names.size() < oldResults.size()) {
+                    msg.append(" and ").append(oldResults.size() - names.size()).append(" more");
+                }
+                throw new NoNewTestReportException(msg.append('.').toString());
+            }
         }
     }
 
@@ -135,10 +346,19 @@ public class XUnitReportProcessorService implements Serializable {
      * Gets a file from a root file and a name
      *
      * @param root the root path
-     * @param name the filename
-     * @return the current file
+     * @param name the filename, or the archive name and the entry name
+     *            separated by {@code !/}
+     * @return the current file, an {@link ArchiveEntryFile} for the archive
+     *         entries
      */
     public File getCurrentReport(File root, String name) {
+        int separatorIndex = name.indexOf(ArchiveEntryFile.SEPARATOR);
+        if (separatorIndex != -1) {
+            File archive = new File(root, name.substring(0, separatorIndex));
+            if (archive.isFile()) {
+                return new ArchiveEntryFile(archive, name.substring(separatorIndex + ArchiveEntryFile.SEPARATOR.length()));
+            }
+        }
         return new File(root, name);
     }
 
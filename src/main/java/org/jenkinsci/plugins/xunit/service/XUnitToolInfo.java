@@ -24,9 +24,17 @@
 
 package org.jenkinsci.plugins.xunit.service;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.annotation.CheckForNull;
 
 import org.jenkinsci.lib.dtkit.model.InputMetric;
+import org.jenkinsci.plugins.xunit.util.DigestUtil;
 
 public class XUnitToolInfo implements Serializable {
     private static final long serialVersionUID = 8171724502903934676L;
@@ -39,7 +47,14 @@ public class XUnitToolInfo implements Serializable {
     private final boolean stopProcessingIfError;
     private final long buildTime;
     private final long testTimeMargin;
-    private final String xslContent;
+    private String xslContent;
+    private transient String omittedXSLContent;
+    private final String xslDigest;
+    private int workerCount;
+    private boolean singlePass;
+    private boolean cacheConversions;
+    private TreeMap<String, Long> workspaceFiles;
+    private boolean watchedFiles;
 
     public XUnitToolInfo(InputMetric inputMetric,
                          String pattern, Boolean skipNoTestFiles, Boolean failIfNotNew,
@@ -54,12 +69,66 @@ public class XUnitToolInfo implements Serializable {
         this.buildTime = buildTime;
         this.testTimeMargin = testTimeMargin;
         this.xslContent = xslContent;
+        this.xslDigest = xslContent != null ? DigestUtil.digest(xslContent) : null;
     }
 
+    /**
+     * Returns the content of the user or custom stylesheet. When the content
+     * was not sent to this node it is resolved by digest from the
+     * {@link XSLContentStore}.
+     *
+     * @return the stylesheet content, null if the tool does not use a user or
+     *         custom stylesheet or it is no longer available on this node
+     */
+    @CheckForNull
     public String getXSLFile() {
+        if (xslContent == null && xslDigest != null) {
+            xslContent = XSLContentStore.getInstance().get(xslDigest);
+        }
         return xslContent;
     }
 
+    /**
+     * Returns the digest of the user or custom stylesheet.
+     *
+     * @return the stylesheet digest, null if the tool does not use a user or
+     *         custom stylesheet
+     */
+    @CheckForNull
+    public String getXSLDigest() {
+        return xslDigest;
+    }
+
+    /**
+     * Sends only the digest of the stylesheet to the node because its store
+     * already contains the content.
+     */
+    public void omitXSLContent() {
+        if (xslDigest != null && xslContent != null) {
+            omittedXSLContent = xslContent;
+            xslContent = null;
+        }
+    }
+
+    /**
+     * Sends again the content of the stylesheet to the node, when its store
+     * no longer contains it.
+     */
+    public void includeXSLContent() {
+        if (omittedXSLContent != null) {
+            xslContent = omittedXSLContent;
+            omittedXSLContent = null;
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (xslContent != null && xslDigest != null) {
+            // next builds will send only the digest
+            XSLContentStore.getInstance().put(xslDigest, xslContent);
+        }
+    }
+
     public InputMetric getInputMetric() {
         return inputMetric;
     }
@@ -91,4 +160,74 @@ public class XUnitToolInfo implements Serializable {
     public long getTestTimeMargin() {
         return testTimeMargin;
     }
+
+    /**
+     * Returns the maximum number of reports converted at the same time, a
+     * value less or equal to one means that reports are converted one by one.
+     *
+     * @return the number of conversion workers
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Returns if reports are validated while they are converted.
+     *
+     * @return true if reports are converted and validated in a single pass
+     */
+    public boolean isSinglePass() {
+        return singlePass;
+    }
+
+    public void setSinglePass(boolean singlePass) {
+        this.singlePass = singlePass;
+    }
+
+    /**
+     * Returns if converted reports are kept on the node to be reused.
+     *
+     * @return true if conversions are cached
+     */
+    public boolean isCacheConversions() {
+        return cacheConversions;
+    }
+
+    public void setCacheConversions(boolean cacheConversions) {
+        this.cacheConversions = cacheConversions;
+    }
+
+    /**
+     * Returns the workspace files that match the pattern, found with a walk
+     * of the workspace shared by all the tools or with the walk of the tool.
+     *
+     * @return the last modified time of the files by their relative path or
+     *         {@code null} if the workspace has not been walked yet
+     */
+    @CheckForNull
+    public SortedMap<String, Long> getWorkspaceFiles() {
+        return workspaceFiles;
+    }
+
+    public void setWorkspaceFiles(@CheckForNull Map<String, Long> workspaceFiles) {
+        this.workspaceFiles = workspaceFiles != null ? new TreeMap<>(workspaceFiles) : null;
+    }
+
+    /**
+     * Returns if the workspace files were recorded while they were written
+     * during the build, they are new without checking their time.
+     *
+     * @return true if the workspace files come from a watch of the workspace
+     */
+    public boolean isWatchedFiles() {
+        return watchedFiles;
+    }
+
+    public void setWatchedFiles(boolean watchedFiles) {
+        this.watchedFiles = watchedFiles;
+    }
 }
@@ -23,17 +23,34 @@
  */
 package org.jenkinsci.plugins.xunit.service;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 
 import org.apache.commons.io.FileUtils;
-import org.jenkinsci.lib.dtkit.util.validator.ValidationError;
 import org.jenkinsci.plugins.xunit.XUnitDefaultValues;
+import org.jenkinsci.plugins.xunit.util.ArchiveEntryFile;
 
 import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import jenkins.MasterToSlaveFileCallable;
 
 public class XUnitTransformerCallable extends MasterToSlaveFileCallable<Integer> {
@@ -72,15 +89,16 @@ public class XUnitTransformerCallable extends MasterToSlaveFileCallable<Integer>
      */
     @Override
     public Integer invoke(File ws, VirtualChannel channel) throws IOException, InterruptedException {
-        int processedFiles = 0;
-
         File junitOutputDir = new File(ws, XUnitDefaultValues.GENERATED_JUNIT_DIR);
         if (processorId != null) {
             junitOutputDir = new File(junitOutputDir, processorId);
         }
         FileUtils.forceMkdir(junitOutputDir);
 
-        String metricName = xUnitToolInfo.getInputMetric().getToolName();
+        if (xUnitToolInfo.getXSLDigest() != null && xUnitToolInfo.getXSLFile() == null) {
+            // evicted since the controller sent it, it will be sent again
+            throw new XSLContentNotFoundException("The stylesheet " + xUnitToolInfo.getXSLDigest() + " is no longer available on this node.");
+        }
 
         // Gets all input files matching the user pattern
         List<String> resultFiles = xUnitReportProcessorService.findReports(xUnitToolInfo, ws, xUnitToolInfo.getPattern());
@@ -89,50 +107,286 @@ public class XUnitTransformerCallable extends MasterToSlaveFileCallable<Integer>
         // checked (true by default)
         xUnitReportProcessorService.checkIfFindsFilesNewFiles(xUnitToolInfo, resultFiles, ws);
 
+        String metricName = xUnitToolInfo.getInputMetric().getToolName();
         boolean isStopProcessingIfError = xUnitReportProcessorService.isStopProcessingIfError(xUnitToolInfo);
 
-        for (String curFileName : resultFiles) {
-            File curFile = xUnitReportProcessorService.getCurrentReport(ws, curFileName);
-
-            if (!xUnitValidationService.checkFileIsNotEmpty(curFile)) {
-                // Ignore the empty result file (some reason)
-                String msg = "The result file '" + curFile.getPath() + "' for the metric '" + metricName + "' is empty. The result file has been skipped.";
-                if (isStopProcessingIfError) {
-                    throw new EmptyReportFileException(msg);
-                } else {
-                    xUnitLog.warn(msg);
-                    continue;
+        // large reports are converted in chunks, each of them is processed
+        // as a report on its own
+        File chunkDirectory = new File(ws, XUnitDefaultValues.GENERATED_JUNIT_DIR + "/split-" + UUID.randomUUID());
+
+        int processedFiles = 0;
+        try (ReportFeed feed = new ReportFeed(ws, resultFiles, chunkDirectory)) {
+            int workerCount = Math.min(xUnitToolInfo.getWorkerCount(), resultFiles.size());
+            if (workerCount > 1) {
+                processedFiles = processReportsInParallel(feed, junitOutputDir, metricName, isStopProcessingIfError, workerCount);
+            } else {
+                for (List<File> files = feed.next(); files != null; files = feed.next()) {
+                    // a report split in chunks counts once
+                    boolean processed = false;
+                    for (File file : files) {
+                        processed |= processReport(file, junitOutputDir, metricName, isStopProcessingIfError);
+                    }
+                    if (processed) {
+                        processedFiles++;
+                    }
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(chunkDirectory);
+        }
+
+        logStatistics(xUnitValidationService.getSchemaStatistics());
+        logStatistics(xUnitConversionService.getTemplatesStatistics());
+        logStatistics(xUnitConversionService.getConversionStatistics());
+        return processedFiles;
+    }
+
+    /**
+     * Gives the reports to process in the order they were found, each report
+     * or its chunks when it is split.
+     * <p>
+     * The entries of a tar archive are read with a cursor on the archive, so
+     * the archive is read once when its entries are found in archive order.
+     * The content of an entry is kept in memory only while it is processed.
+     */
+    private final class ReportFeed implements Closeable {
+        private final File ws;
+        private final List<String> resultFiles;
+        private final File chunkDirectory;
+        private final Map<File, ArchiveEntryFile.Cursor> cursors = new HashMap<>();
+        private int next;
+
+        ReportFeed(File ws, List<String> resultFiles, File chunkDirectory) {
+            this.ws = ws;
+            this.resultFiles = resultFiles;
+            this.chunkDirectory = chunkDirectory;
+        }
+
+        /**
+         * Returns the files of the next report.
+         *
+         * @return the report or its chunks, null if there are no more reports
+         * @throws IOException if the report could not be read or split
+         */
+        List<File> next() throws IOException {
+            if (next == resultFiles.size()) {
+                return null;
+            }
+            int index = next++;
+            File report = xUnitReportProcessorService.getCurrentReport(ws, resultFiles.get(index));
+            if (report instanceof ArchiveEntryFile) {
+                ArchiveEntryFile entry = (ArchiveEntryFile) report;
+                ArchiveEntryFile.Cursor cursor = cursors.get(entry.getArchive());
+                if (cursor == null) {
+                    cursor = new ArchiveEntryFile.Cursor(entry.getArchive());
+                    cursors.put(entry.getArchive(), cursor);
                 }
+                report = cursor.read(entry.getEntryName());
             }
 
-            // Validates Input file
-            if (!xUnitValidationService.validateInputFile(xUnitToolInfo, curFile)) {
-                String msg = "The result file '" + curFile + "' for the metric '" + metricName + "' is not valid. The result file has been skipped.";
-                if (isStopProcessingIfError) {
-                    throw new TransformerException(msg);
-                } else {
-                    xUnitLog.warn(msg);
-                    continue;
+            // reports with the same name have chunks with the same name
+            List<File> chunks = xUnitConversionService.split(xUnitToolInfo, report, new File(chunkDirectory, String.valueOf(index)));
+            return chunks.isEmpty() ? Collections.singletonList(report) : chunks;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (ArchiveEntryFile.Cursor cursor : cursors.values()) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Converts reports using a bounded number of workers.
+     * <p>
+     * Reports are processed with the same semantic of sequential processing.
+     * Messages of each report are printed in the order reports were found and
+     * the first fatal error, in that order, is rethrown. Reports that come
+     * after a fatal error are not processed and running conversions are
+     * cancelled. Reports are read at most twice the workers ahead, so that
+     * the archive entries kept in memory are bounded.
+     *
+     * @return the number of processed reports
+     */
+    private int processReportsInParallel(ReportFeed feed,
+                                         final File junitOutputDir,
+                                         final String metricName,
+                                         final boolean isStopProcessingIfError,
+                                         int workerCount) throws IOException, InterruptedException {
+        final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        // bounds the reports read but not yet processed
+        final Semaphore pending = new Semaphore(workerCount * 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount, new NamingThreadFactory(new DaemonThreadFactory(), "xUnit report converter"));
+        try {
+            List<Future<ReportOutcome>> outcomes = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            int owner = 0;
+            IOException feedFailure = null;
+            try {
+                for (List<File> files = feed.next(); files != null && firstFailure.get() == Integer.MAX_VALUE; files = feed.next()) {
+                    for (final File curFile : files) {
+                        final int index = outcomes.size();
+                        pending.acquire();
+                        outcomes.add(executor.submit(new Callable<ReportOutcome>() {
+                            @Override
+                            public ReportOutcome call() {
+                                ReportOutcome outcome = new ReportOutcome();
+                                try {
+                                    if (index > firstFailure.get()) {
+                                        // a previous report has already stopped the processing
+                                        return outcome;
+                                    }
+
+                                    xUnitLog.startCapture();
+                                    try {
+                                        outcome.processed = processReport(curFile, junitOutputDir, metricName, isStopProcessingIfError);
+                                    } catch (IOException | RuntimeException e) {
+                                        outcome.failure = e;
+                                        int current;
+                                        do {
+                                            current = firstFailure.get();
+                                        } while (index < current && !firstFailure.compareAndSet(current, index));
+                                    } finally {
+                                        outcome.messages = xUnitLog.stopCapture();
+                                    }
+                                    return outcome;
+                                } finally {
+                                    pending.release();
+                                }
+                            }
+                        }));
+                        owners.add(owner);
+                    }
+                    owner++;
                 }
+            } catch (IOException e) {
+                // thrown after the messages of the reports read before
+                feedFailure = e;
             }
 
-            // Convert the input file
-            File junitTargetFile = xUnitConversionService.convert(xUnitToolInfo, curFile, junitOutputDir);
+            // a report split in chunks counts once
+            Set<Integer> processedReports = new HashSet<>();
+            for (int i = 0; i < outcomes.size(); i++) {
+                ReportOutcome outcome;
+                try {
+                    outcome = outcomes.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IOException(cause);
+                }
 
-            // Validates converted file
-            if (!xUnitValidationService.validateOutputFile(xUnitToolInfo, curFile, junitTargetFile)) {
-                for (ValidationError validatorError : xUnitToolInfo.getInputMetric().getOutputValidationErrors()) {
-                    xUnitLog.error(validatorError.getMessage());
+                xUnitLog.replay(outcome.messages);
+                if (outcome.failure instanceof IOException) {
+                    throw (IOException) outcome.failure;
+                } else if (outcome.failure != null) {
+                    throw (RuntimeException) outcome.failure;
                 }
-                if (isStopProcessingIfError) {
-                    String msg = "The converted file for the result file '" + curFile + "' (during conversion process for the metric '" + metricName + "') is not valid. The report file has been skipped.";
-                    throw new TransformerException(msg);
+                if (outcome.processed) {
+                    processedReports.add(owners.get(i));
                 }
             }
+            if (feedFailure != null) {
+                throw feedFailure;
+            }
+            return processedReports.size();
+        } finally {
+            // cancel any pending or running conversion
+            executor.shutdownNow();
+        }
+    }
 
-            processedFiles++;
+    /**
+     * Validates and converts a single report.
+     *
+     * @return true if the report has been converted, false if it has been
+     *         skipped
+     * @throws IOException in case of error when processing must be stopped
+     */
+    private boolean processReport(File curFile,
+                                  File junitOutputDir,
+                                  String metricName,
+                                  boolean isStopProcessingIfError) throws IOException {
+        if (!xUnitValidationService.checkFileIsNotEmpty(curFile)) {
+            // Ignore the empty result file (some reason)
+            String msg = "The result file '" + curFile.getPath() + "' for the metric '" + metricName + "' is empty. The result file has been skipped.";
+            if (isStopProcessingIfError) {
+                throw new EmptyReportFileException(msg);
+            } else {
+                xUnitLog.warn(msg);
+                return false;
+            }
+        }
+
+        String cacheKey = null;
+        if (xUnitToolInfo.isCacheConversions()) {
+            cacheKey = xUnitConversionService.getCacheKey(xUnitToolInfo, curFile);
+            if (cacheKey != null && xUnitConversionService.convertFromCache(xUnitToolInfo, cacheKey, junitOutputDir) != null) {
+                // same report already converted and validated
+                return true;
+            }
+        }
+
+        if (xUnitToolInfo.isSinglePass() && xUnitValidationService.isSchemaValidated(xUnitToolInfo)) {
+            SinglePassResult result = xUnitConversionService.convertInSinglePass(xUnitToolInfo, curFile, junitOutputDir, //
+                    xUnitValidationService.getInputSchema(xUnitToolInfo), xUnitValidationService.getOutputSchema(xUnitToolInfo));
+            if (result != null) {
+                if (!xUnitValidationService.checkInputErrors(curFile, result.getInputErrors())) {
+                    return skipInvalidReport(curFile, metricName, isStopProcessingIfError);
+                }
+                if (!xUnitValidationService.checkOutputErrors(curFile, result.getOutputErrors())) {
+                    failOnInvalidConversion(curFile, metricName, isStopProcessingIfError);
+                } else if (cacheKey != null) {
+                    xUnitConversionService.storeInCache(cacheKey, result.getJunitTargetFile());
+                }
+                return true;
+            }
+            // the stylesheet could not be used in a streaming pipeline
+        }
+
+        // Validates Input file
+        if (!xUnitValidationService.validateInputFile(xUnitToolInfo, curFile)) {
+            return skipInvalidReport(curFile, metricName, isStopProcessingIfError);
+        }
+
+        // Convert the input file
+        File junitTargetFile = xUnitConversionService.convert(xUnitToolInfo, curFile, junitOutputDir);
+
+        // Validates converted file, errors are reported by the validation service
+        if (!xUnitValidationService.validateOutputFile(xUnitToolInfo, curFile, junitTargetFile)) {
+            failOnInvalidConversion(curFile, metricName, isStopProcessingIfError);
+        } else if (cacheKey != null) {
+            xUnitConversionService.storeInCache(cacheKey, junitTargetFile);
+        }
+
+        return true;
+    }
+
+    private boolean skipInvalidReport(File curFile, String metricName, boolean isStopProcessingIfError) throws TransformerException {
+        String msg = "The result file '" + curFile + "' for the metric '" + metricName + "' is not valid. The result file has been skipped.";
+        if (isStopProcessingIfError) {
+            throw new TransformerException(msg);
+        } else {
+            xUnitLog.warn(msg);
+            return false;
+        }
+    }
+
+    private void failOnInvalidConversion(File curFile, String metricName, boolean isStopProcessingIfError) throws TransformerException {
+        if (isStopProcessingIfError) {
+            String msg = "The converted file for the result file '" + curFile + "' (during conversion process for the metric '" + metricName + "') is not valid. The report file has been skipped.";
+            throw new TransformerException(msg);
+        }
+    }
+
+    private void logStatistics(CacheStatistics statistics) {
+        if (statistics != null && !statistics.isEmpty()) {
+            xUnitLog.info(statistics.toString());
         }
-        return processedFiles;
     }
 
     public String getProcessorId() {
@@ -143,4 +397,13 @@ public class XUnitTransformerCallable extends MasterToSlaveFileCallable<Integer>
         this.processorId = processorId;
     }
 
+    /**
+     * Result of a report processed by a worker.
+     */
+    private static final class ReportOutcome {
+        private boolean processed;
+        private Exception failure;
+        private List<XUnitLog.Message> messages;
+    }
+
 }
\ No newline at end of file
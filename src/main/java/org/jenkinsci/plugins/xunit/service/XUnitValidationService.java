@@ -24,20 +24,39 @@
 
 package org.jenkinsci.plugins.xunit.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.io.Serializable;
+import java.util.List;
 
+import javax.annotation.CheckForNull;
 import javax.inject.Inject;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
 
+import org.jenkinsci.lib.dtkit.model.AbstractOutputMetric;
 import org.jenkinsci.lib.dtkit.model.InputMetric;
+import org.jenkinsci.lib.dtkit.model.InputMetricXSL;
+import org.jenkinsci.lib.dtkit.model.OutputMetric;
 import org.jenkinsci.lib.dtkit.util.validator.ValidationError;
 import org.jenkinsci.lib.dtkit.util.validator.ValidationException;
+import org.jenkinsci.plugins.xunit.types.JUnitInputMetric;
+import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+import org.xml.sax.SAXException;
 
 public class XUnitValidationService implements Serializable {
     private static final long serialVersionUID = -5322330246285295896L;
 
     private XUnitLog xUnitLog;
+    private final CacheStatistics schemaStatistics = new CacheStatistics("XSD schema");
 
     @Inject
     public XUnitValidationService(XUnitLog xUnitLog) {
@@ -69,23 +88,42 @@ public class XUnitValidationService implements Serializable {
 
         InputMetric inputMetric = xUnitToolInfo.getInputMetric();
 
+        Schema schema = getInputSchema(inputMetric);
+        if (schema != null) {
+            List<String> errors = validate(schema, inputFile);
+            return errors == null || checkInputErrors(inputFile, errors);
+        }
+
         // Validates the input file (not empty)
         try {
-            if (!inputMetric.validateInputFile(inputFile)) {
-                // ignores invalid files
-                xUnitLog.warn("The file '" + inputFile + "' is an invalid file.");
-                for (ValidationError validatorError : inputMetric.getInputValidationErrors()) {
-                    xUnitLog.warn(validatorError.toString());
+            // validation errors are stored in the metric, each validation
+            // uses its own copy so concurrent workers do not wait each other
+            InputMetric validationMetric = copy(inputMetric);
+            if (validationMetric == null) {
+                synchronized (inputMetric) {
+                    return validateInputFile(inputMetric, inputFile);
                 }
-
-                return false;
             }
+            return validateInputFile(validationMetric, inputFile);
         } catch (ValidationException ve) {
             xUnitLog.error(ve.getMessage());
         }
         return true;
     }
 
+    private boolean validateInputFile(InputMetric inputMetric, File inputFile) throws ValidationException {
+        if (!inputMetric.validateInputFile(inputFile)) {
+            // ignores invalid files
+            xUnitLog.warn("The file '" + inputFile + "' is an invalid file.");
+            for (ValidationError validatorError : inputMetric.getInputValidationErrors()) {
+                xUnitLog.warn(validatorError.toString());
+            }
+
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Validates the converted file against a JUnit format
      *
@@ -97,21 +135,229 @@ public class XUnitValidationService implements Serializable {
     public boolean validateOutputFile(XUnitToolInfo xUnitToolInfo, File inputFile, File junitTargetFile) {
         InputMetric inputMetric = xUnitToolInfo.getInputMetric();
 
+        Schema schema = getOutputSchema(inputMetric);
+        if (schema != null) {
+            List<String> errors = validate(schema, junitTargetFile);
+            return errors == null || checkOutputErrors(inputFile, errors);
+        }
+
         try {
             // Validates the output
-            boolean validateOutput = inputMetric.validateOutputFile(junitTargetFile);
-            if (!validateOutput) {
-                xUnitLog.warn("The converted file for the input file '" + inputFile + "' doesn't match the JUnit format");
-                for (ValidationError validatorError : inputMetric.getOutputValidationErrors()) {
-                    xUnitLog.warn(validatorError.toString());
+            InputMetric validationMetric = copy(inputMetric);
+            if (validationMetric == null) {
+                synchronized (inputMetric) {
+                    return validateOutputFile(inputMetric, inputFile, junitTargetFile);
                 }
-                return false;
             }
-
+            return validateOutputFile(validationMetric, inputFile, junitTargetFile);
         } catch (ValidationException ve) {
             xUnitLog.error(ve.getMessage());
         }
 
         return true;
     }
+
+    private boolean validateOutputFile(InputMetric inputMetric, File inputFile, File junitTargetFile) throws ValidationException {
+        boolean validateOutput = inputMetric.validateOutputFile(junitTargetFile);
+        if (!validateOutput) {
+            xUnitLog.warn("The converted file for the input file '" + inputFile + "' doesn't match the JUnit format");
+            for (ValidationError validatorError : inputMetric.getOutputValidationErrors()) {
+                xUnitLog.warn(validatorError.toString());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies the given metric through serialization, the same way it is sent
+     * to the agents.
+     *
+     * @return the copy, null if the metric could not be copied
+     */
+    @CheckForNull
+    private static InputMetric copy(final InputMetric inputMetric) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(inputMetric);
+            }
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) {
+                @Override
+                protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                    try {
+                        return Class.forName(desc.getName(), false, inputMetric.getClass().getClassLoader());
+                    } catch (ClassNotFoundException e) {
+                        return super.resolveClass(desc);
+                    }
+                }
+            }) {
+                return (InputMetric) ois.readObject();
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reports the errors found validating an input file.
+     *
+     * @param inputFile the current input file
+     * @param errors the validation errors of the input file
+     * @return true if there are no errors, false otherwise
+     */
+    public boolean checkInputErrors(File inputFile, List<String> errors) {
+        if (errors.isEmpty()) {
+            return true;
+        }
+        // ignores invalid files
+        xUnitLog.warn("The file '" + inputFile + "' is an invalid file.");
+        for (String error : errors) {
+            xUnitLog.warn(error);
+        }
+        return false;
+    }
+
+    /**
+     * Reports the errors found validating the file converted from an input
+     * file.
+     *
+     * @param inputFile the input file of the conversion
+     * @param errors the validation errors of the converted file
+     * @return true if there are no errors, false otherwise
+     */
+    public boolean checkOutputErrors(File inputFile, List<String> errors) {
+        if (errors.isEmpty()) {
+            return true;
+        }
+        xUnitLog.warn("The converted file for the input file '" + inputFile + "' doesn't match the JUnit format");
+        for (String error : errors) {
+            xUnitLog.warn(error);
+        }
+        return false;
+    }
+
+    /**
+     * Tests if both input and converted reports of the given tool are
+     * validated through XSD schemas, so that they could be validated while the
+     * report is converted.
+     *
+     * @param xUnitToolInfo the xUnit info wrapper object
+     * @return true if input and output validation relies only on XSD schemas
+     */
+    public boolean isSchemaValidated(XUnitToolInfo xUnitToolInfo) {
+        InputMetric inputMetric = xUnitToolInfo.getInputMetric();
+        if (!(inputMetric instanceof InputMetricXSL)) {
+            return false;
+        }
+        String[] inputXsdNames = ((InputMetricXSL) inputMetric).getInputXsdNameList();
+        if (inputXsdNames != null && inputXsdNames.length > 0 && getInputSchema(inputMetric) == null) {
+            return false;
+        }
+        return getOutputSchema(inputMetric) != null;
+    }
+
+    /**
+     * Returns the schema used to validate input reports of the given tool.
+     *
+     * @param xUnitToolInfo the xUnit info wrapper object
+     * @return the compiled schema, null if the tool does not provide any
+     *         schema
+     */
+    @CheckForNull
+    public Schema getInputSchema(XUnitToolInfo xUnitToolInfo) {
+        return getInputSchema(xUnitToolInfo.getInputMetric());
+    }
+
+    /**
+     * Returns the schema used to validate converted reports of the given
+     * tool.
+     *
+     * @param xUnitToolInfo the xUnit info wrapper object
+     * @return the compiled schema, null if the tool does not provide any
+     *         schema
+     */
+    @CheckForNull
+    public Schema getOutputSchema(XUnitToolInfo xUnitToolInfo) {
+        return getOutputSchema(xUnitToolInfo.getInputMetric());
+    }
+
+    /**
+     * Returns the statistics of the compiled schema lookups done by this
+     * service.
+     *
+     * @return the schema cache statistics
+     */
+    public CacheStatistics getSchemaStatistics() {
+        return schemaStatistics;
+    }
+
+    @CheckForNull
+    private Schema getInputSchema(InputMetric inputMetric) {
+        if (inputMetric instanceof JUnitInputMetric) {
+            // JUnit reports are validated against the JUnit model itself
+            return getSchema(JUnitModel.LATEST);
+        }
+        if (inputMetric instanceof InputMetricXSL) {
+            String[] xsdNames = ((InputMetricXSL) inputMetric).getInputXsdNameList();
+            if (xsdNames != null && xsdNames.length > 0) {
+                return getSchema(inputMetric.getClass(), xsdNames);
+            }
+        }
+        return null;
+    }
+
+    @CheckForNull
+    private Schema getOutputSchema(InputMetric inputMetric) {
+        // other metrics, like JUnit, decide by their self how to validate
+        if (inputMetric instanceof InputMetricXSL) {
+            return getSchema(inputMetric.getOutputFormatType());
+        }
+        return null;
+    }
+
+    @CheckForNull
+    private Schema getSchema(OutputMetric outputMetric) {
+        if (outputMetric instanceof AbstractOutputMetric) {
+            String[] xsdNames = ((AbstractOutputMetric) outputMetric).getXsdNameList();
+            if (xsdNames != null && xsdNames.length > 0) {
+                return getSchema(outputMetric.getClass(), xsdNames);
+            }
+        }
+        return null;
+    }
+
+    @CheckForNull
+    private Schema getSchema(Class<?> resourceClass, String[] xsdNames) {
+        try {
+            return XSDSchemaCache.getInstance().getSchema(resourceClass, xsdNames, schemaStatistics);
+        } catch (IOException | SAXException e) {
+            // let the metric validates the file as it knows
+            return null;
+        }
+    }
+
+    /**
+     * Validates the given file with a new validator.
+     *
+     * @return the list of validation errors, null if the file could not be
+     *         read
+     */
+    @CheckForNull
+    private List<String> validate(Schema schema, File xmlFile) {
+        ValidationErrorCollector errors = new ValidationErrorCollector();
+
+        // validators are not thread safe
+        Validator validator = schema.newValidator();
+        validator.setErrorHandler(errors);
+        try (InputStream is = CompressionUtil.newInputStream(xmlFile)) {
+            validator.validate(new StreamSource(is, xmlFile.toURI().toString()));
+        } catch (SAXException e) {
+            errors.failed(e);
+        } catch (IOException e) {
+            xUnitLog.error(e.getMessage());
+            return null;
+        }
+        return errors.getErrors();
+    }
 }
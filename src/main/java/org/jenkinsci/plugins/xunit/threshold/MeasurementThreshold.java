@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.threshold;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsAction;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsHistory;
+import org.jenkinsci.plugins.xunit.service.XUnitLog;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import hudson.Util;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.tasks.junit.TestResult;
+
+/**
+ * Thresholds on the regression in percent of the test measurements, like the
+ * benchmark results.
+ * <p>
+ * The total thresholds compare each measurement with its best value in the
+ * last builds, the new thresholds with its value in the previous build. Both
+ * threshold modes are expressed in percent.
+ * <p>
+ * Only the measurements whose direction is known are checked: the
+ * {@code QBENCHMARK} metrics and the CTest execution time, plus the
+ * measurements configured as lower or higher is better. A measurement name
+ * is compared without its data tag, as {@code WalltimeMilliseconds} for
+ * {@code WalltimeMilliseconds [tag]}.
+ */
+public class MeasurementThreshold extends XUnitThreshold {
+
+    private static final List<String> DEFAULT_LOWER_IS_BETTER = Arrays.asList("WalltimeMilliseconds",
+            "WalltimeNanoseconds", "CPUTicks", "CPUCycles", "RefCPUCycles", "BusCycles", "StalledCycles",
+            "InstructionReads", "Instructions", "BranchInstructions", "BranchMisses", "Events", "BytesAllocated",
+            "CPUMigrations", "CacheReferences", "CacheReads", "CacheWrites", "CachePrefetches", "CacheMisses",
+            "CacheReadMisses", "CacheWriteMisses", "CachePrefetchMisses", "ContextSwitches", "PageFaults",
+            "MinorPageFaults", "MajorPageFaults", "AlignmentFaults", "EmulationFaults", "Execution Time");
+    private static final List<String> DEFAULT_HIGHER_IS_BETTER = Arrays.asList("FramesPerSecond", "BitsPerSecond",
+            "BytesPerSecond");
+
+    private String lowerIsBetter;
+    private String higherIsBetter;
+
+    @DataBoundConstructor
+    public MeasurementThreshold() {
+    }
+
+    public String getLowerIsBetter() {
+        return lowerIsBetter;
+    }
+
+    /**
+     * Sets the other measurements that are better when lower.
+     *
+     * @param lowerIsBetter comma separated measurement names
+     */
+    @DataBoundSetter
+    public void setLowerIsBetter(String lowerIsBetter) {
+        this.lowerIsBetter = Util.fixEmptyAndTrim(lowerIsBetter);
+    }
+
+    public String getHigherIsBetter() {
+        return higherIsBetter;
+    }
+
+    /**
+     * Sets the other measurements that are better when higher.
+     *
+     * @param higherIsBetter comma separated measurement names
+     */
+    @DataBoundSetter
+    public void setHigherIsBetter(String higherIsBetter) {
+        this.higherIsBetter = Util.fixEmptyAndTrim(higherIsBetter);
+    }
+
+    @Override
+    public Result getResultThresholdNumber(XUnitLog log, Run<?, ?> build, TestResult testResultAction, TestResult previousTestResultAction) {
+        return getResultThresholdPercent(log, build, testResultAction, previousTestResultAction);
+    }
+
+    @Override
+    public Result getResultThresholdPercent(XUnitLog log, Run<?, ?> build, TestResult testResultAction, TestResult previousTestResultAction) {
+        MeasurementsAction action = build.getAction(MeasurementsAction.class);
+        if (action == null) {
+            return Result.SUCCESS;
+        }
+
+        Set<String> lowerNames = getNames(DEFAULT_LOWER_IS_BETTER, lowerIsBetter);
+        Set<String> higherNames = getNames(DEFAULT_HIGHER_IS_BETTER, higherIsBetter);
+        lowerNames.removeAll(getNames(Collections.<String> emptyList(), higherIsBetter));
+
+        // the previous and best values of each measurement, read once
+        Map<List<String>, Double> previousValues = new HashMap<>();
+        Map<List<String>, Double> bestValues = new HashMap<>();
+        for (MeasurementsAction previousAction : MeasurementsHistory.before(build, MeasurementsHistory.MAX_BUILDS).getActions()) {
+            Set<List<String>> buildKeys = new HashSet<>();
+            for (Measurement measurement : previousAction.getMeasurements()) {
+                String name = getName(measurement);
+                boolean lower = lowerNames.contains(name);
+                List<String> key = getKey(measurement);
+                if (!lower && !higherNames.contains(name) || !buildKeys.add(key)) {
+                    continue;
+                }
+                double value = measurement.getValue();
+                if (!previousValues.containsKey(key)) {
+                    previousValues.put(key, value);
+                }
+                Double best = bestValues.get(key);
+                if (best == null || (lower ? value < best : value > best)) {
+                    bestValues.put(key, value);
+                }
+            }
+        }
+
+        double regression = 0;
+        double newRegression = 0;
+        Measurement worst = null;
+        for (Measurement measurement : action.getMeasurements()) {
+            String name = getName(measurement);
+            boolean lower = lowerNames.contains(name);
+            if (!lower && !higherNames.contains(name)) {
+                // a regression could be either an increase or a decrease
+                continue;
+            }
+            List<String> key = getKey(measurement);
+            double value = getRegression(measurement, bestValues.get(key), lower);
+            if (value > regression) {
+                regression = value;
+                worst = measurement;
+            }
+            newRegression = Math.max(newRegression, getRegression(measurement, previousValues.get(key), lower));
+        }
+        if (worst != null) {
+            log.info(Messages.MeasurementThreshold_regression(worst, Math.round(regression)));
+        }
+
+        return getResultThresholdPercent(log, regression, newRegression);
+    }
+
+    private static Set<String> getNames(List<String> defaults, String names) {
+        Set<String> result = new HashSet<>(defaults);
+        if (names != null) {
+            for (String name : names.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    result.add(name.trim());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String getName(Measurement measurement) {
+        // the QTestLib data tag
+        String name = measurement.getName();
+        int tagIndex = name.indexOf(" [");
+        return tagIndex != -1 && name.endsWith("]") ? name.substring(0, tagIndex) : name;
+    }
+
+    private static List<String> getKey(Measurement measurement) {
+        return Arrays.asList(measurement.getClassName(), measurement.getTestName(), measurement.getName());
+    }
+
+    private static double getRegression(Measurement measurement, Double reference, boolean lowerIsBetter) {
+        if (reference == null || reference <= 0) {
+            return 0;
+        }
+        double difference = lowerIsBetter ? measurement.getValue() - reference : reference - measurement.getValue();
+        return difference / reference * 100;
+    }
+
+    @Override
+    public boolean isValidThreshold(double threshold, double value) {
+        return value <= threshold;
+    }
+
+}
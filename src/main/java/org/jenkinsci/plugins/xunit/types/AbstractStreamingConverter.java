@@ -0,0 +1,346 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsFile;
+
+/**
+ * Base class of the streaming converters that read reports through StAX and
+ * produce the same JUnit report of the XSL stylesheets.
+ */
+public abstract class AbstractStreamingConverter implements StreamingConverter {
+
+    private static final Collection<String> CDATA_ELEMENTS = Collections.unmodifiableList(Arrays.asList("system-out", "system-err", "failure"));
+    // lexical space of xs:double, used by number() and the arithmetic of the stylesheets
+    private static final Pattern DOUBLE = Pattern.compile("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][+-]?\\d+)?|[+-]?INF|NaN");
+
+    private final Map<String, String> placeholders = new LinkedHashMap<>();
+    private final List<Measurement> measurements = new ArrayList<>();
+    private boolean firstPass;
+    private boolean resolved;
+
+    @Override
+    public void convert(@Nonnull File inputFile, @Nonnull File junitFile) throws IOException, XMLStreamException {
+        placeholders.clear();
+        measurements.clear();
+        resolved = false;
+        if (hasPlaceholders()) {
+            // the first pass computes the placeholder values, its report is discarded
+            firstPass = true;
+            try {
+                write(inputFile, NullOutputStream.NULL_OUTPUT_STREAM);
+            } finally {
+                firstPass = false;
+            }
+            for (Map.Entry<String, String> placeholder : placeholders.entrySet()) {
+                if (placeholder.getValue() == null) {
+                    throw new IOException("No value for the placeholder " + placeholder.getKey());
+                }
+            }
+            measurements.clear();
+            resolved = true;
+        }
+        try (OutputStream os = new FileOutputStream(junitFile)) {
+            write(inputFile, os);
+        }
+        if (!measurements.isEmpty()) {
+            MeasurementsFile.write(MeasurementsFile.getFile(junitFile), measurements);
+        }
+    }
+
+    private void write(File inputFile, OutputStream os) throws IOException, XMLStreamException {
+        try (JUnitXMLWriter writer = new JUnitXMLWriter(os, getCDATAElements(), getEncoding())) {
+            writer.startDocument();
+            convert(inputFile, writer);
+            writer.endDocument();
+        }
+    }
+
+    @Override
+    public String getSettings() {
+        return "";
+    }
+
+    /**
+     * Writes the JUnit report of the input report.
+     *
+     * @param inputFile the report to convert
+     * @param writer where write the JUnit report
+     * @throws IOException if the files could not be read or written
+     * @throws XMLStreamException if the report could not be parsed
+     */
+    protected abstract void convert(@Nonnull File inputFile, @Nonnull JUnitXMLWriter writer) throws IOException, XMLStreamException;
+
+    /**
+     * Returns the elements whose text is written as CDATA section, the same
+     * of the {@code cdata-section-elements} of the stylesheets.
+     *
+     * @return the CDATA elements names
+     */
+    protected Collection<String> getCDATAElements() {
+        return CDATA_ELEMENTS;
+    }
+
+    /**
+     * Returns the encoding of the JUnit report, the same of the
+     * {@code xsl:output} of the stylesheets.
+     *
+     * @return the output encoding
+     */
+    protected String getEncoding() {
+        return "UTF-8";
+    }
+
+    /**
+     * Tells if the converter writes attribute values that are known only at
+     * the end of the report through {@link #placeholder(String)}. These
+     * reports are converted twice, the first pass computes the values and its
+     * report is discarded.
+     *
+     * @return true if the converter uses placeholders, false otherwise
+     */
+    protected boolean hasPlaceholders() {
+        return false;
+    }
+
+    /**
+     * Returns a placeholder for an attribute value that is known only at the
+     * end of the report, like the counters of a suite written before its test
+     * cases. The value given to {@link #setPlaceholderValue(String, String)}
+     * in the first pass is returned in the second pass.
+     *
+     * @param name the placeholder name
+     * @return the text to write in place of the value
+     */
+    protected String placeholder(@Nonnull String name) {
+        if (resolved) {
+            String value = placeholders.get(name);
+            if (value == null) {
+                throw new IllegalStateException("Unknown placeholder " + name);
+            }
+            return value;
+        }
+        if (!firstPass) {
+            throw new IllegalStateException(getClass().getName() + " does not declare placeholders");
+        }
+        placeholders.put(name, null);
+        return "";
+    }
+
+    /**
+     * Sets the value of a placeholder.
+     *
+     * @param name the placeholder name
+     * @param value the value that replaces the placeholder
+     */
+    protected void setPlaceholderValue(@Nonnull String name, @Nonnull String value) {
+        if (!placeholders.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown placeholder " + name);
+        }
+        placeholders.put(name, value);
+    }
+
+    /**
+     * Records a numeric value measured by a test case. The measurements are
+     * written in the {@link MeasurementsFile} of the JUnit report when it is
+     * complete.
+     *
+     * @param className the class name of the test case in the JUnit report
+     * @param testName the name of the test case in the JUnit report
+     * @param name the measurement name
+     * @param value the measured value
+     */
+    protected void addMeasurement(@Nonnull String className, @Nonnull String testName, @Nonnull String name, double value) {
+        measurements.add(new Measurement(className, testName, name, value));
+    }
+
+    /**
+     * Creates a reader of the given stream. DTD and external entities are not
+     * supported.
+     *
+     * @param is the report stream
+     * @return the StAX reader
+     * @throws XMLStreamException if the reader could not be created
+     */
+    protected static XMLStreamReader createReader(@Nonnull InputStream is) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory.createXMLStreamReader(is);
+    }
+
+    /**
+     * Returns the string value of the current element, the concatenation of
+     * all its descendant text nodes. The reader is left on the end tag of the
+     * element.
+     *
+     * @param reader positioned on a start element
+     * @return the string value of the element
+     * @throws XMLStreamException if the report could not be parsed
+     */
+    protected static String getStringValue(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder value = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                value.append(reader.getText());
+                break;
+            default:
+                break;
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Skips the current element and all its descendants. The reader is left
+     * on the end tag of the element.
+     *
+     * @param reader positioned on a start element
+     * @throws XMLStreamException if the report could not be parsed
+     */
+    protected static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Same of the {@code xunit:if-empty} function of the stylesheets.
+     *
+     * @param value the value to test
+     * @param defaultValue returned when the value is null or empty
+     * @return the value or the default one
+     */
+    protected static String ifEmpty(@CheckForNull String value, String defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * Same of the {@code xunit:junit-time} function of the stylesheets, a
+     * time in seconds with three decimal digits.
+     *
+     * @param value the time in seconds, the comma is accepted as decimal
+     *        separator
+     * @return the formatted time
+     */
+    protected static String junitTime(@CheckForNull String value) {
+        String time = ifEmpty(value, "0").trim().replace(',', '.');
+        try {
+            return junitTime(Double.parseDouble(time));
+        } catch (NumberFormatException e) {
+            return "NaN";
+        }
+    }
+
+    /**
+     * Formats a time in seconds with three decimal digits.
+     *
+     * @param seconds the time in seconds
+     * @return the formatted time
+     */
+    protected static String junitTime(double seconds) {
+        if (Double.isNaN(seconds) || Double.isInfinite(seconds)) {
+            return "NaN";
+        }
+        return BigDecimal.valueOf(seconds).setScale(3, RoundingMode.HALF_EVEN).toPlainString();
+    }
+
+    /**
+     * Same of the XPath {@code number} function, NaN when the value is not a
+     * number.
+     *
+     * @param value the value to convert
+     * @return the number of the value
+     */
+    protected static double number(@CheckForNull String value) {
+        try {
+            return toDouble(value == null ? "" : value);
+        } catch (XMLStreamException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Casts a value to {@code xs:double} like the arithmetic operators of the
+     * stylesheets do with untyped values.
+     *
+     * @param value the value to cast
+     * @return the double value
+     * @throws XMLStreamException if the value is not a double, the
+     *         stylesheet fails in this case
+     */
+    protected static double toDouble(@Nonnull String value) throws XMLStreamException {
+        String number = value.trim();
+        if (!DOUBLE.matcher(number).matches()) {
+            throw new XMLStreamException("Invalid double value " + value);
+        }
+        if (number.endsWith("INF")) {
+            return number.startsWith("-") ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return Double.parseDouble(number);
+    }
+
+}
@@ -29,7 +29,7 @@ import org.jenkinsci.lib.dtkit.model.InputType;
 import org.jenkinsci.lib.dtkit.model.OutputMetric;
 import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
 
-public class BoostTest extends InputMetricXSL {
+public class BoostTest extends InputMetricXSL implements StreamingConverterProvider {
 
     @Override
     public InputType getToolType() {
@@ -65,4 +65,9 @@ public class BoostTest extends InputMetricXSL {
     public OutputMetric getOutputFormatType() {
         return JUnitModel.LATEST;
     }
+
+    @Override
+    public StreamingConverter getStreamingConverter() {
+        return new BoostTestStreamingConverter();
+    }
 }
@@ -0,0 +1,484 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+
+/**
+ * Streaming version of the {@code boosttest-1.2-to-junit-4.xsl} stylesheet.
+ * <p>
+ * Each test case is kept in memory only while it is written, with the test
+ * cases nested in it. The suite counters of the {@code testsuite} start tag
+ * are known only at the end of the log, so they are written with placeholders
+ * and the log is read twice.
+ * The {@code TestingTime} is converted from microseconds to seconds with decimal
+ * arithmetic.
+ * <p>
+ * Boost.Test writes the log and the report in the same file when both are
+ * redirected to the same stream, the log is converted and the report that
+ * follows it is ignored, like happens when they are written in two files.
+ */
+public class BoostTestStreamingConverter extends AbstractStreamingConverter {
+
+    private static final BigDecimal MIN_DECIMAL_TIME = new BigDecimal("0.000001");
+    private static final BigDecimal MAX_DECIMAL_TIME = new BigDecimal("1000000");
+
+    /**
+     * An element of the log, the text nodes are kept as strings.
+     */
+    private static class Node {
+        private final String name;
+        private final List<String[]> attributes = new ArrayList<>();
+        private final List<Object> children = new ArrayList<>();
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        String getAttribute(String attributeName) {
+            String value = findAttribute(attributeName);
+            return value != null ? value : "";
+        }
+
+        String findAttribute(String attributeName) {
+            for (String[] attribute : attributes) {
+                if (attribute[0].equals(attributeName)) {
+                    return attribute[1];
+                }
+            }
+            return null;
+        }
+
+        List<Node> getElements() {
+            List<Node> elements = new ArrayList<>();
+            for (Object child : children) {
+                if (child instanceof Node) {
+                    elements.add((Node) child);
+                }
+            }
+            return elements;
+        }
+
+        List<Node> getElements(String elementName) {
+            List<Node> elements = new ArrayList<>();
+            for (Node element : getElements()) {
+                if (element.name.equals(elementName)) {
+                    elements.add(element);
+                }
+            }
+            return elements;
+        }
+
+        List<String> getTexts() {
+            List<String> texts = new ArrayList<>();
+            for (Object child : children) {
+                if (child instanceof String) {
+                    texts.add((String) child);
+                }
+            }
+            return texts;
+        }
+
+        /*
+         * Same of xsl:value-of select="text()".
+         */
+        String getText() {
+            return join(getTexts());
+        }
+
+        String getStringValue() {
+            StringBuilder value = new StringBuilder();
+            appendStringValue(value);
+            return value.toString();
+        }
+
+        private void appendStringValue(StringBuilder value) {
+            for (Object child : children) {
+                if (child instanceof Node) {
+                    ((Node) child).appendStringValue(value);
+                } else {
+                    value.append((String) child);
+                }
+            }
+        }
+    }
+
+    private int tests;
+    private int errors;
+    private int failures;
+
+    @Override
+    protected boolean hasPlaceholders() {
+        return true;
+    }
+
+    @Override
+    protected Collection<String> getCDATAElements() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    protected String getEncoding() {
+        return "utf-8";
+    }
+
+    @Override
+    protected void convert(@Nonnull File inputFile, @Nonnull JUnitXMLWriter writer) throws IOException, XMLStreamException {
+        tests = 0;
+        errors = 0;
+        failures = 0;
+
+        try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+            XMLStreamReader reader = createReader(is);
+            try {
+                if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !"TestLog".equals(reader.getLocalName())) {
+                    throw new XMLStreamException("Unexpected root element " + reader.getLocalName(), reader.getLocation());
+                }
+                writer.startElement("testsuite");
+                writer.attribute("tests", placeholder("tests"));
+                writer.attribute("errors", placeholder("errors"));
+                writer.attribute("failures", placeholder("failures"));
+                writer.attribute("name", "MergedTestSuite");
+                writer.attribute("skipped", "0");
+
+                Deque<String> suites = new ArrayDeque<>();
+                int depth = 1;
+                // stops at the end of the log, the report may follow it
+                while (depth > 0) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("TestCase".equals(name)) {
+                            Node testCase = readNode(reader);
+                            writeTestCase(writer, testCase, suites);
+                            writeNestedTestCases(writer, testCase, suites);
+                        } else {
+                            depth++;
+                            if ("TestSuite".equals(name)) {
+                                suites.add(getSuiteName(reader.getAttributeValue(null, "name")));
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                        if ("TestSuite".equals(reader.getLocalName())) {
+                            suites.removeLast();
+                        }
+                    }
+                }
+                writer.endElement();
+                setPlaceholderValue("tests", String.valueOf(tests));
+                setPlaceholderValue("errors", String.valueOf(errors));
+                setPlaceholderValue("failures", String.valueOf(failures));
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the current element and its descendants, the reader is left on
+     * its end tag.
+     */
+    private Node readNode(XMLStreamReader reader) throws XMLStreamException {
+        Node node = new Node(reader.getLocalName());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            node.attributes.add(new String[] { reader.getAttributeLocalName(i), reader.getAttributeValue(i) });
+        }
+        StringBuilder text = null;
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                if (text != null) {
+                    node.children.add(text.toString());
+                    text = null;
+                }
+                node.children.add(readNode(reader));
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                if (text != null) {
+                    node.children.add(text.toString());
+                }
+                return node;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                if (text == null) {
+                    text = new StringBuilder();
+                }
+                text.append(reader.getText());
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /*
+     * Test cases inside a test case follow it in document order.
+     */
+    private void writeNestedTestCases(JUnitXMLWriter writer, Node node, Deque<String> suites) throws IOException, XMLStreamException {
+        for (Node element : node.getElements()) {
+            if ("TestSuite".equals(element.name)) {
+                suites.add(getSuiteName(element.getAttribute("name")));
+                writeNestedTestCases(writer, element, suites);
+                suites.removeLast();
+            } else {
+                if ("TestCase".equals(element.name)) {
+                    writeTestCase(writer, element, suites);
+                }
+                writeNestedTestCases(writer, element, suites);
+            }
+        }
+    }
+
+    private void writeTestCase(JUnitXMLWriter writer, Node testCase, Deque<String> suites) throws IOException, XMLStreamException {
+        StringBuilder packageName = new StringBuilder();
+        for (String suite : suites) {
+            packageName.append(suite);
+        }
+
+        List<Node> elements = testCase.getElements();
+        List<Node> exceptions = testCase.getElements("Exception");
+        List<Node> errorElements = testCase.getElements("Error");
+        int fatalErrors = testCase.getElements("FatalError").size() + exceptions.size();
+        int messages = testCase.getElements("Info").size() + testCase.getElements("Warning").size() + testCase.getElements("Message").size();
+
+        String file = elements.isEmpty() ? "" : elements.get(0).getAttribute("file");
+        if (exceptions.size() == 1 && messages == 0) {
+            // only an exception, the classname comes from its last checkpoint
+            List<Node> checkpoints = exceptions.get(0).getElements("LastCheckpoint");
+            if (checkpoints.size() > 1) {
+                throw new XMLStreamException("Multiple LastCheckpoint in test case " + testCase.getAttribute("name"));
+            }
+            file = checkpoints.isEmpty() ? "" : checkpoints.get(0).getAttribute("file");
+        }
+
+        tests++;
+        errors += fatalErrors;
+        failures += errorElements.size();
+
+        writer.startElement("testcase");
+        writer.attribute("classname", getClassName(packageName.toString() + substringBefore(file, ".")));
+        writer.attribute("name", testCase.getAttribute("name"));
+        writer.attribute("time", getTime(testCase));
+
+        if (fatalErrors > 0) {
+            writer.startElement("error");
+            writeContent(writer, testCase);
+            writer.endElement();
+        } else if (!errorElements.isEmpty()) {
+            writer.startElement("failure");
+            writeContent(writer, testCase);
+            writer.endElement();
+        }
+
+        if (messages > 0) {
+            writer.startElement("system-out");
+            for (String name : new String[] { "Info", "Warning", "Message" }) {
+                for (Node message : testCase.getElements(name)) {
+                    writer.text("\r[" + name + "] - ");
+                    writeQuoted(writer, message.getText());
+                    writeLocation(writer, message, " == [Line] - ");
+                }
+            }
+            writeContexts(writer, testCase);
+            writer.endElement();
+        }
+
+        if (!exceptions.isEmpty()) {
+            writer.startElement("system-err");
+            for (Node exception : exceptions) {
+                writeException(writer, exception);
+            }
+            writeContexts(writer, testCase);
+            writer.endElement();
+        }
+        writer.endElement();
+    }
+
+    private void writeContent(JUnitXMLWriter writer, Node testCase) throws IOException {
+        for (Node element : testCase.getElements()) {
+            switch (element.name) {
+            case "Error":
+                writer.text("\r[Error] - ");
+                writer.text(element.getStringValue());
+                writeLocation(writer, element, " == [Line] - ");
+                writeContexts(writer, element.getElements("Context"));
+                break;
+            case "FatalError":
+                writer.text("\r[Exception] - ");
+                writeQuoted(writer, element.getText());
+                writeLocation(writer, element, " == [Line] -");
+                writeContexts(writer, element.getElements("Context"));
+                break;
+            case "Exception":
+                writeException(writer, element);
+                writeContexts(writer, element.getElements("Context"));
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private void writeException(JUnitXMLWriter writer, Node exception) throws IOException {
+        writer.text("\r[Exception] - ");
+        writeQuoted(writer, exception.getText());
+        List<Node> checkpoints = exception.getElements("LastCheckpoint");
+        if (checkpoints.isEmpty()) {
+            writeLocation(writer, exception, " == [Line] - ");
+        } else {
+            writer.text(join(checkpoints, null));
+            writer.text("\r == [File] - " + join(checkpoints, "file"));
+            writer.text("\r == [Line] - " + join(checkpoints, "line") + "\r");
+        }
+    }
+
+    private void writeLocation(JUnitXMLWriter writer, Node element, String linePrefix) throws IOException {
+        writer.text("\r == [File] - " + element.getAttribute("file"));
+        writer.text("\r" + linePrefix + element.getAttribute("line") + "\r");
+    }
+
+    /*
+     * Contexts of all the children of the test case.
+     */
+    private void writeContexts(JUnitXMLWriter writer, Node testCase) throws IOException {
+        for (Node element : testCase.getElements()) {
+            writeContexts(writer, element.getElements("Context"));
+        }
+    }
+
+    private void writeContexts(JUnitXMLWriter writer, List<Node> contexts) throws IOException {
+        for (Node context : contexts) {
+            for (Node frame : context.getElements()) {
+                writer.text(" == [Context] " + frame.getStringValue() + "\r");
+            }
+        }
+    }
+
+    /*
+     * Same of the processQuote template, apostrophes are written as entity.
+     */
+    private void writeQuoted(JUnitXMLWriter writer, String text) throws IOException {
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\'', start)) != -1) {
+            writer.text(text.substring(start, end));
+            writer.rawText("&apos;");
+            start = end + 1;
+        }
+        writer.text(text.substring(start));
+    }
+
+    /*
+     * Joins the text nodes or the attribute of the given elements, like
+     * xsl:value-of does with a sequence.
+     */
+    private static String join(List<Node> elements, String attribute) {
+        List<String> items = new ArrayList<>();
+        for (Node element : elements) {
+            if (attribute == null) {
+                items.addAll(element.getTexts());
+            } else if (element.findAttribute(attribute) != null) {
+                items.add(element.findAttribute(attribute));
+            }
+        }
+        return join(items);
+    }
+
+    private static String join(List<String> items) {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                value.append(' ');
+            }
+            value.append(items.get(i));
+        }
+        return value.toString();
+    }
+
+    private static String getSuiteName(String name) {
+        return ifEmpty(name, "").replace(' ', '.') + '.';
+    }
+
+    private static String getClassName(String packageName) {
+        String className = packageName;
+        if (className.endsWith(".")) {
+            className = className.substring(0, className.length() - 1);
+        }
+        return className.replace(' ', '.');
+    }
+
+    private static String substringBefore(String value, String separator) {
+        int index = value.indexOf(separator);
+        return index == -1 ? "" : value.substring(0, index);
+    }
+
+    /**
+     * Converts the {@code TestingTime} from microseconds to seconds. The
+     * stylesheet divides the doubles, the result is written as decimal with
+     * the shortest representation of the double, that is exactly the decimal
+     * value as long as it is in the range written without exponent.
+     */
+    private static String getTime(Node testCase) throws XMLStreamException {
+        List<Node> times = testCase.getElements("TestingTime");
+        if (times.isEmpty()) {
+            return "";
+        }
+        String value = times.get(0).getStringValue().trim();
+        try {
+            if (times.size() > 1) {
+                throw new NumberFormatException("Multiple TestingTime");
+            }
+            BigDecimal seconds = new BigDecimal(value).movePointLeft(6);
+            if (seconds.signum() == 0) {
+                return value.startsWith("-") ? "-0" : "0";
+            }
+            seconds = seconds.stripTrailingZeros();
+            if (seconds.abs().compareTo(MIN_DECIMAL_TIME) < 0 || seconds.abs().compareTo(MAX_DECIMAL_TIME) >= 0 || seconds.precision() > 15) {
+                throw new NumberFormatException("Time out of range");
+            }
+            return seconds.toPlainString();
+        } catch (NumberFormatException e) {
+            throw new XMLStreamException("Unsupported TestingTime " + value + " in test case " + testCase.getAttribute("name"));
+        }
+    }
+
+}
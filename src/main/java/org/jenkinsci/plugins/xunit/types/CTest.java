@@ -32,7 +32,7 @@ import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
 /**
  * @author Gregory Boissinot
  */
-public class CTest extends InputMetricXSL {
+public class CTest extends InputMetricXSL implements StreamingConverterProvider {
 
     @Override
     public InputType getToolType() {
@@ -68,4 +68,9 @@ public class CTest extends InputMetricXSL {
     public OutputMetric getOutputFormatType() {
         return JUnitModel.LATEST;
     }
+
+    @Override
+    public StreamingConverter getStreamingConverter() {
+        return new CTestStreamingConverter();
+    }
 }
@@ -0,0 +1,309 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+
+/**
+ * Streaming version of the {@code ctest-to-junit.xsl} stylesheet.
+ * <p>
+ * Each {@code Test} is kept in memory only while it is written. The suite
+ * counters and the testing time are known only at the end of the report, so
+ * they are written with placeholders and the report is read twice.
+ * <p>
+ * The numeric {@code NamedMeasurement} of each test, its execution time
+ * included, are recorded as measurements of the test case.
+ */
+public class CTestStreamingConverter extends AbstractStreamingConverter {
+
+    private static final String XS_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
+    private static final String XUNIT_NAMESPACE = "http://www.xunit.org";
+    private static final String EXECUTION_TIME = "Execution Time";
+
+    /**
+     * A CTest test, the values of its children elements are kept in lists as
+     * the stylesheet selects all of them.
+     */
+    private static class TestInfo {
+        private String status;
+        private final List<String> names = new ArrayList<>();
+        private final List<String> paths = new ArrayList<>();
+        private final List<String> executionTimes = new ArrayList<>();
+        private final List<String> outputs = new ArrayList<>();
+        private final List<String[]> measurements = new ArrayList<>();
+    }
+
+    @Override
+    protected boolean hasPlaceholders() {
+        return true;
+    }
+
+    @Override
+    protected void convert(@Nonnull File inputFile, @Nonnull JUnitXMLWriter writer) throws IOException, XMLStreamException {
+        int tests = 0;
+        int failures = 0;
+        int skipped = 0;
+        String startTestTime = null;
+        String endTestTime = null;
+
+        try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+            XMLStreamReader reader = createReader(is);
+            try {
+                writer.startElement("testsuites");
+                writer.namespace("xs", XS_NAMESPACE);
+                writer.namespace("xunit", XUNIT_NAMESPACE);
+                writer.startElement("testsuite");
+                writer.attribute("name", "CTest");
+                writer.attribute("tests", placeholder("tests"));
+                writer.attribute("time", placeholder("time"));
+                writer.attribute("failures", placeholder("failures"));
+                writer.attribute("errors", "0");
+                writer.attribute("skipped", placeholder("skipped"));
+
+                Deque<String> path = new ArrayDeque<>();
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (isTestingChild(path)) {
+                            if ("Test".equals(name)) {
+                                TestInfo test = readTest(reader);
+                                writeTestCase(writer, test);
+                                tests++;
+                                if ("failed".equals(test.status)) {
+                                    failures++;
+                                } else if ("notrun".equals(test.status)) {
+                                    skipped++;
+                                }
+                                continue;
+                            } else if ("StartTestTime".equals(name)) {
+                                startTestTime = getSingleValue(reader, startTestTime);
+                                continue;
+                            } else if ("EndTestTime".equals(name)) {
+                                endTestTime = getSingleValue(reader, endTestTime);
+                                continue;
+                            }
+                        }
+                        path.push(name);
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        path.pop();
+                    }
+                }
+
+                writer.endElement();
+                writer.endElement();
+            } finally {
+                reader.close();
+            }
+        }
+
+        setPlaceholderValue("tests", String.valueOf(tests));
+        setPlaceholderValue("time", getTestingTime(startTestTime, endTestTime));
+        setPlaceholderValue("failures", String.valueOf(failures));
+        setPlaceholderValue("skipped", String.valueOf(skipped));
+    }
+
+    /*
+     * Same of //Site/Testing/*
+     */
+    private static boolean isTestingChild(Deque<String> path) {
+        Iterator<String> ancestors = path.iterator();
+        return ancestors.hasNext() && "Testing".equals(ancestors.next()) //
+                && ancestors.hasNext() && "Site".equals(ancestors.next());
+    }
+
+    /*
+     * The stylesheet fails when a time is repeated, falls back on it.
+     */
+    private static String getSingleValue(XMLStreamReader reader, String previousValue) throws XMLStreamException {
+        if (previousValue != null) {
+            throw new XMLStreamException("Unsupported multiple " + reader.getLocalName() + " elements", reader.getLocation());
+        }
+        return getStringValue(reader);
+    }
+
+    private static String getTestingTime(String startTestTime, String endTestTime) throws XMLStreamException {
+        if (startTestTime == null || endTestTime == null) {
+            return junitTime(0);
+        }
+        return formatTime(toDouble(endTestTime) - toDouble(startTestTime));
+    }
+
+    /*
+     * Same of format-number($time, '0.000') for the values that could be
+     * formatted by the plain BigDecimal.
+     */
+    private static String formatTime(double time) throws XMLStreamException {
+        if (Double.isInfinite(time) || (time == 0 && 1 / time < 0)) {
+            throw new XMLStreamException("Unsupported time " + time);
+        }
+        return junitTime(time);
+    }
+
+    private TestInfo readTest(XMLStreamReader reader) throws XMLStreamException {
+        TestInfo test = new TestInfo();
+        test.status = reader.getAttributeValue(null, "Status");
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+            case "Name":
+                test.names.add(getStringValue(reader));
+                break;
+            case "Path":
+                test.paths.add(getStringValue(reader));
+                break;
+            case "Results":
+                readResults(reader, test);
+                break;
+            default:
+                skipElement(reader);
+                break;
+            }
+        }
+        return test;
+    }
+
+    private void readResults(XMLStreamReader reader, TestInfo test) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = reader.getLocalName();
+            if ("NamedMeasurement".equals(element)) {
+                String name = reader.getAttributeValue(null, "name");
+                String type = reader.getAttributeValue(null, "type");
+                for (String value : readValues(reader)) {
+                    if (EXECUTION_TIME.equals(name)) {
+                        test.executionTimes.add(value);
+                    }
+                    if (name != null && type != null && type.startsWith("numeric")) {
+                        test.measurements.add(new String[] { name, value });
+                    }
+                }
+            } else if ("Measurement".equals(element)) {
+                test.outputs.addAll(readValues(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private List<String> readValues(XMLStreamReader reader) throws XMLStreamException {
+        List<String> values = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("Value".equals(reader.getLocalName())) {
+                values.add(getStringValue(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+        return values;
+    }
+
+    private void writeTestCase(JUnitXMLWriter writer, TestInfo test) throws IOException, XMLStreamException {
+        String testName = translate(getSingleValue(test.names, "Name"), "-", "_");
+        String className = "projectroot" + translate(getSingleValue(test.paths, "Path"), "/.", ".");
+        String duration = formatTime(number(ifEmpty(getSingleValue(test.executionTimes, EXECUTION_TIME), "0")));
+        String output = join(test.outputs);
+
+        writer.startElement("testcase");
+        writer.attribute("classname", className);
+        writer.attribute("name", testName);
+        writer.attribute("time", duration);
+        if ("passed".equals(test.status)) {
+            // nothing to report
+        } else if ("notrun".equals(test.status)) {
+            writer.startElement("skipped");
+            writer.endElement();
+        } else {
+            writer.startElement("failure");
+            writer.text(output);
+            writer.endElement();
+        }
+        writer.startElement("system-out");
+        writer.text(output);
+        writer.endElement();
+        writer.endElement();
+
+        for (String[] measurement : test.measurements) {
+            double value = number(measurement[1]);
+            if (!Double.isNaN(value)) {
+                addMeasurement(className, testName, measurement[0], value);
+            }
+        }
+    }
+
+    /*
+     * The stylesheet fails when an element that it uses as a single value is
+     * repeated, falls back on it.
+     */
+    private static String getSingleValue(List<String> values, String name) throws XMLStreamException {
+        if (values.size() > 1) {
+            throw new XMLStreamException("Unsupported multiple " + name + " values in a test");
+        }
+        return values.isEmpty() ? "" : values.get(0);
+    }
+
+    /*
+     * Same of the XPath translate function.
+     */
+    private static String translate(String value, String from, String to) {
+        StringBuilder translated = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int index = from.indexOf(c);
+            if (index == -1) {
+                translated.append(c);
+            } else if (index < to.length()) {
+                translated.append(to.charAt(index));
+            }
+        }
+        return translated.toString();
+    }
+
+    /*
+     * Same of xsl:value-of of a sequence.
+     */
+    private static String join(List<String> values) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                joined.append(' ');
+            }
+            joined.append(values.get(i));
+        }
+        return joined.toString();
+    }
+
+}
@@ -32,7 +32,7 @@ import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
 /**
  * @author David Hallas
  */
-public class GoogleTestInputMetric extends InputMetricXSL {
+public class GoogleTestInputMetric extends InputMetricXSL implements StreamingConverterProvider {
 
     @Override
     public InputType getToolType() {
@@ -68,4 +68,9 @@ public class GoogleTestInputMetric extends InputMetricXSL {
     public OutputMetric getOutputFormatType() {
         return JUnitModel.LATEST;
     }
+
+    @Override
+    public StreamingConverter getStreamingConverter() {
+        return new GoogleTestStreamingConverter();
+    }
 }
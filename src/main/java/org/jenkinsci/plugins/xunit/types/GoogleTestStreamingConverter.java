@@ -0,0 +1,209 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+
+/**
+ * Streaming version of the {@code googletest-to-junit.xsl} stylesheet.
+ * <p>
+ * Test cases are written as soon as they are read, only the failures of the
+ * current test case are kept in memory. The converter produces the same result
+ * tree of the stylesheet, including the text that the XSLT built-in templates
+ * copy from the {@code testsuites} element and the namespaces declared by the
+ * stylesheet literal result elements.
+ */
+public class GoogleTestStreamingConverter extends AbstractStreamingConverter {
+
+    private static final String XS_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
+    private static final String XUNIT_NAMESPACE = "http://www.xunit.org";
+    // literal text that follows the value parameter in the stylesheet
+    private static final String VALUE_PARAM_SUFFIX = ")\n                    ";
+
+    @Override
+    protected void convert(@Nonnull File inputFile, @Nonnull JUnitXMLWriter writer) throws IOException, XMLStreamException {
+        try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+            XMLStreamReader reader = createReader(is);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        applyTemplates(reader, writer);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Applies the stylesheet templates to the current element, the reader is
+     * left on its end tag.
+     */
+    private void applyTemplates(XMLStreamReader reader, JUnitXMLWriter writer) throws XMLStreamException, IOException {
+        String name = reader.getLocalName();
+        if ("testsuites".equals(name)) {
+            writer.startElement("testsuites");
+            declareNamespaces(writer);
+            applyTemplatesToChildren(reader, writer);
+            writer.endElement();
+        } else if ("testsuite".equals(name)) {
+            writeTestSuite(reader, writer);
+        } else if ("testcase".equals(name)) {
+            writeTestCase(reader, writer);
+        } else {
+            // built-in template
+            applyTemplatesToChildren(reader, writer);
+        }
+    }
+
+    private void applyTemplatesToChildren(XMLStreamReader reader, JUnitXMLWriter writer) throws XMLStreamException, IOException {
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                applyTemplates(reader, writer);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                return;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                // built-in template copies text nodes
+                writer.text(reader.getText());
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private void writeTestSuite(XMLStreamReader reader, JUnitXMLWriter writer) throws XMLStreamException, IOException {
+        writer.startElement("testsuite");
+        declareNamespaces(writer);
+        writer.attribute("name", getAttribute(reader, "name"));
+        writer.attribute("tests", ifEmpty(getAttribute(reader, "tests"), "0"));
+        writer.attribute("failures", ifEmpty(getAttribute(reader, "failures"), "0"));
+        writer.attribute("errors", ifEmpty(getAttribute(reader, "errors"), "0"));
+        writer.attribute("skipped", ifEmpty(getAttribute(reader, "disabled"), "0"));
+        writer.attribute("time", junitTime(getAttribute(reader, "time")));
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if ("testcase".equals(reader.getLocalName())) {
+                writeTestCase(reader, writer);
+            } else {
+                skipElement(reader);
+            }
+        }
+        writer.endElement();
+    }
+
+    private void writeTestCase(XMLStreamReader reader, JUnitXMLWriter writer) throws XMLStreamException, IOException {
+        String name = getAttribute(reader, "name");
+        String valueParam = reader.getAttributeValue(null, "value_param");
+        String time = getAttribute(reader, "time");
+        String classname = getAttribute(reader, "classname");
+        boolean notRun = "notrun".equals(reader.getAttributeValue(null, "status"));
+
+        List<String[]> failures = new ArrayList<>();
+        List<String[]> errors = new ArrayList<>();
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String child = reader.getLocalName();
+            if ("failure".equals(child) || "error".equals(child)) {
+                String message = getAttribute(reader, "message");
+                String[] failure = new String[] { message, getStringValue(reader) };
+                ("failure".equals(child) ? failures : errors).add(failure);
+            } else {
+                skipElement(reader);
+            }
+        }
+
+        writer.startElement("testcase");
+        declareNamespaces(writer);
+        if (valueParam != null) {
+            writer.attribute("name", name + " (" + valueParam + VALUE_PARAM_SUFFIX);
+        } else {
+            writer.attribute("name", name);
+        }
+        writer.attribute("time", junitTime(time));
+        writer.attribute("classname", classname);
+        if (notRun) {
+            writer.startElement("skipped");
+            writer.endElement();
+        }
+        writeFailures(writer, failures);
+        writeFailures(writer, errors);
+        writer.endElement();
+    }
+
+    private void writeFailures(JUnitXMLWriter writer, List<String[]> failures) throws IOException {
+        if (failures.isEmpty()) {
+            return;
+        }
+        writer.startElement("failure");
+        for (int i = 0; i < failures.size(); i++) {
+            if (i > 0) {
+                writer.text("\n\n");
+            }
+            writer.text(failures.get(i)[0]);
+        }
+        writer.endElement();
+        writer.startElement("system-out");
+        for (int i = 0; i < failures.size(); i++) {
+            if (i > 0) {
+                writer.text("\n\n");
+            }
+            writer.text(failures.get(i)[1]);
+        }
+        writer.endElement();
+    }
+
+    private void declareNamespaces(JUnitXMLWriter writer) {
+        writer.namespace("xs", XS_NAMESPACE);
+        writer.namespace("xunit", XUNIT_NAMESPACE);
+    }
+
+    private static String getAttribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : "";
+    }
+
+}
@@ -26,6 +26,8 @@ package org.jenkinsci.plugins.xunit.types;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +37,8 @@ import org.jenkinsci.lib.dtkit.util.converter.ConversionException;
 import org.jenkinsci.lib.dtkit.util.validator.ValidationError;
 import org.jenkinsci.lib.dtkit.util.validator.ValidationException;
 import org.jenkinsci.plugins.xunit.types.model.JUnit10;
+import org.jenkinsci.plugins.xunit.util.ArchiveEntryFile;
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
 
 import hudson.FilePath;
 
@@ -43,6 +47,12 @@ import hudson.FilePath;
  */
 public class JUnitInputMetric extends InputMetricOther {
 
+    /**
+     * System property to disable the hard links of the reports, the reports
+     * are then copied.
+     */
+    public static final String PASSTHROUGH_PROPERTY = JUnitInputMetric.class.getName() + ".passthrough";
+
     @Override
     public String getToolName() {
         return "JUnit";
@@ -51,8 +61,14 @@ public class JUnitInputMetric extends InputMetricOther {
     @Override
     public void convert(File inputFile, File outFile, Map<String, Object> params) throws ConversionException {
         try {
-            FileUtils.copyFile(inputFile, outFile);
-            new FilePath(outFile).touch(System.currentTimeMillis());
+            if (inputFile instanceof ArchiveEntryFile || CompressionUtil.isCompressed(inputFile)) {
+                try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+                    FileUtils.copyInputStreamToFile(is, outFile);
+                }
+            } else if (!link(inputFile, outFile)) {
+                FileUtils.copyFile(inputFile, outFile);
+                new FilePath(outFile).touch(System.currentTimeMillis());
+            }
         } catch (IOException ioe) {
             throw new ConversionException(ioe);
         } catch (InterruptedException ie) {
@@ -60,6 +76,29 @@ public class JUnitInputMetric extends InputMetricOther {
         }
     }
 
+    /**
+     * Makes the report available to the test result parser without copying
+     * it, when the file system supports hard links.
+     * <p>
+     * The link shares the content and the timestamp of the user file, so it
+     * is never written or touched.
+     *
+     * @return true if the link has been created, false if the report must be
+     *         copied
+     */
+    private boolean link(File inputFile, File outFile) {
+        if (!Boolean.parseBoolean(System.getProperty(PASSTHROUGH_PROPERTY, "true"))) {
+            return false;
+        }
+        try {
+            Files.createLink(outFile.toPath(), inputFile.toPath());
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // different file stores or no hard link support
+            return false;
+        }
+    }
+
     @Override
     public boolean validateInputFile(File inputXMLFile) throws ValidationException {
         final JUnit10 jUnit = new JUnit10();
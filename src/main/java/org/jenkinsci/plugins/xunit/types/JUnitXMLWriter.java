@@ -0,0 +1,250 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Result;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import net.sf.saxon.TransformerFactoryImpl;
+
+/**
+ * Writes a JUnit report through the same serializer used by the XSL
+ * stylesheets, configured as their {@code xsl:output} (UTF-8 encoding,
+ * indentation and CDATA sections for the {@code cdata-section-elements}), so
+ * that a streaming converter that produces the same result tree of a
+ * stylesheet produces also the same bytes.
+ */
+public final class JUnitXMLWriter implements Closeable {
+
+    private final OutputStream os;
+    private final TransformerHandler handler;
+    private final Deque<Element> elements = new ArrayDeque<>();
+    private Element pending;
+
+    public JUnitXMLWriter(@Nonnull OutputStream os, @Nonnull Collection<String> cdataElements) throws IOException {
+        this(os, cdataElements, "UTF-8");
+    }
+
+    /**
+     * Creates a writer with the given encoding, it is also the name written
+     * in the XML declaration.
+     *
+     * @param os where write the report
+     * @param cdataElements elements whose text is written as CDATA section
+     * @param encoding the {@code encoding} of the stylesheet output
+     * @throws IOException if the serializer could not be created
+     */
+    public JUnitXMLWriter(@Nonnull OutputStream os, @Nonnull Collection<String> cdataElements, @Nonnull String encoding) throws IOException {
+        this.os = os;
+        try {
+            SAXTransformerFactory factory = (SAXTransformerFactory) new TransformerFactoryImpl();
+            handler = factory.newTransformerHandler();
+        } catch (TransformerConfigurationException e) {
+            throw new IOException(e);
+        }
+        Transformer serializer = handler.getTransformer();
+        serializer.setOutputProperty(OutputKeys.METHOD, "xml");
+        serializer.setOutputProperty(OutputKeys.ENCODING, encoding);
+        serializer.setOutputProperty(OutputKeys.INDENT, "yes");
+        StringBuilder cdataSectionElements = new StringBuilder();
+        for (String cdataElement : cdataElements) {
+            cdataSectionElements.append(cdataElement).append(' ');
+        }
+        serializer.setOutputProperty(OutputKeys.CDATA_SECTION_ELEMENTS, cdataSectionElements.toString().trim());
+        handler.setResult(new StreamResult(os));
+    }
+
+    public void startDocument() throws IOException {
+        try {
+            handler.startDocument();
+        } catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void endDocument() throws IOException {
+        flush();
+        try {
+            handler.endDocument();
+        } catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void startElement(@Nonnull String name) throws IOException {
+        flush();
+        pending = new Element(name);
+    }
+
+    /**
+     * Declares a namespace on the element just started, like the namespaces
+     * in scope that the stylesheets copy on their literal result elements. A
+     * namespace already declared by an ancestor is not declared again.
+     *
+     * @param prefix the namespace prefix
+     * @param uri the namespace URI
+     */
+    public void namespace(@Nonnull String prefix, @Nonnull String uri) {
+        checkStartTag(prefix);
+        if (!uri.equals(getNamespaceURI(prefix))) {
+            pending.namespaces.add(new String[] { prefix, uri });
+        }
+    }
+
+    private String getNamespaceURI(String prefix) {
+        // the stack iterates from the innermost element
+        for (Element element : elements) {
+            for (String[] namespace : element.namespaces) {
+                if (namespace[0].equals(prefix)) {
+                    return namespace[1];
+                }
+            }
+        }
+        return null;
+    }
+
+    public void attribute(@Nonnull String name, @Nonnull String value) {
+        checkStartTag(name);
+        pending.attributes.addAttribute("", name, name, "CDATA", value);
+    }
+
+    public void text(@Nonnull String text) throws IOException {
+        if (text.isEmpty()) {
+            return;
+        }
+        flush();
+        if (elements.isEmpty()) {
+            throw new IllegalStateException("Text written outside the root element");
+        }
+        try {
+            handler.characters(text.toCharArray(), 0, text.length());
+        } catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes text without escaping, like the stylesheets text with
+     * {@code disable-output-escaping="yes"}.
+     *
+     * @param text the markup to write as is
+     * @throws IOException if the report could not be written
+     */
+    public void rawText(@Nonnull String text) throws IOException {
+        if (text.isEmpty()) {
+            return;
+        }
+        try {
+            flush();
+            handler.processingInstruction(Result.PI_DISABLE_OUTPUT_ESCAPING, "");
+            text(text);
+            handler.processingInstruction(Result.PI_ENABLE_OUTPUT_ESCAPING, "");
+        } catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    public void endElement() throws IOException {
+        flush();
+        Element element = elements.pop();
+        try {
+            handler.endElement("", element.name, element.name);
+            for (String[] namespace : element.namespaces) {
+                handler.endPrefixMapping(namespace[0]);
+            }
+        } catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes an element that contains only the given text.
+     *
+     * @param name the element name
+     * @param text the element text
+     * @throws IOException if the report could not be written
+     */
+    public void element(@Nonnull String name, @Nonnull String text) throws IOException {
+        startElement(name);
+        text(text);
+        endElement();
+    }
+
+    @Override
+    public void close() throws IOException {
+        os.close();
+    }
+
+    private void checkStartTag(String name) {
+        if (pending == null) {
+            throw new IllegalStateException(name + " written outside a start tag");
+        }
+    }
+
+    private void flush() throws IOException {
+        if (pending == null) {
+            return;
+        }
+        Element element = pending;
+        pending = null;
+        try {
+            for (String[] namespace : element.namespaces) {
+                handler.startPrefixMapping(namespace[0], namespace[1]);
+            }
+            handler.startElement("", element.name, element.name, element.attributes);
+        } catch (SAXException e) {
+            throw new IOException(e);
+        }
+        elements.push(element);
+    }
+
+    private static final class Element {
+        private final String name;
+        private final AttributesImpl attributes = new AttributesImpl();
+        private final List<String[]> namespaces = new ArrayList<>(2);
+
+        private Element(String name) {
+            this.name = name;
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamException;
+
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+
+/**
+ * Reads the numeric values measured by the tests of a report that the JUnit
+ * format can not carry, like the results of benchmarks.
+ */
+public interface MeasurementsReader {
+
+    /**
+     * Reads the measurements of the input report.
+     *
+     * @param inputFile the report to read
+     * @return the measurements, the test identifiers are the same of the
+     *         converted JUnit report
+     * @throws IOException if the report could not be read
+     * @throws XMLStreamException if the report is not a well formed XML
+     */
+    @Nonnull
+    List<Measurement> read(@Nonnull File inputFile) throws IOException, XMLStreamException;
+
+}
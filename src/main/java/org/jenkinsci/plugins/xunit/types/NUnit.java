@@ -28,7 +28,7 @@ import org.jenkinsci.lib.dtkit.model.InputType;
 import org.jenkinsci.lib.dtkit.model.OutputMetric;
 import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
 
-public class NUnit extends InputMetricXSL {
+public class NUnit extends InputMetricXSL implements StreamingConverterProvider {
 
     @Override
     public InputType getToolType() {
@@ -64,4 +64,9 @@ public class NUnit extends InputMetricXSL {
     public OutputMetric getOutputFormatType() {
         return JUnitModel.LATEST;
     }
+
+    @Override
+    public StreamingConverter getStreamingConverter() {
+        return new NUnitStreamingConverter();
+    }
 }
\ No newline at end of file
@@ -28,7 +28,7 @@ import org.jenkinsci.lib.dtkit.model.InputType;
 import org.jenkinsci.lib.dtkit.model.OutputMetric;
 import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
 
-public class NUnit3 extends InputMetricXSL {
+public class NUnit3 extends InputMetricXSL implements ReportSplitterProvider {
 
     @Override
     public InputType getToolType() {
@@ -64,4 +64,10 @@ public class NUnit3 extends InputMetricXSL {
     public OutputMetric getOutputFormatType() {
         return JUnitModel.LATEST;
     }
-}
\ No newline at end of file
+
+    @Override
+    public ReportSplitter getReportSplitter() {
+        // each fixture is converted in a test suite
+        return new ReportSplitter("test-suite", "type", "TestFixture");
+    }
+}
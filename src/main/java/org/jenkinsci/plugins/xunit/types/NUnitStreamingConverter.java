@@ -0,0 +1,563 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+
+/**
+ * Streaming version of the {@code nunit-2.x-to-junit.xsl} stylesheet.
+ * <p>
+ * The stylesheet evaluates the ancestor axis and counts the test cases of
+ * every suite, moreover it excludes from the suite name the ancestors whose
+ * string value is equal to the one of the top level suite. To keep the
+ * conversion linear the report is read twice: the first pass collects for
+ * each suite, in document order, the counters, the categories and the text
+ * offsets needed to compare string values; the second pass keeps a stack of
+ * the open suites names and writes each test case as soon as it is read.
+ * <p>
+ * The stylesheet writes the suites in document order, so the suites nested
+ * in a suite with test cases, like the NUnit 2.5 parameterized tests, are
+ * kept in memory until the enclosing suite is written. Reports with a shape
+ * that the converter does not support, for example more than one top level
+ * suite, are rejected with an {@link XMLStreamException} so that the
+ * conversion falls back to the XSL.
+ */
+public class NUnitStreamingConverter extends AbstractStreamingConverter {
+
+    private static final String XS_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
+    private static final String XUNIT_NAMESPACE = "http://www.xunit.org";
+    private static final Pattern NUNIT_VERSION = Pattern.compile("^[^0-9]*(\\d+\\.\\d+)");
+    // used by the stylesheet when the report has not the environment element
+    private static final String DEFAULT_VERSION = "2.4";
+
+    /**
+     * Informations collected by the first pass for each test-suite element.
+     */
+    private static class SuiteInfo {
+        private int tests;
+        private int failures;
+        private int errors;
+        private int skipped;
+        private boolean categories;
+        private String group;
+        private boolean emitted;
+        private long textStart;
+        private long textEnd;
+        private boolean sameOfRoot;
+    }
+
+    private static class ScanFrame {
+        private final SuiteInfo info;
+        private final int depth;
+        private final boolean typed;
+        private String child;
+
+        ScanFrame(SuiteInfo info, int depth, boolean typed) {
+            this.info = info;
+            this.depth = depth;
+            this.typed = typed;
+        }
+    }
+
+    private static class WriteFrame {
+        private final int depth;
+        private final String suiteName;
+        private final String qualifier;
+        private final PendingSuite suite;
+        private boolean streamed;
+
+        WriteFrame(int depth, String suiteName, String qualifier, PendingSuite suite) {
+            this.depth = depth;
+            this.suiteName = suiteName;
+            this.qualifier = qualifier;
+            this.suite = suite;
+        }
+    }
+
+    /**
+     * A test suite written by the stylesheet, with the test cases read while
+     * waiting that the enclosing suite is written.
+     */
+    private static class PendingSuite {
+        private final SuiteInfo info;
+        private final String name;
+        private final String time;
+        private final List<TestCase> testCases = new ArrayList<>();
+
+        PendingSuite(SuiteInfo info, String name, String time) {
+            this.info = info;
+            this.name = name;
+            this.time = time;
+        }
+    }
+
+    private static class TestCase {
+        private String classname;
+        private String name;
+        private String time;
+        private String group;
+        private String outcome;
+        private String message;
+        private String stackTrace;
+    }
+
+    private static class Report {
+        private final List<SuiteInfo> suites = new ArrayList<>();
+        private String version = DEFAULT_VERSION;
+    }
+
+    @Override
+    protected void convert(@Nonnull File inputFile, @Nonnull JUnitXMLWriter writer) throws IOException, XMLStreamException {
+        Report report = scan(inputFile);
+
+        writer.startElement("testsuites");
+        writer.namespace("xs", XS_NAMESPACE);
+        writer.namespace("xunit", XUNIT_NAMESPACE);
+        if (!report.suites.isEmpty()) {
+            write(inputFile, report, writer);
+        }
+        writer.endElement();
+    }
+
+    private Report scan(File inputFile) throws IOException, XMLStreamException {
+        Report report = new Report();
+        boolean environment = false;
+        int roots = 0;
+        long rootText = 0;
+        int depth = 0;
+        // depth of the test case counted by the current suite
+        int caseDepth = -1;
+        boolean caseNotExecuted = false;
+        Deque<ScanFrame> stack = new ArrayDeque<>();
+
+        try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+            XMLStreamReader reader = createReader(is);
+            try {
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        String name = reader.getLocalName();
+                        ScanFrame frame = stack.peek();
+                        if (depth == 1 && !"test-results".equals(name)) {
+                            throw new XMLStreamException("Unexpected root element " + name, reader.getLocation());
+                        } else if (depth == 2 && "environment".equals(name)) {
+                            if (environment) {
+                                throw new XMLStreamException("Multiple environment elements", reader.getLocation());
+                            }
+                            environment = true;
+                            report.version = getNUnitVersion(reader.getAttributeValue(null, "nunit-version"));
+                        } else if ("test-suite".equals(name)) {
+                            if (caseDepth != -1) {
+                                throw new XMLStreamException("Test suite inside a test case", reader.getLocation());
+                            }
+                            if (frame == null) {
+                                if (depth != 2 || ++roots > 1) {
+                                    throw new XMLStreamException("Only one top level test suite is supported", reader.getLocation());
+                                }
+                                rootText = 0;
+                            }
+                            SuiteInfo info = new SuiteInfo();
+                            info.textStart = rootText;
+                            report.suites.add(info);
+                            stack.push(new ScanFrame(info, depth, reader.getAttributeValue(null, "type") != null));
+                        } else if (frame != null && depth == frame.depth + 1) {
+                            frame.child = name;
+                            if ("categories".equals(name)) {
+                                frame.info.categories = true;
+                            }
+                        } else if (frame != null && depth == frame.depth + 2) {
+                            if ("test-case".equals(name)) {
+                                caseDepth = depth;
+                                caseNotExecuted = count(reader, frame);
+                            } else if ("category".equals(name) && "categories".equals(frame.child)) {
+                                frame.info.group = join(frame.info.group, reader.getAttributeValue(null, "name"), ' ');
+                            }
+                        } else if (depth == caseDepth + 1 && caseNotExecuted && "reason".equals(name)) {
+                            stack.peek().info.skipped++;
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth == caseDepth) {
+                            caseDepth = -1;
+                        } else if (!stack.isEmpty() && depth == stack.peek().depth) {
+                            SuiteInfo info = stack.pop().info;
+                            info.textEnd = rootText;
+                            if (stack.isEmpty()) {
+                                markSameOfRoot(report.suites, rootText);
+                            }
+                        }
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (!stack.isEmpty()) {
+                            rootText += reader.getTextLength();
+                        }
+                        break;
+                    default:
+                        break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Counts the current test case in the suite, the same of the stylesheet
+     * counters. Returns if the reasons of the test case must be counted as
+     * skipped.
+     */
+    private boolean count(XMLStreamReader reader, ScanFrame frame) {
+        SuiteInfo info = frame.info;
+        String result = reader.getAttributeValue(null, "result");
+        String executed = reader.getAttributeValue(null, "executed");
+
+        info.tests++;
+        if ("results".equals(frame.child)) {
+            info.emitted = true;
+        }
+        if ("NotRunnable".equals(result)) {
+            info.errors++;
+        }
+        if (frame.typed) {
+            if ("Failure".equals(result)) {
+                info.failures++;
+            } else if ("Ignored".equals(result)) {
+                info.skipped++;
+            }
+            return false;
+        }
+        if ("True".equals(executed) && "False".equals(reader.getAttributeValue(null, "success"))) {
+            info.failures++;
+        }
+        return "False".equals(executed);
+    }
+
+    /*
+     * The string value of a suite is equal to the one of the top level suite
+     * when there is no text in the top level suite outside of it.
+     */
+    private void markSameOfRoot(List<SuiteInfo> suites, long rootText) {
+        for (SuiteInfo info : suites) {
+            info.sameOfRoot = info.textStart == 0 && info.textEnd == rootText;
+        }
+    }
+
+    private String getNUnitVersion(@CheckForNull String value) throws XMLStreamException {
+        Matcher matcher = NUNIT_VERSION.matcher(value != null ? value : "");
+        if (!matcher.find()) {
+            // the stylesheet fails to compare an empty version
+            throw new XMLStreamException("Unsupported NUnit version " + value);
+        }
+        return matcher.group(1);
+    }
+
+    private void write(File inputFile, Report report, JUnitXMLWriter writer) throws IOException, XMLStreamException {
+        boolean qualified = Double.parseDouble(report.version) > 2.2;
+        Iterator<SuiteInfo> suites = report.suites.iterator();
+        Deque<WriteFrame> stack = new ArrayDeque<>();
+        // suites that start inside the one currently written
+        List<PendingSuite> pendings = new ArrayList<>();
+        boolean streaming = false;
+        int depth = 0;
+
+        try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+            XMLStreamReader reader = createReader(is);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        WriteFrame frame = stack.peek();
+                        String name = reader.getLocalName();
+                        if ("test-suite".equals(name)) {
+                            frame = newFrame(reader, suites.next(), stack, depth, qualified);
+                            if (frame.suite != null) {
+                                if (streaming) {
+                                    // the stylesheet writes nested suites after the parent one
+                                    pendings.add(frame.suite);
+                                } else {
+                                    writeTestSuiteStart(writer, frame.suite);
+                                    frame.streamed = true;
+                                    streaming = true;
+                                }
+                            }
+                            stack.push(frame);
+                        } else if (frame != null && frame.suite != null && depth == frame.depth + 2 && "test-case".equals(name)) {
+                            TestCase testCase = readTestCase(reader, frame.suiteName);
+                            if (frame.streamed) {
+                                writeTestCase(writer, testCase);
+                            } else {
+                                frame.suite.testCases.add(testCase);
+                            }
+                            depth--;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (!stack.isEmpty() && depth == stack.peek().depth && stack.pop().streamed) {
+                            writer.endElement();
+                            for (PendingSuite suite : pendings) {
+                                writeTestSuiteStart(writer, suite);
+                                for (TestCase testCase : suite.testCases) {
+                                    writeTestCase(writer, testCase);
+                                }
+                                writer.endElement();
+                            }
+                            pendings.clear();
+                            streaming = false;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private WriteFrame newFrame(XMLStreamReader reader, SuiteInfo info, Deque<WriteFrame> ancestors, int depth, boolean qualified) {
+        String name = reader.getAttributeValue(null, "name");
+        String type = reader.getAttributeValue(null, "type");
+
+        String suiteName;
+        if (qualified) {
+            String qualifiedName = null;
+            // ancestors are iterated from the outermost one
+            Iterator<WriteFrame> it = ancestors.descendingIterator();
+            while (it.hasNext()) {
+                qualifiedName = join(qualifiedName, it.next().qualifier, '.');
+            }
+            suiteName = ifEmpty(join(qualifiedName, name, '.'), "");
+        } else {
+            suiteName = name != null ? name : "";
+        }
+
+        String qualifier = null;
+        if (name != null && !info.sameOfRoot && !"GenericFixture".equals(type) && !"ParameterizedFixture".equals(type)) {
+            qualifier = name;
+        }
+
+        PendingSuite suite = null;
+        if (info.emitted) {
+            suite = new PendingSuite(info, suiteName, reader.getAttributeValue(null, "time"));
+        }
+        return new WriteFrame(depth, suiteName, qualifier, suite);
+    }
+
+    private void writeTestSuiteStart(JUnitXMLWriter writer, PendingSuite suite) throws IOException {
+        SuiteInfo info = suite.info;
+        writer.startElement("testsuite");
+        writer.attribute("name", suite.name);
+        writer.attribute("tests", String.valueOf(info.tests));
+        writer.attribute("failures", String.valueOf(info.failures));
+        writer.attribute("errors", String.valueOf(info.errors));
+        writer.attribute("skipped", String.valueOf(info.skipped));
+        if (suite.time != null) {
+            writer.attribute("time", junitTime(suite.time));
+        }
+        if (info.categories) {
+            writer.attribute("group", ifEmpty(info.group, ""));
+        }
+    }
+
+    /**
+     * Reads the current test case, the reader is left on its end tag.
+     */
+    private TestCase readTestCase(XMLStreamReader reader, String suiteName) throws XMLStreamException {
+        TestCase testCase = new TestCase();
+        String name = ifEmpty(reader.getAttributeValue(null, "name"), "");
+        String result = reader.getAttributeValue(null, "result");
+        testCase.time = reader.getAttributeValue(null, "time");
+
+        boolean categories = false;
+        boolean failure = false;
+        String failureMessage = null;
+        String stackTrace = null;
+        boolean reason = false;
+        String reasonMessage = null;
+        boolean reasonText = false;
+        while (nextChild(reader)) {
+            String child = reader.getLocalName();
+            if ("categories".equals(child)) {
+                categories = true;
+                while (nextChild(reader)) {
+                    if ("category".equals(reader.getLocalName())) {
+                        testCase.group = join(testCase.group, reader.getAttributeValue(null, "name"), ' ');
+                    }
+                    skipElement(reader);
+                }
+            } else if ("failure".equals(child)) {
+                failure = true;
+                while (nextChild(reader)) {
+                    if ("message".equals(reader.getLocalName())) {
+                        failureMessage = join(failureMessage, getStringValue(reader), ' ');
+                    } else if ("stack-trace".equals(reader.getLocalName())) {
+                        stackTrace = join(stackTrace, getStringValue(reader), ' ');
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } else if ("reason".equals(child)) {
+                reason = true;
+                while (nextChild(reader)) {
+                    if ("message".equals(reader.getLocalName())) {
+                        StringBuilder value = new StringBuilder();
+                        reasonText |= readMessage(reader, value);
+                        reasonMessage = join(reasonMessage, value.toString(), ' ');
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+
+        if (name.startsWith(suiteName + '.')) {
+            testCase.name = name.substring(suiteName.length() + 1);
+        } else if (name.startsWith(suiteName)) {
+            testCase.name = name.substring(suiteName.length());
+        } else {
+            testCase.name = name;
+        }
+        if (categories) {
+            testCase.group = ifEmpty(testCase.group, "");
+        }
+        testCase.classname = suiteName;
+        if ("Failure".equals(result) || (result == null && failure)) {
+            testCase.outcome = "failure";
+            testCase.message = ifEmpty(failureMessage, "");
+            testCase.stackTrace = stackTrace;
+        } else if ("NotRunnable".equals(result)) {
+            testCase.outcome = "error";
+            testCase.message = reasonText ? reasonMessage : null;
+        } else if ("Ignored".equals(result) || (result == null && reason)) {
+            testCase.outcome = "skipped";
+            testCase.message = reasonText ? reasonMessage : null;
+        }
+        return testCase;
+    }
+
+    private void writeTestCase(JUnitXMLWriter writer, TestCase testCase) throws IOException {
+        writer.startElement("testcase");
+        writer.attribute("classname", testCase.classname);
+        writer.attribute("name", testCase.name);
+        if (testCase.time != null && !testCase.time.isEmpty()) {
+            writer.attribute("time", junitTime(testCase.time));
+        }
+        if (testCase.group != null) {
+            writer.attribute("group", testCase.group);
+        }
+        if (testCase.outcome != null) {
+            writer.startElement(testCase.outcome);
+            if (testCase.message != null) {
+                writer.attribute("message", testCase.message);
+            }
+            writer.text(ifEmpty(testCase.stackTrace, ""));
+            writer.endElement();
+        }
+        writer.endElement();
+    }
+
+    /**
+     * Appends the string value of the current message element to the given
+     * buffer, the reader is left on its end tag.
+     *
+     * @return if the message element has a text node child
+     */
+    private static boolean readMessage(XMLStreamReader reader, StringBuilder value) throws XMLStreamException {
+        boolean text = false;
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                if (reader.getTextLength() > 0) {
+                    text |= depth == 1;
+                    value.append(reader.getText());
+                }
+                break;
+            default:
+                break;
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Moves the reader to the next child element of the current one.
+     *
+     * @return {@code false} when the reader reaches the end tag of the
+     *         current element
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+    }
+
+    /*
+     * Joins the items of a sequence, like xsl:value-of and string-join do.
+     */
+    private static String join(@CheckForNull String value, @CheckForNull String item, char separator) {
+        if (item == null) {
+            return value;
+        }
+        return value == null ? item : value + separator + item;
+    }
+
+}
@@ -32,7 +32,7 @@ import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
 /**
  * @author Gregory Boissinot
  */
-public class QTestLib extends InputMetricXSL {
+public class QTestLib extends InputMetricXSL implements MeasurementsReaderProvider {
 
     @Override
     public InputType getToolType() {
@@ -68,4 +68,9 @@ public class QTestLib extends InputMetricXSL {
     public OutputMetric getOutputFormatType() {
         return JUnitModel.LATEST;
     }
+
+    @Override
+    public MeasurementsReader getMeasurementsReader() {
+        return new QTestLibMeasurementsReader();
+    }
 }
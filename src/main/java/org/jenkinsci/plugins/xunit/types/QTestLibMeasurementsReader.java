@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+
+/**
+ * Reads the {@code BenchmarkResult} elements written by {@code QBENCHMARK}.
+ * <p>
+ * Each result becomes a measurement of its test function named as the
+ * benchmark metric, followed by the data tag if any. The value is the one of
+ * a single iteration as reported by QTestLib.
+ */
+public class QTestLibMeasurementsReader implements MeasurementsReader {
+
+    @Override
+    public List<Measurement> read(@Nonnull File inputFile) throws IOException, XMLStreamException {
+        List<Measurement> measurements = new ArrayList<>();
+        try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+            XMLStreamReader reader = AbstractStreamingConverter.createReader(is);
+            try {
+                String className = null;
+                String testName = null;
+                int depth = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+                        if (depth == 1 && "TestCase".equals(name)) {
+                            className = reader.getAttributeValue(null, "name");
+                        } else if (depth == 2 && "TestFunction".equals(name)) {
+                            testName = reader.getAttributeValue(null, "name");
+                        } else if (depth == 3 && "BenchmarkResult".equals(name) && testName != null) {
+                            Measurement measurement = readBenchmarkResult(reader, className, testName);
+                            if (measurement != null) {
+                                measurements.add(measurement);
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return measurements;
+    }
+
+    private Measurement readBenchmarkResult(XMLStreamReader reader, String className, String testName) {
+        String metric = reader.getAttributeValue(null, "metric");
+        String value = reader.getAttributeValue(null, "value");
+        if (metric == null || value == null) {
+            return null;
+        }
+
+        String tag = reader.getAttributeValue(null, "tag");
+        String name = tag == null || tag.isEmpty() ? metric : metric + " [" + tag + "]";
+        try {
+            double number = Double.parseDouble(value.trim());
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                return null;
+            }
+            return new Measurement(className != null ? className : "", testName, name, number);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
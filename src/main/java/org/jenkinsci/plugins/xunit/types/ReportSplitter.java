@@ -0,0 +1,270 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+
+/**
+ * Cuts a large report in smaller reports, the chunks, at the boundaries of
+ * the elements that the stylesheet converts on its own, the units.
+ * <p>
+ * Each chunk contains a sequence of whole units together with the start tags
+ * of their ancestors, the rest of the report is left out. Converting all the
+ * chunks gives the same test suites of the conversion of the whole report as
+ * far as the stylesheet reads only the units and the attributes of their
+ * ancestors.
+ */
+public class ReportSplitter {
+
+    /**
+     * System property to change the size of the chunks in bytes.
+     */
+    public static final String CHUNK_SIZE_PROPERTY = ReportSplitter.class.getName() + ".chunkSize";
+    public static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    private final String element;
+    private final String attribute;
+    private final String value;
+    private long chunkSize = Long.getLong(CHUNK_SIZE_PROPERTY, DEFAULT_CHUNK_SIZE);
+
+    /**
+     * Creates a splitter whose units are all elements with the given name.
+     *
+     * @param element the local name of the units
+     */
+    public ReportSplitter(@Nonnull String element) {
+        this(element, null, null);
+    }
+
+    /**
+     * Creates a splitter whose units are the elements with the given name
+     * and attribute value.
+     *
+     * @param element the local name of the units
+     * @param attribute the local name of the attribute that identifies the
+     *            units, null for any element with the given name
+     * @param value the value of the attribute
+     */
+    public ReportSplitter(@Nonnull String element, @CheckForNull String attribute, @CheckForNull String value) {
+        this.element = element;
+        this.attribute = attribute;
+        this.value = value;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(long chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Returns if the given report is large enough to be split in more
+     * chunks.
+     * <p>
+     * The uncompressed size of the report is used. When it is not known the
+     * report is split, the split of a small report gives a single chunk.
+     *
+     * @param inputFile the report to convert
+     * @return true if the report should be split
+     */
+    public boolean isSplittable(@Nonnull File inputFile) {
+        long length;
+        try {
+            length = CompressionUtil.getUncompressedLength(inputFile);
+        } catch (IOException e) {
+            // the whole report is processed and the error reported later
+            return false;
+        }
+        return length == -1 || length > 2 * chunkSize;
+    }
+
+    /**
+     * Splits the report in chunks of about the chunk size, a chunk is larger
+     * when a single unit is larger than the chunk size.
+     *
+     * @param inputFile the report to split
+     * @param outputDirectory the folder where write the chunks
+     * @return the chunks in the order of the units in the report, empty if the
+     *         report does not contain any unit
+     * @throws IOException if the chunks could not be written
+     * @throws XMLStreamException if the report is not well formed
+     */
+    public List<File> split(@Nonnull File inputFile, @Nonnull File outputDirectory) throws IOException, XMLStreamException {
+        FileUtils.forceMkdir(outputDirectory);
+
+        List<File> chunks = new ArrayList<>();
+        try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+            XMLEventReader reader = XMLInputFactory.newFactory().createXMLEventReader(AbstractStreamingConverter.createReader(is));
+            Chunk chunk = null;
+            try {
+                List<StartElement> ancestors = new ArrayList<>();
+                int unitDepth = 0;
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (unitDepth > 0) {
+                        chunk.writer.add(event);
+                        if (event.isStartElement()) {
+                            unitDepth++;
+                        } else if (event.isEndElement()) {
+                            unitDepth--;
+                            if (unitDepth == 0 && chunk.isFull()) {
+                                chunk.close();
+                                chunk = null;
+                            }
+                        }
+                    } else if (event.isStartElement()) {
+                        StartElement startElement = event.asStartElement();
+                        if (isUnit(startElement)) {
+                            if (chunk == null) {
+                                File chunkFile = new File(outputDirectory, String.format("%04d-%s", chunks.size() + 1, inputFile.getName()));
+                                chunk = new Chunk(chunkFile);
+                                chunks.add(chunkFile);
+                            }
+                            chunk.moveTo(ancestors);
+                            chunk.writer.add(startElement);
+                            unitDepth = 1;
+                        } else {
+                            ancestors.add(startElement);
+                        }
+                    } else if (event.isEndElement()) {
+                        ancestors.remove(ancestors.size() - 1);
+                    }
+                    // everything else outside units is left out
+                }
+                if (chunk != null) {
+                    chunk.close();
+                    chunk = null;
+                }
+            } finally {
+                if (chunk != null) {
+                    chunk.abort();
+                }
+                reader.close();
+            }
+        }
+        return chunks;
+    }
+
+    private boolean isUnit(StartElement startElement) {
+        if (!element.equals(startElement.getName().getLocalPart())) {
+            return false;
+        }
+        if (attribute == null) {
+            return true;
+        }
+        Attribute unitAttribute = startElement.getAttributeByName(new QName(attribute));
+        return unitAttribute != null && unitAttribute.getValue().equals(value);
+    }
+
+    /**
+     * A chunk being written, it keeps open the ancestors of the last written
+     * unit.
+     */
+    private final class Chunk {
+        private final XMLEventFactory eventFactory = XMLEventFactory.newFactory();
+        private final CountingOutputStream os;
+        private final XMLEventWriter writer;
+        private final List<StartElement> path = new ArrayList<>();
+
+        Chunk(File file) throws IOException, XMLStreamException {
+            os = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            writer = XMLOutputFactory.newFactory().createXMLEventWriter(os, "UTF-8");
+            writer.add(eventFactory.createStartDocument("UTF-8", "1.0"));
+        }
+
+        /**
+         * Closes the ancestors that the next unit does not share with the
+         * previous one and opens its other ancestors.
+         */
+        void moveTo(List<StartElement> ancestors) throws XMLStreamException {
+            int common = 0;
+            while (common < path.size() && common < ancestors.size() && path.get(common) == ancestors.get(common)) {
+                common++;
+            }
+            while (path.size() > common) {
+                closeLast();
+            }
+            for (int i = common; i < ancestors.size(); i++) {
+                writer.add(ancestors.get(i));
+                path.add(ancestors.get(i));
+            }
+        }
+
+        boolean isFull() throws XMLStreamException {
+            writer.flush();
+            return os.getByteCount() >= chunkSize;
+        }
+
+        void close() throws IOException, XMLStreamException {
+            try {
+                while (!path.isEmpty()) {
+                    closeLast();
+                }
+                writer.add(eventFactory.createEndDocument());
+                writer.close();
+            } finally {
+                os.close();
+            }
+        }
+
+        void abort() {
+            try {
+                os.close();
+            } catch (IOException e) {
+                // the report is not valid anyway
+            }
+        }
+
+        private void closeLast() throws XMLStreamException {
+            StartElement last = path.remove(path.size() - 1);
+            writer.add(eventFactory.createEndElement(last.getName(), null));
+        }
+    }
+
+}
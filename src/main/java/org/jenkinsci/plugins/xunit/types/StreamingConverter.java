@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Converts a report into the JUnit format without load the whole report in
+ * memory.
+ * <p>
+ * Implementations are used in place of the XSL stylesheet of an
+ * {@link org.jenkinsci.lib.dtkit.model.InputMetricXSL} when its type
+ * implements {@link StreamingConverterProvider}. They must produce the same
+ * JUnit report of the stylesheet.
+ * <p>
+ * Numeric values measured by the tests that the JUnit format can not carry
+ * are written in the
+ * {@link org.jenkinsci.plugins.xunit.measurement.MeasurementsFile} of the
+ * JUnit report.
+ */
+public interface StreamingConverter {
+
+    /**
+     * Converts the input report.
+     *
+     * @param inputFile the report to convert, it could be read more than once
+     * @param junitFile where write the JUnit report
+     * @throws IOException if the files could not be read or written
+     * @throws XMLStreamException if the report is not a well formed XML or
+     *         does not have the expected structure
+     */
+    void convert(@Nonnull File inputFile, @Nonnull File junitFile) throws IOException, XMLStreamException;
+
+    /**
+     * Returns the settings of this converter that change the JUnit report, so
+     * that the reports converted with other settings are not reused.
+     *
+     * @return the settings, empty if the report is always the same of the
+     *         stylesheet
+     */
+    @Nonnull
+    String getSettings();
+
+}
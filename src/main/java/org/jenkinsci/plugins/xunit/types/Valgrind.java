@@ -28,7 +28,9 @@ import org.jenkinsci.lib.dtkit.model.InputType;
 import org.jenkinsci.lib.dtkit.model.OutputMetric;
 import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
 
-public class Valgrind extends InputMetricXSL {
+public class Valgrind extends InputMetricXSL implements StreamingConverterProvider {
+
+    private int fingerprintFrames;
 
     @Override
     public InputType getToolType() {
@@ -64,4 +66,23 @@ public class Valgrind extends InputMetricXSL {
     public OutputMetric getOutputFormatType() {
         return JUnitModel.LATEST;
     }
+
+    @Override
+    public StreamingConverter getStreamingConverter() {
+        return new ValgrindStreamingConverter(fingerprintFrames);
+    }
+
+    public int getFingerprintFrames() {
+        return fingerprintFrames;
+    }
+
+    /**
+     * Sets the number of top stack frames that identify an error together
+     * with its kind, the duplicate errors are written once.
+     *
+     * @param fingerprintFrames the number of frames, 0 writes all errors
+     */
+    public void setFingerprintFrames(int fingerprintFrames) {
+        this.fingerprintFrames = fingerprintFrames;
+    }
 }
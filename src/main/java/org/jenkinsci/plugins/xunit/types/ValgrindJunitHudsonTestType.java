@@ -28,6 +28,7 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.lib.dtkit.descriptor.TestTypeDescriptor;
 import org.jenkinsci.lib.dtkit.type.TestType;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import hudson.Extension;
 
@@ -39,11 +40,30 @@ import hudson.Extension;
  */
 public class ValgrindJunitHudsonTestType extends TestType {
 
+    private int fingerprintFrames;
+
     @DataBoundConstructor
     public ValgrindJunitHudsonTestType(String pattern, boolean skipNoTestFiles, boolean failIfNotNew, boolean deleteOutputFiles, boolean stopProcessingIfError) {
         super(pattern, skipNoTestFiles, failIfNotNew, deleteOutputFiles, stopProcessingIfError);
     }
 
+    public int getFingerprintFrames() {
+        return fingerprintFrames;
+    }
+
+    /**
+     * Collapses the errors with the same kind and the same top frames of
+     * their stack in a single entry with the number of occurrences and the
+     * total of leaked bytes.
+     *
+     * @param fingerprintFrames the number of top frames compared, 0 reports
+     *        every error
+     */
+    @DataBoundSetter
+    public void setFingerprintFrames(int fingerprintFrames) {
+        this.fingerprintFrames = Math.max(0, fingerprintFrames);
+    }
+
     @Symbol("Valgrind")
     @Extension
     public static class DescriptorImpl extends TestTypeDescriptor<ValgrindJunitHudsonTestType> {
@@ -51,6 +71,10 @@ public class ValgrindJunitHudsonTestType extends TestType {
         public DescriptorImpl() {
             super(ValgrindJunitHudsonTestType.class, Valgrind.class);
         }
+
+        public boolean isValgrindType() {
+            return true;
+        }
     }
 
     @Override
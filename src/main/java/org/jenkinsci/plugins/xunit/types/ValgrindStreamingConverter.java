@@ -0,0 +1,479 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+import org.jenkinsci.plugins.xunit.util.DigestUtil;
+
+/**
+ * Streaming version of the {@code valgrind-1.0-to-junit.xsl} stylesheet.
+ * <p>
+ * The report is read twice, the first time to collect the information needed
+ * by the test suite element, that are spread over the whole report, the
+ * second time to write the errors.
+ * <p>
+ * When a number of fingerprint frames is given the errors with the same kind
+ * and the same top frames of their stack are written once, followed by the
+ * number of occurrences and the total of leaked bytes. Only the digest of the
+ * fingerprint and the first occurrence of each distinct error are kept in
+ * memory.
+ */
+public class ValgrindStreamingConverter extends AbstractStreamingConverter {
+
+    private final int fingerprintFrames;
+
+    public ValgrindStreamingConverter() {
+        this(0);
+    }
+
+    /**
+     * Creates a converter that collapses duplicate errors.
+     *
+     * @param fingerprintFrames the number of top stack frames that identify
+     *        an error together with its kind, 0 to write all errors as the
+     *        stylesheet
+     */
+    public ValgrindStreamingConverter(int fingerprintFrames) {
+        this.fingerprintFrames = Math.max(0, fingerprintFrames);
+    }
+
+    @Override
+    public String getSettings() {
+        return fingerprintFrames > 0 ? "fingerprintFrames=" + fingerprintFrames : "";
+    }
+
+    @Override
+    protected void convert(@Nonnull File inputFile, @Nonnull JUnitXMLWriter writer) throws IOException, XMLStreamException {
+        Summary summary = new Summary();
+        try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+            XMLStreamReader reader = createReader(is);
+            try {
+                readSummary(reader, summary);
+            } finally {
+                reader.close();
+            }
+        }
+
+        writer.startElement("testsuite");
+        writer.attribute("name", "valgrind-" + summary.tool);
+        writer.attribute("tests", "1");
+        writer.attribute("errors", "0");
+        writer.attribute("time", junitTime(summary.endTime - summary.startTime));
+        writer.attribute("failures", summary.errors >= 1 ? "1" : "0");
+        writer.startElement("testcase");
+        // namespaces copied by the stylesheet literal result element
+        writer.namespace("xs", "http://www.w3.org/2001/XMLSchema");
+        writer.namespace("xunit", "http://www.xunit.org");
+        writer.attribute("name", summary.getCaseName());
+        if (summary.errors >= 1) {
+            writer.startElement("failure");
+            try (InputStream is = CompressionUtil.newInputStream(inputFile)) {
+                XMLStreamReader reader = createReader(is);
+                try {
+                    writeErrors(reader, writer);
+                } finally {
+                    reader.close();
+                }
+            }
+            writer.endElement();
+        }
+        writer.endElement();
+        writer.endElement();
+    }
+
+    private void readSummary(XMLStreamReader reader, Summary summary) throws XMLStreamException {
+        int depth = 0;
+        String parent = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            depth++;
+
+            String name = reader.getLocalName();
+            if (depth == 1) {
+                if (!"valgrindoutput".equals(name)) {
+                    throw new XMLStreamException("Unexpected root element " + name, reader.getLocation());
+                }
+            } else if (depth == 2) {
+                parent = name;
+                if ("tool".equals(name)) {
+                    summary.tool = getStringValue(reader);
+                    depth--;
+                } else if ("pid".equals(name)) {
+                    summary.pid = getStringValue(reader);
+                    depth--;
+                } else if ("error".equals(name)) {
+                    summary.errors++;
+                    skipElement(reader);
+                    depth--;
+                } else if ("status".equals(name)) {
+                    readStatus(reader, summary);
+                    depth--;
+                }
+            } else if (depth == 4 && "args".equals(parent)) {
+                String group = summary.argsGroup;
+                if ("vargv".equals(group) && "arg".equals(name)) {
+                    String arg = getStringValue(reader);
+                    if ("--xml-file".equals(substringBefore(arg, "="))) {
+                        summary.xmlFile.append(substringAfter(arg, "="));
+                    }
+                    depth--;
+                } else if ("argv".equals(group) && "exe".equals(name)) {
+                    String exe = getStringValue(reader);
+                    summary.exe = summary.exe == null ? exe : summary.exe + ' ' + exe;
+                    depth--;
+                }
+            } else if (depth == 3 && "args".equals(parent)) {
+                summary.argsGroup = name;
+            }
+        }
+    }
+
+    private void readStatus(XMLStreamReader reader, Summary summary) throws XMLStreamException {
+        String state = null;
+        String time = null;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("state".equals(name)) {
+                state = getStringValue(reader);
+            } else if ("time".equals(name)) {
+                time = getStringValue(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+        if ("RUNNING".equals(state)) {
+            summary.startTime = secondsFromTime(time);
+        } else if ("FINISHED".equals(state)) {
+            summary.endTime = secondsFromTime(time);
+        }
+    }
+
+    private void writeErrors(XMLStreamReader reader, JUnitXMLWriter writer) throws XMLStreamException, IOException {
+        // distinct errors by fingerprint digest in order of first occurrence
+        Map<String, DuplicateError> duplicates = new LinkedHashMap<>();
+        int depth = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == 2 && "error".equals(reader.getLocalName())) {
+                    ValgrindError error = readError(reader);
+                    if (fingerprintFrames > 0) {
+                        String fingerprint = DigestUtil.digest(error.getFingerprint(fingerprintFrames));
+                        DuplicateError duplicate = duplicates.get(fingerprint);
+                        if (duplicate == null) {
+                            duplicates.put(fingerprint, new DuplicateError(error));
+                        } else {
+                            duplicate.add(error);
+                        }
+                    } else {
+                        writer.text(error.text.toString());
+                        writer.text("\n");
+                    }
+                    depth--;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+
+        for (DuplicateError duplicate : duplicates.values()) {
+            writer.text(duplicate.text);
+            if (duplicate.occurrences > 1) {
+                writer.text("  Occurrences: " + duplicate.occurrences + "\n");
+            }
+            if (duplicate.leakedBytes > 0) {
+                writer.text("  Total leaked bytes: " + duplicate.leakedBytes + "\n");
+            }
+            writer.text("\n");
+        }
+    }
+
+    /**
+     * Reads the current error element, the reader is left on its end tag.
+     */
+    protected ValgrindError readError(XMLStreamReader reader) throws XMLStreamException {
+        ValgrindError error = new ValgrindError();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("kind".equals(name)) {
+                error.kind = getStringValue(reader);
+            } else if ("what".equals(name)) {
+                appendWhat(error.text, " ", getStringValue(reader), error.kind);
+            } else if ("xwhat".equals(name)) {
+                appendWhat(error.text, " ", readXWhat(reader, error), error.kind);
+            } else if ("auxwhat".equals(name)) {
+                appendWhat(error.text, "  ", getStringValue(reader), null);
+            } else if ("stack".equals(name)) {
+                readStack(reader, error);
+            } else {
+                skipElement(reader);
+            }
+        }
+        return error;
+    }
+
+    protected void appendWhat(StringBuilder text, String indent, String what, String kind) {
+        text.append(indent).append(what).append('\n');
+        String link = getLink(kind);
+        if (link != null) {
+            text.append(indent).append("(see: ").append(link).append(')').append('\n');
+        }
+    }
+
+    private String readXWhat(XMLStreamReader reader, ValgrindError error) throws XMLStreamException {
+        String value = null;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("text".equals(name)) {
+                value = join(value, getStringValue(reader));
+            } else if ("leakedbytes".equals(name)) {
+                error.leakedBytes += parseBytes(getStringValue(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+        return value != null ? value : "";
+    }
+
+    private void readStack(XMLStreamReader reader, ValgrindError error) throws XMLStreamException {
+        // only the frames of the first stack identify the error
+        boolean fingerprint = error.frames == null;
+        if (fingerprint) {
+            error.frames = new ArrayList<>();
+        }
+        boolean first = true;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!"frame".equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+            Frame frame = readFrame(reader);
+            error.text.append(first ? "    at " : "    by ").append(frame.toString()).append('\n');
+            if (fingerprint && error.frames.size() < fingerprintFrames) {
+                error.frames.add(frame);
+            }
+            first = false;
+        }
+    }
+
+    /**
+     * Reads the current frame element, the reader is left on its end tag.
+     */
+    protected Frame readFrame(XMLStreamReader reader) throws XMLStreamException {
+        Frame frame = new Frame();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("ip".equals(name)) {
+                frame.ip = join(frame.ip, getStringValue(reader));
+            } else if ("fn".equals(name)) {
+                frame.fn = join(frame.fn, getStringValue(reader));
+            } else if ("file".equals(name)) {
+                frame.file = join(frame.file, getStringValue(reader));
+            } else if ("line".equals(name)) {
+                frame.line = join(frame.line, getStringValue(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+        return frame;
+    }
+
+    private static long parseBytes(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String join(String current, String value) {
+        // xsl:value-of joins a sequence of nodes with a space
+        return current == null ? value : current + ' ' + value;
+    }
+
+    private static String getLink(String kind) {
+        if (kind == null) {
+            return null;
+        }
+        switch (kind) {
+        case "InvalidRead":
+        case "InvalidWrite":
+            return "http://valgrind.org/docs/manual/mc-manual.html#mc-manual.badrw";
+        case "InvalidJump":
+        case "InvalidMemPool":
+        case "UninitCondition":
+        case "UninitValue":
+        case "ClientCheck":
+            return "http://valgrind.org/docs/manual/mc-manual.html#mc-manual.uninitvals";
+        case "SyscallParam":
+            return "http://valgrind.org/docs/manual/mc-manual.html#mc-manual.bad-syscall-args";
+        case "InvalidFree":
+            return "http://valgrind.org/docs/manual/mc-manual.html#mc-manual.badfrees";
+        case "MisMatchedFree":
+            return "http://valgrind.org/docs/manual/mc-manual.html#mc-manual.rudefn";
+        case "Overlap":
+            return "http://valgrind.org/docs/manual/mc-manual.html#mc-manual.overlap";
+        default:
+            return kind.contains("Leak") ? "http://valgrind.org/docs/manual/mc-manual.html#mc-manual.leaks" : null;
+        }
+    }
+
+    /**
+     * Converts the valgrind status time, like {@code 00:00:00:00.546}, in
+     * seconds ignoring the days.
+     */
+    private static double secondsFromTime(String value) {
+        String time = value != null && value.length() > 3 ? value.substring(3) : "";
+        String[] parts = time.trim().replace(',', '.').split(":");
+        if (parts.length != 3) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(parts[0]) * 3600 + Integer.parseInt(parts[1]) * 60 + Double.parseDouble(parts[2]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String substringBefore(String value, String separator) {
+        int index = value.indexOf(separator);
+        return index == -1 ? "" : value.substring(0, index);
+    }
+
+    private static String substringAfter(String value, String separator) {
+        int index = value.indexOf(separator);
+        return index == -1 ? "" : value.substring(index + separator.length());
+    }
+
+    /**
+     * A frame of an error stack.
+     */
+    protected static final class Frame {
+        protected String ip;
+        protected String fn;
+        protected String file;
+        protected String line;
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(ip != null ? ip : "").append(": ").append(fn != null ? fn : "");
+            if (file != null) {
+                sb.append(" (").append(file);
+                if (line != null) {
+                    sb.append(':').append(line);
+                }
+                sb.append(')');
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * An error of the report with its text as written in the failure.
+     */
+    protected static final class ValgrindError {
+        protected String kind;
+        protected final StringBuilder text = new StringBuilder();
+        protected List<Frame> frames;
+        protected long leakedBytes;
+
+        /**
+         * Returns the kind of the error and the location of its top frames.
+         * The instruction pointer is used only when the function is unknown
+         * because it changes with the load address.
+         */
+        protected String getFingerprint(int frameCount) {
+            StringBuilder fingerprint = new StringBuilder(kind != null ? kind : "");
+            if (frames != null) {
+                for (Frame frame : frames.subList(0, Math.min(frameCount, frames.size()))) {
+                    fingerprint.append('\n');
+                    fingerprint.append(frame.fn != null ? frame.fn : frame.ip).append('\t');
+                    fingerprint.append(frame.file).append('\t').append(frame.line);
+                }
+            }
+            return fingerprint.toString();
+        }
+    }
+
+    private static final class DuplicateError {
+        private final String text;
+        private int occurrences;
+        private long leakedBytes;
+
+        private DuplicateError(ValgrindError error) {
+            this.text = error.text.toString();
+            add(error);
+        }
+
+        private void add(ValgrindError error) {
+            occurrences++;
+            leakedBytes += error.leakedBytes;
+        }
+    }
+
+    private static final class Summary {
+        private String tool = "";
+        private String pid = "";
+        private String exe;
+        private String argsGroup;
+        private final StringBuilder xmlFile = new StringBuilder();
+        private int errors;
+        private double startTime;
+        private double endTime;
+
+        private String getCaseName() {
+            if (xmlFile.length() > 0) {
+                String path = xmlFile.toString();
+                String basename = path.substring(path.lastIndexOf('/') + 1);
+                return substringBefore(basename, ".");
+            } else if (exe != null) {
+                return exe;
+            }
+            return pid;
+        }
+    }
+
+}
@@ -29,7 +29,7 @@ import org.jenkinsci.lib.dtkit.model.InputType;
 import org.jenkinsci.lib.dtkit.model.OutputMetric;
 import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
 
-public class XUnitDotNet extends InputMetricXSL {
+public class XUnitDotNet extends InputMetricXSL implements ReportSplitterProvider {
 
     @Override
     public InputType getToolType() {
@@ -65,4 +65,10 @@ public class XUnitDotNet extends InputMetricXSL {
     public OutputMetric getOutputFormatType() {
         return JUnitModel.LATEST;
     }
+
+    @Override
+    public ReportSplitter getReportSplitter() {
+        // each assembly is converted in a test suite
+        return new ReportSplitter("assembly");
+    }
 }
@@ -0,0 +1,352 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nonnull;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarInputStream;
+
+/**
+ * A report stored as an entry of a zip or tar archive, the tar archive could
+ * be compressed with gzip.
+ * <p>
+ * The entry is never extracted, its content is read from the archive each
+ * time the report is opened with {@link #openStream(File)}. Zip entries are
+ * read directly, tar entries are found reading the archive up to them, so
+ * many entries of the same tar archive should be read in archive order with a
+ * {@link Cursor}, which keeps the content of each entry in memory. The entry
+ * is considered as new as its archive.
+ */
+public class ArchiveEntryFile extends File {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Separates the archive path from the entry name, as in
+     * {@code results/reports.zip!/TEST-foo.xml}.
+     */
+    public static final String SEPARATOR = "!/";
+
+    /**
+     * The maximum size of the tar entries kept in memory by a {@link Cursor}.
+     */
+    public static final long MAX_BUFFERED_LENGTH = 64L * 1024 * 1024;
+
+    private final File archive;
+    private final String entryName;
+    private transient long length = -1;
+    private final transient byte[] content;
+
+    public ArchiveEntryFile(@Nonnull File archive, @Nonnull String entryName) {
+        this(archive, entryName, null);
+    }
+
+    private ArchiveEntryFile(File archive, String entryName, byte[] content) {
+        super(archive.getPath() + SEPARATOR + entryName);
+        this.archive = archive;
+        this.entryName = entryName;
+        this.content = content;
+        if (content != null) {
+            length = content.length;
+        }
+    }
+
+    public File getArchive() {
+        return archive;
+    }
+
+    public String getEntryName() {
+        return entryName;
+    }
+
+    @Override
+    public boolean exists() {
+        return archive.isFile();
+    }
+
+    @Override
+    public boolean isFile() {
+        return archive.isFile();
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return false;
+    }
+
+    @Override
+    public long lastModified() {
+        return archive.lastModified();
+    }
+
+    /**
+     * Returns the uncompressed size of the entry, as recorded in the archive.
+     *
+     * @return the entry size, 0 if the entry could not be read
+     */
+    @Override
+    public long length() {
+        if (length == -1) {
+            try {
+                length = readLength();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+        return length;
+    }
+
+    private long readLength() throws IOException {
+        if (isZip(archive)) {
+            try (ZipFile zip = new ZipFile(archive)) {
+                ZipEntry entry = zip.getEntry(entryName);
+                if (entry == null || entry.isDirectory()) {
+                    return 0;
+                }
+                if (entry.getSize() != -1) {
+                    return entry.getSize();
+                }
+            }
+            // the size is not recorded, count the entry bytes
+            try (InputStream is = newInputStream()) {
+                long size = 0;
+                byte[] buffer = new byte[8192];
+                for (int read = is.read(buffer); read != -1; read = is.read(buffer)) {
+                    size += read;
+                }
+                return size;
+            }
+        }
+
+        try (TarInputStream tar = new TarInputStream(CompressionUtil.newInputStream(archive))) {
+            for (TarEntry entry = tar.getNextEntry(); entry != null; entry = tar.getNextEntry()) {
+                if (!entry.isDirectory() && entryName.equals(getName(entry))) {
+                    return entry.getSize();
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public File getAbsoluteFile() {
+        return new ArchiveEntryFile(archive.getAbsoluteFile(), entryName, content);
+    }
+
+    @Override
+    public File getCanonicalFile() throws IOException {
+        return new ArchiveEntryFile(archive.getCanonicalFile(), entryName, content);
+    }
+
+    /**
+     * Opens the given report, reading archive entries from their archive.
+     *
+     * @param file the report to read
+     * @return the raw content of the report
+     * @throws IOException if the report could not be opened
+     */
+    public static InputStream openStream(@Nonnull File file) throws IOException {
+        if (file instanceof ArchiveEntryFile) {
+            return ((ArchiveEntryFile) file).newInputStream();
+        }
+        return new FileInputStream(file);
+    }
+
+    /**
+     * Lists the names of the file entries of an archive.
+     *
+     * @param archive a zip or tar archive
+     * @return the entry names, with the / separator
+     * @throws IOException if the archive could not be read
+     */
+    public static List<String> list(@Nonnull File archive) throws IOException {
+        List<String> entries = new ArrayList<>();
+        if (isZip(archive)) {
+            try (ZipFile zip = new ZipFile(archive)) {
+                Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+                while (zipEntries.hasMoreElements()) {
+                    ZipEntry entry = zipEntries.nextElement();
+                    if (!entry.isDirectory()) {
+                        entries.add(entry.getName());
+                    }
+                }
+            }
+        } else {
+            try (TarInputStream tar = new TarInputStream(CompressionUtil.newInputStream(archive))) {
+                for (TarEntry entry = tar.getNextEntry(); entry != null; entry = tar.getNextEntry()) {
+                    if (!entry.isDirectory()) {
+                        entries.add(getName(entry));
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the entries of a tar archive in archive order, so that the
+     * entries found in the same order are read with a single read of the
+     * archive.
+     * <p>
+     * The content of each entry returned by {@link #read(String)} is kept in
+     * memory by the returned report, nothing is extracted to disk. Entries
+     * larger than {@link #MAX_BUFFERED_LENGTH} and zip entries are read from
+     * their archive at each access.
+     */
+    public static final class Cursor implements Closeable {
+        private final File archive;
+        private TarInputStream tar;
+        private Boolean zip;
+        // entries passed since the archive was opened
+        private final Set<String> passed = new HashSet<>();
+
+        public Cursor(@Nonnull File archive) {
+            this.archive = archive;
+        }
+
+        /**
+         * Returns the given entry of the archive, reading the archive from
+         * the current entry when possible.
+         *
+         * @param entryName the entry name
+         * @return the entry, its content is read from the archive when it is
+         *         not kept in memory
+         * @throws IOException if the archive could not be read
+         */
+        public ArchiveEntryFile read(@Nonnull String entryName) throws IOException {
+            if (zip == null) {
+                zip = isZip(archive);
+            }
+            if (zip) {
+                return new ArchiveEntryFile(archive, entryName);
+            }
+
+            if (tar == null || passed.contains(entryName)) {
+                // the entry is before the current one
+                close();
+                tar = new TarInputStream(CompressionUtil.newInputStream(archive));
+            }
+            for (TarEntry entry = tar.getNextEntry(); entry != null; entry = tar.getNextEntry()) {
+                String name = getName(entry);
+                passed.add(name);
+                if (!entry.isDirectory() && entryName.equals(name)) {
+                    if (entry.getSize() > MAX_BUFFERED_LENGTH) {
+                        return new ArchiveEntryFile(archive, entryName);
+                    }
+                    return new ArchiveEntryFile(archive, entryName, IOUtils.toByteArray(tar, entry.getSize()));
+                }
+            }
+            // not in the archive, it fails when it is opened
+            return new ArchiveEntryFile(archive, entryName);
+        }
+
+        @Override
+        public void close() throws IOException {
+            passed.clear();
+            if (tar != null) {
+                try {
+                    tar.close();
+                } finally {
+                    tar = null;
+                }
+            }
+        }
+    }
+
+    private InputStream newInputStream() throws IOException {
+        if (content != null) {
+            return new ByteArrayInputStream(content);
+        }
+        if (isZip(archive)) {
+            final ZipFile zip = new ZipFile(archive);
+            try {
+                ZipEntry entry = zip.getEntry(entryName);
+                if (entry == null || entry.isDirectory()) {
+                    throw new FileNotFoundException(getPath());
+                }
+                return new FilterInputStream(zip.getInputStream(entry)) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            zip.close();
+                        }
+                    }
+                };
+            } catch (IOException e) {
+                zip.close();
+                throw e;
+            }
+        }
+
+        TarInputStream tar = new TarInputStream(CompressionUtil.newInputStream(archive));
+        try {
+            for (TarEntry entry = tar.getNextEntry(); entry != null; entry = tar.getNextEntry()) {
+                if (!entry.isDirectory() && entryName.equals(getName(entry))) {
+                    // reads up to the end of the entry
+                    return tar;
+                }
+            }
+            throw new FileNotFoundException(getPath());
+        } catch (IOException e) {
+            tar.close();
+            throw e;
+        }
+    }
+
+    private static String getName(TarEntry entry) {
+        // archives created from the current folder
+        String name = entry.getName();
+        while (name.startsWith("./")) {
+            name = name.substring(2);
+        }
+        return name;
+    }
+
+    private static boolean isZip(File archive) throws IOException {
+        try (InputStream is = new BufferedInputStream(new FileInputStream(archive))) {
+            return is.read() == 'P' && is.read() == 'K' && is.read() == 3 && is.read() == 4;
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens the reports compressed with gzip as they were plain files. Reports
+ * are recognised by their content, whatever is their name, and are inflated
+ * while they are read. Reports stored in archives are read from their
+ * archive.
+ */
+public final class CompressionUtil {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // the gzip trailer records the size modulo 2^32, deflate does not
+    // compress more than 1032:1 so smaller files could not wrap it
+    private static final long MAX_TRAILER_LENGTH = (1L << 32) / 1032;
+
+    private CompressionUtil() {
+    }
+
+    /**
+     * Returns if the file content is compressed with gzip.
+     *
+     * @param file the file to check
+     * @return true if the file starts with the gzip magic number
+     * @throws IOException if the file could not be read
+     */
+    public static boolean isCompressed(File file) throws IOException {
+        try (InputStream is = ArchiveEntryFile.openStream(file)) {
+            return isGzip(is.read(), is.read());
+        }
+    }
+
+    /**
+     * Opens a buffered stream on the content of the file, inflated if it is
+     * compressed.
+     *
+     * @param file the file to read
+     * @return the stream of the uncompressed content
+     * @throws IOException if the file could not be opened
+     */
+    public static InputStream newInputStream(File file) throws IOException {
+        InputStream is = new BufferedInputStream(ArchiveEntryFile.openStream(file), BUFFER_SIZE);
+        try {
+            is.mark(2);
+            boolean gzip = isGzip(is.read(), is.read());
+            is.reset();
+            return gzip ? new GZIPInputStream(is, BUFFER_SIZE) : is;
+        } catch (IOException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the size of the file content once inflated, when it is known
+     * without reading the whole file.
+     *
+     * @param file the file to check
+     * @return the uncompressed size in bytes or -1 if unknown
+     * @throws IOException if the file could not be read
+     */
+    public static long getUncompressedLength(File file) throws IOException {
+        if (!isCompressed(file)) {
+            return file.length();
+        }
+        long length = file.length();
+        if (file instanceof ArchiveEntryFile || length > MAX_TRAILER_LENGTH || length < 18) {
+            return -1;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            // ISIZE, little endian
+            raf.seek(length - 4);
+            byte[] trailer = new byte[4];
+            raf.readFully(trailer);
+            return (trailer[0] & 0xffL) | (trailer[1] & 0xffL) << 8 | (trailer[2] & 0xffL) << 16 | (trailer[3] & 0xffL) << 24;
+        }
+    }
+
+    private static boolean isGzip(int b1, int b2) {
+        return b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes content digests used as keys by the caches of this plugin.
+ */
+public final class DigestUtil {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private DigestUtil() {
+    }
+
+    /**
+     * Returns the hexadecimal SHA-256 digest of the given text encoded in
+     * UTF-8.
+     *
+     * @param content the text to digest
+     * @return the hexadecimal digest
+     */
+    public static String digest(String content) {
+        MessageDigest md = newMessageDigest();
+        return toHex(md.digest(content.getBytes(UTF_8)));
+    }
+
+    /**
+     * Returns the hexadecimal SHA-256 digest of the given file content.
+     *
+     * @param file the file to digest
+     * @return the hexadecimal digest
+     * @throws IOException if the file could not be read
+     */
+    public static String digest(File file) throws IOException {
+        try (InputStream is = ArchiveEntryFile.openStream(file)) {
+            return digest(is);
+        }
+    }
+
+    /**
+     * Returns the hexadecimal SHA-256 digest of the stream content. The stream
+     * is read until the end but it is not closed.
+     *
+     * @param is the stream to digest
+     * @return the hexadecimal digest
+     * @throws IOException if the stream could not be read
+     */
+    public static String digest(InputStream is) throws IOException {
+        MessageDigest md = newMessageDigest();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            md.update(buffer, 0, read);
+        }
+        return toHex(md.digest());
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+}
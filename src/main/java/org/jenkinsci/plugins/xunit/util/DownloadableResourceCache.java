@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.apache.commons.io.IOUtils;
+
+import hudson.ProxyConfiguration;
+
+/**
+ * Keeps on the controller the resources downloaded from an URL, like custom
+ * stylesheets, so they are not downloaded again by every build.
+ * <p>
+ * A resource is served from the cache for the time to live configured through
+ * the {@link #TTL_PROPERTY} system property (in seconds). After that HTTP
+ * resources are revalidated with a conditional request using their
+ * {@code ETag} and {@code Last-Modified} headers, a {@code 304 Not Modified}
+ * response keeps the cached copy. Concurrent requests of the same URL wait for
+ * a single download.
+ */
+public final class DownloadableResourceCache {
+
+    public static final String TTL_PROPERTY = DownloadableResourceCache.class.getName() + ".ttl";
+    private static final long DEFAULT_TTL = 300;
+
+    private static final DownloadableResourceCache INSTANCE = new DownloadableResourceCache(TimeUnit.SECONDS.toMillis(Long.getLong(TTL_PROPERTY, DEFAULT_TTL)));
+
+    private final long ttl;
+    private final ConcurrentMap<String, Resource> resources = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+
+    /* package */ DownloadableResourceCache(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public static DownloadableResourceCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the content of the given URL, downloading it only if it is not
+     * cached or if it has been modified since the last download.
+     *
+     * @param url the resource URL
+     * @return the resource content
+     * @throws IOException if the resource could not be downloaded
+     */
+    @Nonnull
+    public String get(@Nonnull String url) throws IOException {
+        Object lock = new Object();
+        Object previous = locks.putIfAbsent(url, lock);
+        if (previous != null) {
+            lock = previous;
+        }
+
+        synchronized (lock) {
+            Resource cached = resources.get(url);
+            long now = System.currentTimeMillis();
+            if (cached != null && now - cached.fetchTime < ttl) {
+                return cached.content;
+            }
+
+            Resource resource = download(url, cached, now);
+            resources.put(url, resource);
+            return resource.content;
+        }
+    }
+
+    private Resource download(String url, @CheckForNull Resource cached, long now) throws IOException {
+        URL resourceURL = new URL(url);
+
+        URLConnection con = ProxyConfiguration.open(resourceURL);
+        String eTag = null;
+        String lastModified = null;
+        if (con instanceof HttpURLConnection) {
+            HttpURLConnection httpCon = (HttpURLConnection) con;
+            if (cached != null) {
+                if (cached.eTag != null) {
+                    httpCon.setRequestProperty("If-None-Match", cached.eTag);
+                }
+                if (cached.lastModified != null) {
+                    httpCon.setRequestProperty("If-Modified-Since", cached.lastModified);
+                }
+            }
+            httpCon.connect();
+
+            int responseCode = httpCon.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                httpCon.disconnect();
+                return new Resource(cached.content, cached.eTag, cached.lastModified, now);
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                httpCon.disconnect();
+                throw new IOException("Impossible to download resource " + resourceURL.toExternalForm() + " due to server error: " + responseCode);
+            }
+            eTag = httpCon.getHeaderField("ETag");
+            lastModified = httpCon.getHeaderField("Last-Modified");
+        } else {
+            con.connect();
+        }
+
+        try (InputStream in = con.getInputStream()) {
+            return new Resource(IOUtils.toString(in), eTag, lastModified, now);
+        }
+    }
+
+    private static final class Resource {
+        private final String content;
+        private final String eTag;
+        private final String lastModified;
+        private final long fetchTime;
+
+        private Resource(String content, String eTag, String lastModified, long fetchTime) {
+            this.content = content;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.fetchTime = fetchTime;
+        }
+    }
+
+}
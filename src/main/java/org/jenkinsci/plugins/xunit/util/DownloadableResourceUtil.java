@@ -35,7 +35,7 @@ public class DownloadableResourceUtil {
         if (con instanceof HttpURLConnection) {
             HttpURLConnection httpCon = (HttpURLConnection) con;
             int responseCode = httpCon.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED || responseCode != HttpURLConnection.HTTP_OK) {
+            if (responseCode != HttpURLConnection.HTTP_OK) {
                 throw new IOException("Impossible to download resource " + archive.toExternalForm() + " due to server error: " + responseCode);
             }
         }
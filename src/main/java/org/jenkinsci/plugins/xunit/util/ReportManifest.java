@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * A list of reports written by the test runners, read in place of a walk of
+ * the workspace.
+ * <p>
+ * Each line of the manifest is a report path relative to the workspace,
+ * optionally followed by the SHA-256 digest of the report and by the name of
+ * the testing tool, separated by tabs. An empty digest skips the check of the
+ * content, a report with a tool is processed only by that tool. Empty lines
+ * and lines starting with {@code #} are ignored. The manifest is read as
+ * UTF-8.
+ */
+public final class ReportManifest {
+
+    /**
+     * Prefix of the tool patterns that name a manifest.
+     */
+    public static final String PREFIX = "@";
+
+    private static final String SEPARATOR = "\t";
+
+    /**
+     * A report listed in a manifest.
+     */
+    public static final class Entry {
+        private final String path;
+        private final String digest;
+        private final String tool;
+
+        Entry(@Nonnull String path, @CheckForNull String digest, @CheckForNull String tool) {
+            this.path = path;
+            this.digest = digest;
+            this.tool = tool;
+        }
+
+        @Nonnull
+        public String getPath() {
+            return path;
+        }
+
+        @CheckForNull
+        public String getDigest() {
+            return digest;
+        }
+
+        @CheckForNull
+        public String getTool() {
+            return tool;
+        }
+
+        /**
+         * Returns if this report is processed by the given tool.
+         *
+         * @param toolName the name of the testing tool
+         * @return true if the entry has no tool or the same tool regardless of
+         *         the case
+         */
+        public boolean isFor(String toolName) {
+            return tool == null || tool.equalsIgnoreCase(toolName);
+        }
+    }
+
+    private ReportManifest() {
+    }
+
+    /**
+     * Returns if the tool pattern names a manifest.
+     *
+     * @param pattern the tool pattern
+     * @return true if the pattern starts with {@value #PREFIX}
+     */
+    public static boolean isManifest(@CheckForNull String pattern) {
+        return pattern != null && pattern.trim().startsWith(PREFIX);
+    }
+
+    /**
+     * Returns the manifest file named by a tool pattern.
+     *
+     * @param workspace the folder of relative manifest paths
+     * @param pattern the tool pattern
+     * @return the manifest file
+     */
+    @Nonnull
+    public static File getFile(@Nonnull File workspace, @Nonnull String pattern) {
+        File manifest = new File(pattern.trim().substring(PREFIX.length()).trim());
+        return manifest.isAbsolute() ? manifest : new File(workspace, manifest.getPath());
+    }
+
+    /**
+     * Reads the reports listed by a manifest.
+     *
+     * @param manifest the manifest file
+     * @return the reports in the manifest order
+     * @throws IOException if the manifest could not be read
+     */
+    @Nonnull
+    public static List<Entry> read(@Nonnull File manifest) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split(SEPARATOR, -1);
+                entries.add(new Entry(columns[0].trim(), getColumn(columns, 1), getColumn(columns, 2)));
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    private static String getColumn(String[] columns, int index) {
+        if (index >= columns.length || columns[index].trim().isEmpty()) {
+            return null;
+        }
+        return columns[index].trim();
+    }
+
+}
@@ -0,0 +1,518 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.StringTokenizer;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+
+import org.apache.tools.ant.DirectoryScanner;
+
+/**
+ * Finds the files that match Ant patterns with a single walk of the file
+ * tree.
+ * <p>
+ * Patterns are compiled once and the folders that no include could match, or
+ * whose content is excluded, are not visited. The matches are the same of
+ * the Ant file sets created by {@code hudson.Util#createFileSet}, that is
+ * comma separated includes, case sensitive, with the Ant default excludes
+ * and following symbolic links. The attributes of the files are read during
+ * the walk.
+ * <p>
+ * On network file systems the walk is bound by the latency of each file
+ * system call, with a parallelism greater than one the folders are walked
+ * concurrently by a fork/join pool. Files are always returned in the path
+ * order whatever is the parallelism.
+ */
+public class ReportScanner {
+
+    /**
+     * System property to change the number of folders walked at the same
+     * time.
+     */
+    public static final String PARALLELISM_PROPERTY = ReportScanner.class.getName() + ".parallelism";
+    public static final int DEFAULT_PARALLELISM = 1;
+
+    private final List<PathPattern> includes = new ArrayList<>();
+    private final List<PathPattern> excludes = new ArrayList<>();
+    private int parallelism = Integer.getInteger(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM);
+
+    /**
+     * Creates a scanner for the given includes and the Ant default excludes.
+     *
+     * @param includes comma separated Ant patterns
+     */
+    public ReportScanner(@Nonnull String includes) {
+        this(includes, null);
+    }
+
+    /**
+     * Creates a scanner for the given includes and excludes, the Ant default
+     * excludes are always applied.
+     *
+     * @param includes comma separated Ant patterns
+     * @param excludes comma separated Ant patterns, could be null
+     */
+    public ReportScanner(@Nonnull String includes, String excludes) {
+        for (String include : includes.split(",")) {
+            if (!include.trim().isEmpty()) {
+                this.includes.add(new PathPattern(include.trim()));
+            }
+        }
+        List<String> allExcludes = new ArrayList<>(Arrays.asList(DirectoryScanner.getDefaultExcludes()));
+        if (excludes != null) {
+            allExcludes.addAll(Arrays.asList(excludes.split(",")));
+        }
+        for (String exclude : allExcludes) {
+            if (!exclude.trim().isEmpty()) {
+                this.excludes.add(new PathPattern(exclude.trim()));
+            }
+        }
+    }
+
+    /**
+     * Sets the number of folders walked at the same time, a value less or
+     * equal to one walks the folders one by one.
+     *
+     * @param parallelism the number of concurrent walkers
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Walks the given folder.
+     *
+     * @param baseDir the folder to which the patterns are relative
+     * @return the attributes of the matching files by their path relative to
+     *         the folder, with the platform separator, in the path order
+     * @throws IOException if the folder could not be walked
+     */
+    public SortedMap<String, BasicFileAttributes> scan(@Nonnull File baseDir) throws IOException {
+        final SortedMap<String, BasicFileAttributes> files = new TreeMap<>();
+        if (includes.isEmpty() || !baseDir.isDirectory()) {
+            return files;
+        }
+
+        final Path base = baseDir.toPath();
+        if (parallelism > 1) {
+            return scanInParallel(base);
+        }
+        Files.walkFileTree(base, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.equals(base)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String[] path = toSegments(base.relativize(dir));
+                return isPruned(path) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                // broken links and folders that would loop
+                if (attrs.isDirectory() || attrs.isSymbolicLink()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path relative = base.relativize(file);
+                if (isIncluded(toSegments(relative))) {
+                    files.put(relative.toString(), attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                // unreadable files are ignored as the Ant scanner does
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Returns the last modified time of the files found by a walk.
+     *
+     * @param files the files found by a walk
+     * @return the last modified time in milliseconds by the file path, in
+     *         the path order
+     */
+    public static TreeMap<String, Long> getLastModifiedTimes(@Nonnull Map<String, BasicFileAttributes> files) {
+        TreeMap<String, Long> lastModifiedTimes = new TreeMap<>();
+        for (Map.Entry<String, BasicFileAttributes> file : files.entrySet()) {
+            lastModifiedTimes.put(file.getKey(), file.getValue().lastModifiedTime().toMillis());
+        }
+        return lastModifiedTimes;
+    }
+
+    private SortedMap<String, BasicFileAttributes> scanInParallel(Path base) throws IOException {
+        SortedMap<String, BasicFileAttributes> files = new ConcurrentSkipListMap<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(base, BasicFileAttributes.class);
+            pool.invoke(new FolderScan(base, base, Collections.singletonList(getFileKey(base, attrs)), files));
+        } finally {
+            pool.shutdown();
+        }
+        return files;
+    }
+
+    /**
+     * Walks a folder and forks the walk of its sub folders.
+     */
+    private final class FolderScan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path base;
+        private final Path folder;
+        // keys of the folder and its ancestors to not loop on links
+        private final List<Object> ancestors;
+        private final SortedMap<String, BasicFileAttributes> files;
+
+        FolderScan(Path base, Path folder, List<Object> ancestors, SortedMap<String, BasicFileAttributes> files) {
+            this.base = base;
+            this.folder = folder;
+            this.ancestors = ancestors;
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            List<FolderScan> subFolders = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs = readAttributes(entry);
+                    if (attrs == null) {
+                        continue;
+                    }
+                    Path relative = base.relativize(entry);
+                    String[] path = toSegments(relative);
+                    if (attrs.isDirectory()) {
+                        Object key = getFileKey(entry, attrs);
+                        if (!isPruned(path) && !ancestors.contains(key)) {
+                            List<Object> keys = new ArrayList<>(ancestors);
+                            keys.add(key);
+                            subFolders.add(new FolderScan(base, entry, keys, files));
+                        }
+                    } else if (!attrs.isSymbolicLink() && isIncluded(path)) {
+                        files.put(relative.toString(), attrs);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // unreadable folders are ignored as the Ant scanner does
+            }
+            invokeAll(subFolders);
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            try {
+                // broken link
+                return Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e1) {
+                return null;
+            }
+        }
+    }
+
+    private static Object getFileKey(Path folder, BasicFileAttributes attrs) {
+        if (attrs.fileKey() != null) {
+            return attrs.fileKey();
+        }
+        try {
+            return folder.toRealPath();
+        } catch (IOException e) {
+            return folder.toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * Returns if the file would be found by a walk.
+     * <p>
+     * This allows to find the files of many scanners with a single walk of a
+     * scanner of all their includes.
+     *
+     * @param path the file path relative to the walked folder
+     * @return true if the file is a match
+     */
+    public boolean matches(@Nonnull String path) {
+        List<String> segments = new ArrayList<>();
+        StringTokenizer tokenizer = new StringTokenizer(path, "/\\");
+        while (tokenizer.hasMoreTokens()) {
+            segments.add(tokenizer.nextToken());
+        }
+        return isIncluded(segments.toArray(new String[segments.size()]));
+    }
+
+    /**
+     * Returns if every file found by a walk is inside one of the given
+     * folders, judging only from the includes.
+     *
+     * @param folders the folder paths relative to the walked folder
+     * @return true if no include could match a file outside the folders
+     */
+    public boolean isWithin(@Nonnull Collection<String> folders) {
+        for (PathPattern include : includes) {
+            boolean within = false;
+            for (String folder : folders) {
+                if (include.isWithin(folder)) {
+                    within = true;
+                    break;
+                }
+            }
+            if (!within) {
+                return false;
+            }
+        }
+        return !includes.isEmpty();
+    }
+
+    /**
+     * Returns if the content of the folder could not contain any match.
+     *
+     * @param path the segments of the folder path
+     * @return true if the folder should not be walked
+     */
+    boolean isPruned(String[] path) {
+        for (PathPattern exclude : excludes) {
+            if (exclude.excludesContent(path)) {
+                return true;
+            }
+        }
+        for (PathPattern include : includes) {
+            if (include.couldMatchBelow(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns if the file matches an include and no exclude.
+     *
+     * @param path the segments of the file path
+     * @return true if the file is a match
+     */
+    boolean isIncluded(String[] path) {
+        boolean included = false;
+        for (PathPattern include : includes) {
+            if (include.matches(path)) {
+                included = true;
+                break;
+            }
+        }
+        if (!included) {
+            return false;
+        }
+        for (PathPattern exclude : excludes) {
+            if (exclude.matches(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] toSegments(Path path) {
+        String[] segments = new String[path.getNameCount()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = path.getName(i).toString();
+        }
+        return segments;
+    }
+
+    /**
+     * An Ant pattern split in segments, where {@code **} matches any number
+     * of folders and the other segments match a single name with the
+     * {@code *} and {@code ?} wildcards.
+     */
+    private static final class PathPattern {
+        private static final String ANY_FOLDERS = "**";
+
+        private final String[] segments;
+        private final Pattern[] matchers;
+
+        PathPattern(String pattern) {
+            List<String> tokens = new ArrayList<>();
+            StringTokenizer tokenizer = new StringTokenizer(pattern, "/\\");
+            while (tokenizer.hasMoreTokens()) {
+                tokens.add(tokenizer.nextToken());
+            }
+            if (pattern.endsWith("/") || pattern.endsWith("\\")) {
+                // as Ant, a pattern of a folder matches all its content
+                tokens.add(ANY_FOLDERS);
+            }
+            segments = tokens.toArray(new String[tokens.size()]);
+            matchers = new Pattern[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (!ANY_FOLDERS.equals(segment) && (segment.indexOf('*') != -1 || segment.indexOf('?') != -1)) {
+                    matchers[i] = toRegex(segment);
+                }
+            }
+        }
+
+        boolean matches(String[] path) {
+            return matches(path, segments.length);
+        }
+
+        /**
+         * Returns if the literal segments at the start of this pattern are
+         * the given folder path.
+         */
+        boolean isWithin(String folder) {
+            List<String> folderSegments = new ArrayList<>();
+            StringTokenizer tokenizer = new StringTokenizer(folder, "/\\");
+            while (tokenizer.hasMoreTokens()) {
+                String segment = tokenizer.nextToken();
+                if (!".".equals(segment)) {
+                    folderSegments.add(segment);
+                }
+            }
+            if (folderSegments.size() >= segments.length) {
+                return false;
+            }
+            for (String segment : segments) {
+                if ("..".equals(segment)) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < folderSegments.size(); i++) {
+                if (matchers[i] != null || ANY_FOLDERS.equals(segments[i]) || !segments[i].equals(folderSegments.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Matches the path against the first segments of the pattern.
+         */
+        private boolean matches(String[] path, int length) {
+            // matched[j] is true when the pattern segments seen so far match
+            // the first j names of the path
+            boolean[] matched = new boolean[path.length + 1];
+            matched[0] = true;
+            for (int i = 0; i < length; i++) {
+                if (ANY_FOLDERS.equals(segments[i])) {
+                    for (int j = 1; j <= path.length; j++) {
+                        matched[j] = matched[j] || matched[j - 1];
+                    }
+                } else {
+                    for (int j = path.length; j > 0; j--) {
+                        matched[j] = matched[j - 1] && matches(i, path[j - 1]);
+                    }
+                    matched[0] = false;
+                }
+            }
+            return matched[path.length];
+        }
+
+        /**
+         * Returns if a file under the given folder could match, as the Ant
+         * {@code SelectorUtils.matchPatternStart}.
+         */
+        boolean couldMatchBelow(String[] path) {
+            int i = 0;
+            for (String name : path) {
+                if (i == segments.length) {
+                    return false;
+                }
+                if (ANY_FOLDERS.equals(segments[i])) {
+                    return true;
+                }
+                if (!matches(i, name)) {
+                    return false;
+                }
+                i++;
+            }
+            return i < segments.length;
+        }
+
+        /**
+         * Returns if the pattern excludes all the content of the folder,
+         * that is the pattern ends with {@code **} and the rest of it matches
+         * the folder.
+         */
+        boolean excludesContent(String[] path) {
+            int length = segments.length;
+            if (length == 0 || !ANY_FOLDERS.equals(segments[length - 1])) {
+                return false;
+            }
+            return matches(path, length - 1);
+        }
+
+        private boolean matches(int segment, String name) {
+            Pattern matcher = matchers[segment];
+            return matcher != null ? matcher.matcher(name).matches() : segments[segment].equals(name);
+        }
+
+        private static Pattern toRegex(String segment) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (char c : segment.toCharArray()) {
+                if (c == '*' || c == '?') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '*' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Records the files created or modified in some folders of a workspace.
+ * <p>
+ * The folders are watched with their sub folders, also the ones created
+ * later. A folder that does not exist yet is watched as soon as it is
+ * created. When the file system loses events, or it has no native change
+ * notifications, the recorded files are not reliable and no file is
+ * returned.
+ */
+public class ReportWatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(ReportWatcher.class.getName());
+    private static final long POLL_TIMEOUT = 100;
+
+    private final Path workspace;
+    private final List<Path> folders = new ArrayList<>();
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    private final Set<Path> files = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+    private final Thread thread;
+    private volatile boolean stopping;
+    private volatile boolean overflow;
+
+    /**
+     * Starts to watch the given folders.
+     *
+     * @param workspace the folder of the relative paths
+     * @param folders the paths of the watched folders relative to the
+     *        workspace
+     * @throws IOException if the folders could not be watched
+     */
+    public ReportWatcher(@Nonnull File workspace, @Nonnull List<String> folders) throws IOException {
+        this.workspace = workspace.toPath().toAbsolutePath().normalize();
+        for (String folder : folders) {
+            this.folders.add(this.workspace.resolve(folder).normalize());
+        }
+        watchService = this.workspace.getFileSystem().newWatchService();
+        // without native notifications the last changes before the stop
+        // would be missed
+        overflow = watchService.getClass().getName().endsWith(".PollingWatchService");
+        try {
+            for (Path folder : this.folders) {
+                watch(folder, false);
+            }
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processEvents();
+            }
+        }, "xUnit report watcher of " + workspace);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops to watch and returns the recorded files.
+     *
+     * @return the last modified time of the files that still exist by their
+     *         path relative to the workspace, or {@code null} if some events
+     *         were lost
+     * @throws InterruptedException if interrupted while the pending events
+     *         are processed
+     */
+    @CheckForNull
+    public TreeMap<String, Long> stop() throws InterruptedException {
+        stopping = true;
+        try {
+            thread.join();
+        } finally {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close the watch service", e);
+            }
+        }
+        if (overflow) {
+            return null;
+        }
+
+        TreeMap<String, Long> reports = new TreeMap<>();
+        for (Path file : files) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attrs.isRegularFile()) {
+                    reports.put(workspace.relativize(file).toString(), attrs.lastModifiedTime().toMillis());
+                }
+            } catch (IOException e) {
+                // deleted before the end of the build
+            }
+        }
+        return reports;
+    }
+
+    private void processEvents() {
+        try {
+            while (true) {
+                // the events still queued are processed before to stop
+                WatchKey key = watchService.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    if (stopping) {
+                        return;
+                    }
+                    continue;
+                }
+                Path folder = keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    } else if (folder != null) {
+                        onEvent(folder.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    keys.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            overflow = true;
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to watch the reports of " + workspace, e);
+            overflow = true;
+        }
+    }
+
+    private void onEvent(Path path) {
+        try {
+            if (!Files.isDirectory(path)) {
+                if (isWatched(path)) {
+                    files.add(path);
+                }
+                return;
+            }
+            for (Path folder : folders) {
+                if (path.startsWith(folder)) {
+                    // files written before the folder was watched are new too
+                    watchTree(path, true);
+                    return;
+                } else if (folder.startsWith(path)) {
+                    watch(folder, true);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to watch " + path, e);
+            overflow = true;
+        }
+    }
+
+    private boolean isWatched(Path file) {
+        for (Path folder : folders) {
+            if (file.startsWith(folder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Watches the folder or, when it does not exist yet, its nearest ancestor
+     * in the workspace to know when the folder is created.
+     */
+    private void watch(Path folder, boolean recordFiles) throws IOException {
+        if (Files.isDirectory(folder)) {
+            watchTree(folder, recordFiles);
+            return;
+        }
+        Path ancestor = folder.getParent();
+        while (ancestor != null && ancestor.startsWith(workspace) && !Files.isDirectory(ancestor)) {
+            ancestor = ancestor.getParent();
+        }
+        if (ancestor != null && ancestor.startsWith(workspace)) {
+            register(ancestor);
+            // the next folder could be created before the registration
+            if (Files.isDirectory(ancestor.resolve(folder.getName(ancestor.getNameCount())))) {
+                watch(folder, true);
+            }
+        }
+    }
+
+    private void watchTree(Path folder, final boolean recordFiles) throws IOException {
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (recordFiles && attrs.isRegularFile()) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path folder) throws IOException {
+        WatchKey key = folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        keys.put(key, folder);
+    }
+
+}
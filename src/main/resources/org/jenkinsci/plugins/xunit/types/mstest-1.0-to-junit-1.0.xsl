@@ -28,6 +28,10 @@ THE SOFTWARE.
     <xsl:output method="xml" indent="yes" encoding="UTF-8" cdata-section-elements="system-out system-err failure"/>
     <xsl:decimal-format decimal-separator="." grouping-separator=","/>
 
+    <!-- index test definitions by id, so each result finds its definition in constant time -->
+    <xsl:key name="unit-test" match="a:UnitTest | b:UnitTest" use="@id"/>
+    <xsl:key name="web-test" match="a:WebTest | b:WebTest" use="@id"/>
+
     <xsl:function name="xunit:junit-time" as="xs:string">
         <xsl:param name="value" as="xs:anyAtomicType?" />
 
@@ -121,7 +125,7 @@ THE SOFTWARE.
                         </xsl:for-each>
                     </xsl:variable>
                 
-                    <xsl:for-each select="//a:UnitTest[@id=$testId]/a:TestMethod | //b:UnitTest[@id=$testId]/b:TestMethod | //a:WebTest[@id=$testId] | //b:WebTest[@id=$testId]">
+                    <xsl:for-each select="key('unit-test', $testId)/a:TestMethod | key('unit-test', $testId)/b:TestMethod | key('web-test', $testId)">
                         <xsl:variable name="className">
                             <xsl:choose>
                                 <xsl:when test="contains(@className, ',')">
@@ -0,0 +1,30 @@
+package org.jenkinsci.plugins.xunit.measurement;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MeasurementsActionTest {
+
+    @Test
+    public void first_measurement_of_a_key_wins() throws Exception {
+        MeasurementsAction action = new MeasurementsAction(Arrays.asList( //
+                new Measurement("MyClass", "myTest", "time", 1), //
+                new Measurement("MyClass", "myTest", "time", 2)));
+
+        Assert.assertEquals(Double.valueOf(1), action.getValue("MyClass", "myTest", "time"));
+        Assert.assertNull(action.getValue("MyClass", "myTest", "memory"));
+    }
+
+    @Test
+    public void added_measurements_are_found() throws Exception {
+        MeasurementsAction action = new MeasurementsAction(Arrays.asList(new Measurement("MyClass", "myTest", "time", 1)));
+        Assert.assertNull(action.getValue("MyClass", "otherTest", "time"));
+
+        action.addAll(Arrays.asList(new Measurement("MyClass", "otherTest", "time", 3)));
+
+        Assert.assertEquals(Double.valueOf(3), action.getValue("MyClass", "otherTest", "time"));
+    }
+
+}
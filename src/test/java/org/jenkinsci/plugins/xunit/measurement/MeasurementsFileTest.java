@@ -0,0 +1,37 @@
+package org.jenkinsci.plugins.xunit.measurement;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MeasurementsFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void measurements_file_is_next_to_the_report() throws Exception {
+        File junitFile = new File(folder.getRoot(), "TEST-1234.xml");
+
+        Assert.assertEquals(new File(folder.getRoot(), "TEST-1234.measurements"), MeasurementsFile.getFile(junitFile));
+    }
+
+    @Test
+    public void names_with_separators_are_preserved() throws Exception {
+        File file = folder.newFile("TEST-1234.measurements");
+        Measurement measurement = new Measurement("my\tclass", "test\\name", "line\nbreak", -1.5E-3);
+
+        MeasurementsFile.write(file, Arrays.asList(measurement));
+        List<Measurement> measurements = MeasurementsFile.read(file);
+
+        Assert.assertEquals(1, measurements.size());
+        Assert.assertTrue(measurements.get(0).isOf("my\tclass", "test\\name", "line\nbreak"));
+        Assert.assertEquals(-1.5E-3, measurements.get(0).getValue(), 0);
+    }
+
+}
@@ -0,0 +1,111 @@
+package org.jenkinsci.plugins.xunit.service;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsFile;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConversionCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void stored_report_is_restored() throws Exception {
+        ConversionCache cache = new ConversionCache(folder.newFolder(), 1024);
+        File report = newReport("report.xml", "<testsuite/>");
+
+        File target = new File(folder.getRoot(), "target.xml");
+        Assert.assertFalse(cache.restore("key", target));
+
+        cache.store("key", report);
+        Assert.assertTrue(cache.restore("key", target));
+        Assert.assertEquals("<testsuite/>", FileUtils.readFileToString(target, "UTF-8"));
+    }
+
+    @Test
+    public void least_recently_used_report_is_evicted() throws Exception {
+        ConversionCache cache = new ConversionCache(folder.newFolder(), 20);
+        File report = newReport("report.xml", "<testsuite name=''/>");
+
+        cache.store("key1", report);
+        cache.store("key2", report);
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertFalse(cache.restore("key1", new File(folder.getRoot(), "target1.xml")));
+        Assert.assertTrue(cache.restore("key2", new File(folder.getRoot(), "target2.xml")));
+    }
+
+    @Test
+    public void measurements_are_restored_with_their_report() throws Exception {
+        ConversionCache cache = new ConversionCache(folder.newFolder(), 1024);
+        File report = newReport("report.xml", "<testsuite/>");
+        FileUtils.write(MeasurementsFile.getFile(report), "MyClass\tmyTest\ttime\t1.0\n", "UTF-8");
+        cache.store("key", report);
+
+        File target = new File(folder.getRoot(), "target.xml");
+        Assert.assertTrue(cache.restore("key", target));
+        Assert.assertEquals("MyClass\tmyTest\ttime\t1.0\n", FileUtils.readFileToString(MeasurementsFile.getFile(target), "UTF-8"));
+    }
+
+    @Test
+    public void measurements_are_evicted_with_their_report() throws Exception {
+        File directory = folder.newFolder();
+        ConversionCache cache = new ConversionCache(directory, 60);
+        File report = newReport("report.xml", "<testsuite name=''/>");
+        FileUtils.write(MeasurementsFile.getFile(report), "MyClass\tmyTest\ttime\t1.0\n", "UTF-8");
+
+        cache.store("key1", report);
+        cache.store("key2", newReport("other.xml", "<testsuite name=''/>"));
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertFalse(new File(directory, "key1" + MeasurementsFile.EXTENSION).exists());
+        Assert.assertFalse(cache.restore("key1", new File(folder.getRoot(), "target1.xml")));
+    }
+
+    @Test
+    public void entries_survive_a_new_cache_instance() throws Exception {
+        File directory = folder.newFolder();
+        new ConversionCache(directory, 1024).store("key", newReport("report.xml", "<testsuite/>"));
+
+        ConversionCache cache = new ConversionCache(directory, 1024);
+        Assert.assertTrue(cache.restore("key", new File(folder.getRoot(), "target.xml")));
+    }
+
+    @Test
+    public void directory_writable_by_others_is_not_used() throws Exception {
+        File directory = folder.newFolder();
+        Assume.assumeTrue(directory.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+
+        ConversionCache cache = new ConversionCache(directory, 1024);
+        cache.store("key", newReport("report.xml", "<testsuite/>"));
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertFalse(cache.restore("key", new File(folder.getRoot(), "target.xml")));
+    }
+
+    @Test
+    public void missing_directory_is_created_for_its_owner_only() throws Exception {
+        File directory = new File(folder.getRoot(), "cache");
+        Assume.assumeTrue(directory.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        new ConversionCache(directory, 1024).store("key", newReport("report.xml", "<testsuite/>"));
+
+        Assert.assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(directory.toPath()));
+    }
+
+    private File newReport(String name, String content) throws Exception {
+        File report = folder.newFile(name);
+        FileUtils.write(report, content, "UTF-8");
+        return report;
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.jenkinsci.plugins.xunit.service;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.jenkinsci.plugins.xunit.util.DigestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import hudson.remoting.VirtualChannel;
+
+public class XSLContentStoreTest {
+
+    private static final String XSL = "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\"/>";
+
+    @Test
+    public void least_recently_used_stylesheet_is_evicted() {
+        XSLContentStore store = new XSLContentStore(1);
+        store.put("digest1", "content1");
+        store.put("digest2", "content2");
+
+        Assert.assertNull(store.get("digest1"));
+        Assert.assertEquals("content2", store.get("digest2"));
+    }
+
+    @Test
+    public void stylesheet_content_is_not_serialized_when_omitted() {
+        XUnitToolInfo toolInfo = new XUnitToolInfo(null, "*.xml", false, false, false, false, 0, 0, XSL);
+        toolInfo.omitXSLContent();
+
+        byte[] omitted = SerializationUtils.serialize(toolInfo);
+        byte[] shipped = SerializationUtils.serialize(new XUnitToolInfo(null, "*.xml", false, false, false, false, 0, 0, XSL));
+        Assert.assertTrue(omitted.length < shipped.length);
+    }
+
+    @Test
+    public void received_stylesheet_is_resolved_by_digest() {
+        String xsl = XSL + "<!-- " + System.nanoTime() + " -->";
+        XUnitToolInfo shipped = new XUnitToolInfo(null, "*.xml", false, false, false, false, 0, 0, xsl);
+        // the node receives the content the first time
+        SerializationUtils.clone(shipped);
+
+        XUnitToolInfo toolInfo = new XUnitToolInfo(null, "*.xml", false, false, false, false, 0, 0, xsl);
+        toolInfo.omitXSLContent();
+        XUnitToolInfo received = (XUnitToolInfo) SerializationUtils.clone(toolInfo);
+
+        Assert.assertEquals(DigestUtil.digest(xsl), received.getXSLDigest());
+        Assert.assertEquals(xsl, received.getXSLFile());
+    }
+
+    @Test
+    public void omitted_stylesheet_is_sent_again_when_included() {
+        String xsl = XSL + "<!-- " + System.nanoTime() + " -->";
+        XUnitToolInfo toolInfo = new XUnitToolInfo(null, "*.xml", false, false, false, false, 0, 0, xsl);
+        toolInfo.omitXSLContent();
+        // the node store has evicted it
+        Assert.assertNull(((XUnitToolInfo) SerializationUtils.clone(toolInfo)).getXSLFile());
+
+        toolInfo.includeXSLContent();
+        Assert.assertEquals(xsl, ((XUnitToolInfo) SerializationUtils.clone(toolInfo)).getXSLFile());
+    }
+
+    @Test
+    public void sent_stylesheets_are_recorded_by_channel() {
+        VirtualChannel channel1 = Mockito.mock(VirtualChannel.class);
+        VirtualChannel channel2 = Mockito.mock(VirtualChannel.class);
+        XSLContentStore.setSent(channel1, "digest");
+
+        Assert.assertTrue(XSLContentStore.isSent(channel1, "digest"));
+        Assert.assertFalse(XSLContentStore.isSent(channel1, "other"));
+        Assert.assertFalse(XSLContentStore.isSent(channel2, "digest"));
+    }
+
+}
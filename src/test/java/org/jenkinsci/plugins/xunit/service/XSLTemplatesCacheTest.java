@@ -0,0 +1,61 @@
+package org.jenkinsci.plugins.xunit.service;
+
+import javax.xml.transform.Templates;
+
+import org.jenkinsci.plugins.xunit.types.GoogleTestInputMetric;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XSLTemplatesCacheTest {
+
+    private static final String IDENTITY_XSL = "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+            + "<xsl:template match=\"@*|node()\"><xsl:copy><xsl:apply-templates select=\"@*|node()\"/></xsl:copy></xsl:template>"
+            + "</xsl:stylesheet>";
+
+    private static final String EMPTY_XSL = "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+            + "<xsl:template match=\"/\"><testsuites/></xsl:template>"
+            + "</xsl:stylesheet>";
+
+    @Test
+    public void same_stylesheet_is_compiled_once() throws Exception {
+        XSLTemplatesCache cache = new XSLTemplatesCache(10);
+        CacheStatistics statistics = new CacheStatistics("test");
+
+        Templates first = cache.getTemplates(IDENTITY_XSL, statistics);
+        Templates second = cache.getTemplates(IDENTITY_XSL, statistics);
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, statistics.getHits());
+        Assert.assertEquals(1, statistics.getMisses());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void least_recently_used_stylesheet_is_evicted() throws Exception {
+        XSLTemplatesCache cache = new XSLTemplatesCache(1);
+        CacheStatistics statistics = new CacheStatistics("test");
+
+        cache.getTemplates(IDENTITY_XSL, statistics);
+        cache.getTemplates(EMPTY_XSL, statistics);
+        cache.getTemplates(IDENTITY_XSL, statistics);
+
+        Assert.assertEquals(0, statistics.getHits());
+        Assert.assertEquals(3, statistics.getMisses());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void embedded_stylesheet_is_read_and_compiled_once() throws Exception {
+        XSLTemplatesCache cache = new XSLTemplatesCache(10);
+        CacheStatistics statistics = new CacheStatistics("test");
+
+        GoogleTestInputMetric inputMetric = new GoogleTestInputMetric();
+        Templates first = cache.getTemplates(inputMetric.getXslResourceClass(), inputMetric.getXslName(), statistics);
+        Templates second = cache.getTemplates(inputMetric.getXslResourceClass(), inputMetric.getXslName(), statistics);
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, statistics.getHits());
+        Assert.assertEquals(1, statistics.getMisses());
+    }
+
+}
@@ -3,8 +3,14 @@ package org.jenkinsci.plugins.xunit.service;
 import static org.mockito.Mockito.*;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.io.FileUtils;
 import org.jenkinsci.plugins.xunit.types.JUnitInputMetric;
+import org.jenkinsci.plugins.xunit.types.NUnit;
+import org.jenkinsci.plugins.xunit.types.Valgrind;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -30,4 +36,106 @@ public class XUnitConversionServiceTest {
         File reportFile2 = service.convert(toolInfo, inputFile, destFolder);
         Assert.assertNotEquals(reportFile.getAbsolutePath(), reportFile2.getAbsolutePath());
     }
+
+    @Test
+    public void single_pass_conversion_validates_input_and_output() throws Exception {
+        File destFolder = folder.newFolder();
+        File inputFile = new File(getClass().getResource("/org/jenkinsci/plugins/xunit/types/nunit/testcase1/input.xml").toURI());
+
+        XUnitToolInfo toolInfo = mock(XUnitToolInfo.class);
+        when(toolInfo.getInputMetric()).thenReturn(new NUnit());
+
+        XUnitValidationService validationService = new XUnitValidationService(mock(XUnitLog.class));
+        XUnitConversionService service = new XUnitConversionService(mock(XUnitLog.class));
+        SinglePassResult result = service.convertInSinglePass(toolInfo, inputFile, destFolder, //
+                validationService.getInputSchema(toolInfo), validationService.getOutputSchema(toolInfo));
+
+        Assert.assertNotNull(result);
+        Assert.assertTrue(result.getInputErrors().isEmpty());
+        Assert.assertTrue(result.getOutputErrors().isEmpty());
+        Assert.assertTrue(result.getJunitTargetFile().isFile());
+        Assert.assertTrue(validationService.validateOutputFile(toolInfo, inputFile, result.getJunitTargetFile()));
+    }
+
+    @Test
+    public void single_pass_conversion_discards_invalid_input() throws Exception {
+        File destFolder = folder.newFolder();
+        File inputFile = folder.newFile("invalid.xml");
+        FileUtils.write(inputFile, "<test-results><unexpected/></test-results>");
+
+        XUnitToolInfo toolInfo = mock(XUnitToolInfo.class);
+        when(toolInfo.getInputMetric()).thenReturn(new NUnit());
+
+        XUnitValidationService validationService = new XUnitValidationService(mock(XUnitLog.class));
+        XUnitConversionService service = new XUnitConversionService(mock(XUnitLog.class));
+        SinglePassResult result = service.convertInSinglePass(toolInfo, inputFile, destFolder, //
+                validationService.getInputSchema(toolInfo), validationService.getOutputSchema(toolInfo));
+
+        Assert.assertNotNull(result);
+        Assert.assertFalse(result.getInputErrors().isEmpty());
+        Assert.assertFalse(result.getJunitTargetFile().exists());
+    }
+
+    @Test
+    public void gzip_report_is_converted_without_inflating_it() throws Exception {
+        File destFolder = folder.newFolder();
+        File inputFile = gzip(new File(getClass().getResource("/org/jenkinsci/plugins/xunit/types/nunit/testcase1/input.xml").toURI()));
+
+        XUnitToolInfo toolInfo = mock(XUnitToolInfo.class);
+        when(toolInfo.getInputMetric()).thenReturn(new NUnit());
+
+        XUnitValidationService validationService = new XUnitValidationService(mock(XUnitLog.class));
+        XUnitConversionService service = new XUnitConversionService(mock(XUnitLog.class));
+        Assert.assertTrue(validationService.validateInputFile(toolInfo, inputFile));
+        File reportFile = service.convert(toolInfo, inputFile, destFolder);
+        Assert.assertTrue(validationService.validateOutputFile(toolInfo, inputFile, reportFile));
+
+        SinglePassResult result = service.convertInSinglePass(toolInfo, inputFile, destFolder, //
+                validationService.getInputSchema(toolInfo), validationService.getOutputSchema(toolInfo));
+        Assert.assertNotNull(result);
+        Assert.assertTrue(result.getInputErrors().isEmpty());
+        Assert.assertTrue(result.getOutputErrors().isEmpty());
+    }
+
+    @Test
+    public void gzip_junit_report_is_inflated_in_the_generated_report() throws Exception {
+        File destFolder = folder.newFolder();
+        File junitFile = new File(getClass().getResource("/org/jenkinsci/plugins/xunit/types/junit/testcase1/input.xml").toURI());
+
+        XUnitToolInfo toolInfo = mock(XUnitToolInfo.class);
+        when(toolInfo.getInputMetric()).thenReturn(new JUnitInputMetric());
+
+        XUnitConversionService service = new XUnitConversionService(mock(XUnitLog.class));
+        File reportFile = service.convert(toolInfo, gzip(junitFile), destFolder);
+        Assert.assertEquals(FileUtils.readFileToString(junitFile, "UTF-8"), FileUtils.readFileToString(reportFile, "UTF-8"));
+    }
+
+    @Test
+    public void stylesheet_fallback_warns_about_ignored_settings() throws Exception {
+        File destFolder = folder.newFolder();
+        File inputFile = folder.newFile("valgrind.xml");
+        FileUtils.write(inputFile, "<valgrind/>");
+
+        Valgrind valgrind = new Valgrind();
+        valgrind.setFingerprintFrames(4);
+        XUnitToolInfo toolInfo = mock(XUnitToolInfo.class);
+        when(toolInfo.getInputMetric()).thenReturn(valgrind);
+
+        XUnitLog log = mock(XUnitLog.class);
+        XUnitConversionService service = new XUnitConversionService(log);
+        try {
+            service.convert(toolInfo, inputFile, destFolder);
+        } catch (TransformerException e) {
+            // the stylesheet could also refuse the report
+        }
+        verify(log).warn(contains("fingerprintFrames=4"));
+    }
+
+    private File gzip(File file) throws Exception {
+        File gzipFile = folder.newFile(file.getName() + ".gz");
+        try (OutputStream os = new GZIPOutputStream(new FileOutputStream(gzipFile))) {
+            FileUtils.copyFile(file, os);
+        }
+        return gzipFile;
+    }
 }
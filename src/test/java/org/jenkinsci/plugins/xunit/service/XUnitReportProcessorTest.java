@@ -5,9 +5,25 @@ import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarOutputStream;
 import org.jenkinsci.lib.dtkit.descriptor.TestTypeDescriptor;
 import org.jenkinsci.lib.dtkit.model.InputMetricType;
 import org.jenkinsci.lib.dtkit.model.InputMetricXSL;
@@ -15,6 +31,10 @@ import org.jenkinsci.lib.dtkit.model.InputType;
 import org.jenkinsci.lib.dtkit.model.OutputMetric;
 import org.jenkinsci.lib.dtkit.type.TestType;
 import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
+import org.jenkinsci.plugins.xunit.util.ArchiveEntryFile;
+import org.hamcrest.CoreMatchers;
+import org.jenkinsci.plugins.xunit.util.CompressionUtil;
+import org.jenkinsci.plugins.xunit.util.DigestUtil;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -137,4 +157,170 @@ public class XUnitReportProcessorTest {
         xUnitReportProcessorService.findReports(xUnitToolInfoMock, folderRule.newFolder(), "*.xml");
     }
 
+    @Test
+    public void findReportsInsideZipArchive() throws Exception {
+        File results = folderRule.newFolder("results");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(new File(results, "reports.zip")))) {
+            for (String name : new String[] { "TEST-a.xml", "module/TEST-b.xml", "module/notes.txt" }) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(("<" + name.length() + "/>").getBytes("UTF-8"));
+                zip.closeEntry();
+            }
+        }
+        XUnitToolInfo xUnitToolInfoMock = mock(XUnitToolInfo.class);
+        when(xUnitToolInfoMock.getInputMetric()).thenReturn(new MyInputMetric());
+
+        List<String> xUnitFiles = xUnitReportProcessorService.findReports(xUnitToolInfoMock, results.getParentFile(), "results/*.zip!/**/*.xml");
+        Assert.assertEquals(Arrays.asList("results" + File.separator + "reports.zip!/TEST-a.xml", //
+                "results" + File.separator + "reports.zip!/module/TEST-b.xml"), xUnitFiles);
+
+        File report = xUnitReportProcessorService.getCurrentReport(results.getParentFile(), xUnitFiles.get(1));
+        Assert.assertTrue(report instanceof ArchiveEntryFile);
+        Assert.assertEquals(new File(results, "reports.zip").lastModified(), report.lastModified());
+        try (InputStream is = CompressionUtil.newInputStream(report)) {
+            Assert.assertEquals("<17/>", IOUtils.toString(is, "UTF-8"));
+        }
+        Assert.assertEquals(5, report.getCanonicalFile().length());
+    }
+
+    @Test
+    public void findReportsInsideTarArchiveAndFiles() throws Exception {
+        File root = folderRule.newFolder();
+        Assert.assertTrue(new File(root, "TEST-plain.xml").createNewFile());
+        try (TarOutputStream tar = new TarOutputStream(new GZIPOutputStream(new FileOutputStream(new File(root, "reports.tar.gz"))))) {
+            byte[] content = "<testsuite/>".getBytes("UTF-8");
+            TarEntry entry = new TarEntry("./TEST-c.xml");
+            entry.setSize(content.length);
+            tar.putNextEntry(entry);
+            tar.write(content);
+            tar.closeEntry();
+        }
+        XUnitToolInfo xUnitToolInfoMock = mock(XUnitToolInfo.class);
+        when(xUnitToolInfoMock.getInputMetric()).thenReturn(new MyInputMetric());
+
+        List<String> xUnitFiles = xUnitReportProcessorService.findReports(xUnitToolInfoMock, root, "*.xml, *.tar.gz!/TEST-*.xml");
+        Assert.assertEquals(Arrays.asList("TEST-plain.xml", "reports.tar.gz!/TEST-c.xml"), xUnitFiles);
+
+        File report = xUnitReportProcessorService.getCurrentReport(root, xUnitFiles.get(1));
+        try (InputStream is = CompressionUtil.newInputStream(report)) {
+            Assert.assertEquals("<testsuite/>", IOUtils.toString(is, "UTF-8"));
+        }
+    }
+
+    @Test
+    public void findReportsOfSharedWorkspaceWalk() throws Exception {
+        // files of the shared walk are not searched again
+        File root = folderRule.newFolder();
+        Assert.assertTrue(new File(root, "TEST-unlisted.xml").createNewFile());
+        XUnitToolInfo xUnitToolInfoMock = mock(XUnitToolInfo.class);
+        when(xUnitToolInfoMock.getInputMetric()).thenReturn(new MyInputMetric());
+        TreeMap<String, Long> workspaceFiles = new TreeMap<>();
+        for (String file : new String[] { "TEST-a.xml", "module" + File.separator + "TEST-b.xml", "notes.txt" }) {
+            workspaceFiles.put(file, 0L);
+        }
+        when(xUnitToolInfoMock.getWorkspaceFiles()).thenReturn(workspaceFiles);
+
+        List<String> xUnitFiles = xUnitReportProcessorService.findReports(xUnitToolInfoMock, root, "**/*.xml");
+        Assert.assertEquals(Arrays.asList("TEST-a.xml", "module" + File.separator + "TEST-b.xml"), xUnitFiles);
+    }
+
+    @Test
+    public void workspacePatternIncludesArchives() {
+        Assert.assertEquals("*.xml, results/*.zip", XUnitReportProcessorService.getWorkspacePattern("*.xml, results/*.zip!/**/*.xml"));
+    }
+
+    @Test
+    public void new_reports_pass_the_check() throws Exception {
+        File root = folderRule.newFolder();
+        long buildTime = System.currentTimeMillis();
+        XUnitToolInfo xUnitToolInfo = new XUnitToolInfo(new MyInputMetric(), "*.xml", false, true, false, true, buildTime, 3000, null);
+        xUnitToolInfo.setWorkspaceFiles(Collections.singletonMap("TEST-a.xml", buildTime - 1000));
+
+        xUnitReportProcessorService.checkIfFindsFilesNewFiles(xUnitToolInfo, Arrays.asList("TEST-a.xml"), root);
+    }
+
+    @Test
+    public void old_reports_are_summarized_in_one_message() throws Exception {
+        // the times of the walk are used, the files are not read again
+        File root = folderRule.newFolder();
+        long buildTime = System.currentTimeMillis();
+        XUnitToolInfo xUnitToolInfo = new XUnitToolInfo(new MyInputMetric(), "*.xml,*.zip!/*.xml", false, true, false, true, buildTime, 3000, null);
+        Map<String, Long> workspaceFiles = new TreeMap<>();
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String file = "TEST-" + i + ".xml";
+            workspaceFiles.put(file, buildTime - TimeUnit.HOURS.toMillis(i + 1));
+            files.add(file);
+        }
+        workspaceFiles.put("TEST-new.xml", buildTime);
+        files.add("TEST-new.xml");
+        workspaceFiles.put("reports.zip", buildTime - TimeUnit.MINUTES.toMillis(30));
+        files.add("reports.zip!/TEST-entry.xml");
+        xUnitToolInfo.setWorkspaceFiles(workspaceFiles);
+
+        try {
+            xUnitReportProcessorService.checkIfFindsFilesNewFiles(xUnitToolInfo, files, root);
+            Assert.fail("old reports are not detected");
+        } catch (NoNewTestReportException e) {
+            Assert.assertThat(e.getMessage(), CoreMatchers.containsString("13 of 14 test report(s) are older than this build, the most recent of them is 30 min old: "));
+            Assert.assertThat(e.getMessage(), CoreMatchers.containsString("TEST-9.xml and 3 more."));
+            Assert.assertThat(e.getMessage(), CoreMatchers.not(CoreMatchers.containsString("TEST-new.xml")));
+            Assert.assertEquals(1, e.getMessage().split("\\n").length);
+        }
+    }
+
+    @Test
+    public void findReportsOfManifest() throws Exception {
+        File root = folderRule.newFolder();
+        Assert.assertTrue(new File(root, "TEST-unlisted.xml").createNewFile());
+        File report = new File(root, "module/TEST-a.xml");
+        Assert.assertTrue(report.getParentFile().mkdirs());
+        FileUtils.writeStringToFile(report, "<testsuite/>", "UTF-8");
+        Assert.assertTrue(new File(root, "TEST-b.xml").createNewFile());
+        Assert.assertTrue(new File(root, "TEST-c.xml").createNewFile());
+        Assert.assertTrue(new File(root, "TEST-changed.xml").createNewFile());
+        FileUtils.writeLines(new File(root, "reports.txt"), "UTF-8", Arrays.asList( //
+                "# written by the test runner", //
+                "module/TEST-a.xml\t" + DigestUtil.digest("<testsuite/>"), //
+                "", //
+                "TEST-b.xml\t\ttestTool", //
+                "TEST-c.xml\t\totherTool", //
+                "TEST-changed.xml\t" + DigestUtil.digest("<testsuite/>"), //
+                "TEST-missing.xml"));
+        XUnitToolInfo xUnitToolInfoMock = mock(XUnitToolInfo.class);
+        when(xUnitToolInfoMock.getInputMetric()).thenReturn(new MyInputMetric());
+
+        List<String> xUnitFiles = xUnitReportProcessorService.findReports(xUnitToolInfoMock, root, "@reports.txt");
+        Assert.assertEquals(Arrays.asList("module/TEST-a.xml", "TEST-b.xml"), xUnitFiles);
+    }
+
+    @Test
+    public void reports_of_manifest_outside_the_workspace_are_skipped() throws Exception {
+        File outside = folderRule.newFolder();
+        Assert.assertTrue(new File(outside, "TEST-outside.xml").createNewFile());
+        File root = new File(outside, "workspace");
+        Assert.assertTrue(new File(root, "module").mkdirs());
+        Assert.assertTrue(new File(root, "TEST-a.xml").createNewFile());
+        Files.createSymbolicLink(new File(root, "link").toPath(), outside.toPath());
+        FileUtils.writeLines(new File(root, "reports.txt"), "UTF-8", Arrays.asList( //
+                "../TEST-outside.xml", //
+                "module/../../TEST-outside.xml", //
+                "link/TEST-outside.xml", //
+                new File(outside, "TEST-outside.xml").getAbsolutePath(), //
+                "module/../TEST-a.xml"));
+        XUnitToolInfo xUnitToolInfoMock = mock(XUnitToolInfo.class);
+        when(xUnitToolInfoMock.getInputMetric()).thenReturn(new MyInputMetric());
+
+        List<String> xUnitFiles = xUnitReportProcessorService.findReports(xUnitToolInfoMock, root, "@reports.txt");
+        Assert.assertEquals(Arrays.asList("TEST-a.xml"), xUnitFiles);
+    }
+
+    @Test(expected = NoTestFoundException.class)
+    public void verify_processor_throws_exception_if_manifest_is_missing() throws Exception {
+        XUnitToolInfo xUnitToolInfoMock = mock(XUnitToolInfo.class);
+        when(xUnitToolInfoMock.getInputMetric()).thenReturn(new MyInputMetric());
+
+        xUnitReportProcessorService.findReports(xUnitToolInfoMock, folderRule.newFolder(), "@reports.txt");
+    }
+
 }
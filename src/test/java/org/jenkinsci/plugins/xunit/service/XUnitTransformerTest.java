@@ -4,16 +4,25 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarOutputStream;
+import org.hamcrest.CoreMatchers;
 import org.jenkinsci.lib.dtkit.model.InputMetricType;
 import org.jenkinsci.lib.dtkit.model.InputMetricXSL;
 import org.jenkinsci.lib.dtkit.model.InputType;
 import org.jenkinsci.lib.dtkit.model.OutputMetric;
 import org.jenkinsci.plugins.xunit.types.model.JUnitModel;
+import org.jenkinsci.plugins.xunit.util.ArchiveEntryFile;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -22,7 +31,9 @@ import org.junit.runner.RunWith;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -488,4 +499,137 @@ public class XUnitTransformerTest {
         verify(xUnitValidationServiceMock).validateOutputFile(eq(xUnitToolInfoMock), eq(myInputFile2), any(File.class));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void parallel_conversion_counts_the_same_processed_files() throws Exception {
+        File ws = folderRule.newFolder();
+        List<String> resultFiles = Arrays.asList("a.txt", "b.txt", "c.txt", "d.txt");
+        for (String fileName : resultFiles) {
+            if (!"c.txt".equals(fileName)) {
+                FileUtils.write(new File(ws, fileName), "bidon");
+            }
+        }
+
+        when(xUnitToolInfoMock.getWorkerCount()).thenReturn(3);
+        when(xUnitReportProcessorServiceMock.findReports(any(XUnitToolInfo.class), any(File.class), (String) any())).thenReturn(resultFiles);
+        when(xUnitReportProcessorServiceMock.isStopProcessingIfError(any(XUnitToolInfo.class))).thenReturn(false);
+        when(xUnitReportProcessorServiceMock.getCurrentReport(any(File.class), anyString())).thenCallRealMethod();
+        when(xUnitValidationServiceMock.checkFileIsNotEmpty(any(File.class))).thenCallRealMethod();
+        when(xUnitValidationServiceMock.validateInputFile(any(XUnitToolInfo.class), any(File.class))).thenReturn(true);
+        when(xUnitConversionServiceMock.convert(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenReturn(new File(ws, "output"));
+        when(xUnitValidationServiceMock.validateOutputFile(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenReturn(true);
+
+        Assert.assertEquals(Integer.valueOf(3), xUnitTransformer.invoke(ws, mock(VirtualChannel.class)));
+
+        verify(xUnitConversionServiceMock, times(3)).convert(eq(xUnitToolInfoMock), any(File.class), any(File.class));
+        verify(xUnitLogMock).warn(startsWith("The result file '" + new File(ws, "c.txt").getPath() + "' for the metric 'testTool' is empty."));
+    }
+
+    @Test(expected = EmptyReportFileException.class)
+    public void parallel_conversion_stops_at_first_error_when_stop_build_option_is_true() throws Exception {
+        File ws = folderRule.newFolder();
+        FileUtils.write(new File(ws, "a.txt"), "bidon");
+        new File(ws, "b.txt").createNewFile();
+        FileUtils.write(new File(ws, "c.txt"), "bidon");
+        List<String> resultFiles = Arrays.asList("a.txt", "b.txt", "c.txt");
+
+        when(xUnitToolInfoMock.getWorkerCount()).thenReturn(2);
+        when(xUnitReportProcessorServiceMock.findReports(any(XUnitToolInfo.class), any(File.class), (String) any())).thenReturn(resultFiles);
+        when(xUnitReportProcessorServiceMock.isStopProcessingIfError(any(XUnitToolInfo.class))).thenReturn(true);
+        when(xUnitReportProcessorServiceMock.getCurrentReport(any(File.class), anyString())).thenCallRealMethod();
+        when(xUnitValidationServiceMock.checkFileIsNotEmpty(any(File.class))).thenCallRealMethod();
+        when(xUnitValidationServiceMock.validateInputFile(any(XUnitToolInfo.class), any(File.class))).thenReturn(true);
+        when(xUnitConversionServiceMock.convert(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenReturn(new File(ws, "output"));
+        when(xUnitValidationServiceMock.validateOutputFile(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenReturn(true);
+
+        try {
+            xUnitTransformer.invoke(ws, mock(VirtualChannel.class));
+        } catch (EmptyReportFileException e) {
+            Assert.assertThat(e.getMessage(), CoreMatchers.containsString("b.txt"));
+            verify(xUnitConversionServiceMock).convert(eq(xUnitToolInfoMock), eq(new File(ws, "a.txt")), any(File.class));
+            verify(xUnitConversionServiceMock, never()).convert(eq(xUnitToolInfoMock), eq(new File(ws, "b.txt")), any(File.class));
+            throw e;
+        }
+    }
+
+    @Test
+    public void chunks_of_reports_with_the_same_name_are_all_converted() throws Exception {
+        File ws = folderRule.newFolder();
+        List<String> resultFiles = Arrays.asList("a/TestResult.xml", "b/TestResult.xml");
+        for (String resultFile : resultFiles) {
+            FileUtils.write(new File(ws, resultFile), resultFile.substring(0, 1), "UTF-8");
+        }
+        when(xUnitReportProcessorServiceMock.findReports(any(XUnitToolInfo.class), any(File.class), (String) any())).thenReturn(resultFiles);
+        when(xUnitReportProcessorServiceMock.getCurrentReport(any(File.class), anyString())).thenCallRealMethod();
+        when(xUnitValidationServiceMock.checkFileIsNotEmpty(any(File.class))).thenCallRealMethod();
+        when(xUnitValidationServiceMock.validateInputFile(any(XUnitToolInfo.class), any(File.class))).thenReturn(true);
+        when(xUnitValidationServiceMock.validateOutputFile(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenReturn(true);
+        // each report is split in two chunks named as the splitter does
+        when(xUnitConversionServiceMock.split(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenAnswer(new Answer<List<File>>() {
+            @Override
+            public List<File> answer(InvocationOnMock invocation) throws Throwable {
+                File inputFile = invocation.getArgument(1);
+                File chunkDirectory = invocation.getArgument(2);
+                String content = FileUtils.readFileToString(inputFile, "UTF-8");
+                List<File> chunks = new ArrayList<>();
+                for (int i = 1; i <= 2; i++) {
+                    File chunk = new File(chunkDirectory, String.format("%04d-%s", i, inputFile.getName()));
+                    FileUtils.write(chunk, content + i, "UTF-8");
+                    chunks.add(chunk);
+                }
+                return chunks;
+            }
+        });
+        final List<String> converted = new ArrayList<>();
+        when(xUnitConversionServiceMock.convert(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenAnswer(new Answer<File>() {
+            @Override
+            public File answer(InvocationOnMock invocation) throws Throwable {
+                File inputFile = invocation.getArgument(1);
+                converted.add(FileUtils.readFileToString(inputFile, "UTF-8"));
+                return inputFile;
+            }
+        });
+
+        int processedFiles = xUnitTransformer.invoke(ws, mock(VirtualChannel.class));
+
+        Assert.assertEquals(Arrays.asList("a1", "a2", "b1", "b2"), converted);
+        Assert.assertEquals(2, processedFiles);
+    }
+
+    @Test
+    public void tar_entries_are_converted_from_the_archive() throws Exception {
+        final File ws = folderRule.newFolder();
+        File archive = new File(ws, "reports.tar");
+        try (TarOutputStream tar = new TarOutputStream(new FileOutputStream(archive))) {
+            for (String name : new String[] { "TEST-a.xml", "TEST-b.xml" }) {
+                TarEntry entry = new TarEntry(name);
+                entry.setSize(1);
+                tar.putNextEntry(entry);
+                tar.write(name.charAt(5));
+                tar.closeEntry();
+            }
+        }
+        List<String> resultFiles = Arrays.asList("reports.tar!/TEST-a.xml", "reports.tar!/TEST-b.xml");
+        when(xUnitReportProcessorServiceMock.findReports(any(XUnitToolInfo.class), any(File.class), (String) any())).thenReturn(resultFiles);
+        when(xUnitReportProcessorServiceMock.getCurrentReport(any(File.class), anyString())).thenCallRealMethod();
+        when(xUnitValidationServiceMock.checkFileIsNotEmpty(any(File.class))).thenCallRealMethod();
+        when(xUnitValidationServiceMock.validateInputFile(any(XUnitToolInfo.class), any(File.class))).thenReturn(true);
+        when(xUnitValidationServiceMock.validateOutputFile(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenReturn(true);
+        final List<String> converted = new ArrayList<>();
+        when(xUnitConversionServiceMock.convert(any(XUnitToolInfo.class), any(File.class), any(File.class))).thenAnswer(new Answer<File>() {
+            @Override
+            public File answer(InvocationOnMock invocation) throws Throwable {
+                File inputFile = invocation.getArgument(1);
+                try (InputStream is = ArchiveEntryFile.openStream(inputFile)) {
+                    converted.add(inputFile.getPath().substring(ws.getPath().length() + 1) + '=' + IOUtils.toString(is, "UTF-8"));
+                }
+                return inputFile;
+            }
+        });
+
+        int processedFiles = xUnitTransformer.invoke(ws, mock(VirtualChannel.class));
+
+        Assert.assertEquals(Arrays.asList("reports.tar!/TEST-a.xml=a", "reports.tar!/TEST-b.xml=b"), converted);
+        Assert.assertEquals(2, processedFiles);
+    }
+
+}
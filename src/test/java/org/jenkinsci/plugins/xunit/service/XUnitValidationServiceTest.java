@@ -1,10 +1,13 @@
 package org.jenkinsci.plugins.xunit.service;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.FileOutputStream;
 
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.xunit.types.NUnit;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -49,6 +52,30 @@ public class XUnitValidationServiceTest {
         Assert.assertTrue("CheckFileIsNotEmpty returned false.", xUnitValidationService.checkFileIsNotEmpty(testFile));
     }
 
+    @Test
+    public void ValidateInputFile_GivenValidReport_UsesCachedSchema() throws Exception {
+        XUnitToolInfo toolInfo = mock(XUnitToolInfo.class);
+        when(toolInfo.getInputMetric()).thenReturn(new NUnit());
+        File report = new File(getClass().getResource("/org/jenkinsci/plugins/xunit/types/nunit/testcase1/input.xml").toURI());
+
+        Assert.assertTrue(xUnitValidationService.validateInputFile(toolInfo, report));
+        Assert.assertTrue(xUnitValidationService.validateInputFile(toolInfo, report));
+
+        CacheStatistics statistics = xUnitValidationService.getSchemaStatistics();
+        Assert.assertEquals(2, statistics.getHits() + statistics.getMisses());
+        Assert.assertTrue("The schema was compiled twice.", statistics.getHits() >= 1);
+    }
+
+    @Test
+    public void ValidateInputFile_GivenInvalidReport_ReturnsFalse() throws Exception {
+        XUnitToolInfo toolInfo = mock(XUnitToolInfo.class);
+        when(toolInfo.getInputMetric()).thenReturn(new NUnit());
+        File report = new File(folderRule.newFolder(), "invalid.xml");
+        FileUtils.write(report, "<test-results><unexpected/></test-results>");
+
+        Assert.assertFalse(xUnitValidationService.validateInputFile(toolInfo, report));
+    }
+
     /**
      * Helper method that will create a file with some text in it.
      *
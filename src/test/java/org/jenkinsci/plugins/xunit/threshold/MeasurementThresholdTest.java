@@ -0,0 +1,146 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2018, Nikolas Falco
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package org.jenkinsci.plugins.xunit.threshold;
+
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsAction;
+import org.jenkinsci.plugins.xunit.service.XUnitLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.tasks.junit.TestResult;
+
+public class MeasurementThresholdTest {
+
+    @Test
+    public void mark_build_as_success_without_measurements() {
+        XUnitThreshold threshold = newThreshold();
+        threshold.setFailureThreshold("0");
+
+        Result result = threshold.getResultThresholdPercent(mock(XUnitLog.class), mock(Run.class), new TestResult(), null);
+        Assert.assertEquals(Result.SUCCESS, result);
+    }
+
+    @Test
+    public void mark_build_as_unstable_when_measurement_regresses_from_previous_build() {
+        XUnitThreshold threshold = newThreshold();
+        threshold.setUnstableNewThreshold("10");
+
+        Run<?, ?> previous = newBuild(null, 100);
+        Run<?, ?> build = newBuild(previous, 115);
+
+        Result result = threshold.getResultThresholdPercent(mock(XUnitLog.class), build, new TestResult(), null);
+        Assert.assertEquals(Result.UNSTABLE, result);
+    }
+
+    @Test
+    public void mark_build_as_success_when_regression_is_within_threshold() {
+        XUnitThreshold threshold = newThreshold();
+        threshold.setUnstableNewThreshold("10");
+
+        Run<?, ?> previous = newBuild(null, 100);
+        Run<?, ?> build = newBuild(previous, 105);
+
+        Result result = threshold.getResultThresholdNumber(mock(XUnitLog.class), build, new TestResult(), null);
+        Assert.assertEquals(Result.SUCCESS, result);
+    }
+
+    @Test
+    public void mark_build_as_failed_when_measurement_regresses_from_best_value() {
+        XUnitThreshold threshold = newThreshold();
+        threshold.setFailureThreshold("20");
+        threshold.setUnstableNewThreshold("10");
+
+        // slow drift, each build is within the new threshold
+        Run<?, ?> oldest = newBuild(null, 100);
+        Run<?, ?> previous = newBuild(oldest, 115);
+        Run<?, ?> build = newBuild(previous, 125);
+
+        Result result = threshold.getResultThresholdPercent(mock(XUnitLog.class), build, new TestResult(), null);
+        Assert.assertEquals(Result.FAILURE, result);
+    }
+
+    @Test
+    public void mark_build_as_unstable_when_throughput_decreases() {
+        XUnitThreshold threshold = newThreshold();
+        threshold.setUnstableNewThreshold("10");
+
+        Run<?, ?> previous = newBuild(null, "FramesPerSecond [1080p]", 100);
+        Run<?, ?> build = newBuild(previous, "FramesPerSecond [1080p]", 85);
+
+        Result result = threshold.getResultThresholdPercent(mock(XUnitLog.class), build, new TestResult(), null);
+        Assert.assertEquals(Result.UNSTABLE, result);
+    }
+
+    @Test
+    public void ignore_measurements_without_known_direction() {
+        XUnitThreshold threshold = newThreshold();
+        threshold.setUnstableNewThreshold("10");
+
+        Run<?, ?> previous = newBuild(null, "Processors", 4);
+        Run<?, ?> build = newBuild(previous, "Processors", 8);
+
+        Result result = threshold.getResultThresholdPercent(mock(XUnitLog.class), build, new TestResult(), null);
+        Assert.assertEquals(Result.SUCCESS, result);
+    }
+
+    @Test
+    public void check_configured_measurements() {
+        MeasurementThreshold threshold = (MeasurementThreshold) newThreshold();
+        threshold.setUnstableNewThreshold("10");
+        threshold.setLowerIsBetter("Peak Memory, Processors");
+        threshold.setHigherIsBetter("Processors");
+
+        Run<?, ?> previous = newBuild(null, "Processors", 8);
+        Run<?, ?> build = newBuild(previous, "Processors", 4);
+
+        Result result = threshold.getResultThresholdPercent(mock(XUnitLog.class), build, new TestResult(), null);
+        Assert.assertEquals(Result.UNSTABLE, result);
+    }
+
+    private XUnitThreshold newThreshold() {
+        XUnitThreshold threshold = spy(new MeasurementThreshold());
+        doReturn(new MeasurementThresholdDescriptor()).when(threshold).getDescriptor();
+        return threshold;
+    }
+
+    private Run<?, ?> newBuild(Run<?, ?> previous, double value) {
+        return newBuild(previous, "WalltimeMilliseconds", value);
+    }
+
+    private Run<?, ?> newBuild(Run<?, ?> previous, String name, double value) {
+        Measurement measurement = new Measurement("tst_QStringBenchmark", "append", name, value);
+        Run<?, ?> build = mock(Run.class);
+        doReturn(new MeasurementsAction(Arrays.asList(measurement))).when(build).getAction(MeasurementsAction.class);
+        doReturn(previous).when(build).getPreviousBuild();
+        return build;
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AbstractStreamingConverterTest {
+
+    private static class CountingConverter extends AbstractStreamingConverter {
+        private final int tests;
+
+        CountingConverter(int tests) {
+            this.tests = tests;
+        }
+
+        @Override
+        protected boolean hasPlaceholders() {
+            return true;
+        }
+
+        @Override
+        protected void convert(@Nonnull File inputFile, @Nonnull JUnitXMLWriter writer) throws IOException, XMLStreamException {
+            writer.startElement("testsuites");
+            writer.startElement("testsuite");
+            // far from the start of the report
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                name.append("suite");
+            }
+            writer.attribute("name", name.toString());
+            writer.attribute("tests", placeholder("tests"));
+            for (int i = 0; i < tests; i++) {
+                writer.startElement("testcase");
+                writer.attribute("name", "test" + i);
+                writer.endElement();
+            }
+            writer.endElement();
+            writer.endElement();
+            setPlaceholderValue("tests", String.valueOf(tests));
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void placeholders_are_written_anywhere_in_the_report() throws Exception {
+        File junitFile = new File(folder.getRoot(), "TEST-suite.xml");
+
+        new CountingConverter(3).convert(folder.newFile("input.xml"), junitFile);
+
+        String junit = FileUtils.readFileToString(junitFile, "UTF-8");
+        Assert.assertTrue(junit.contains(" tests=\"3\""));
+        Assert.assertEquals(3, junit.split("<testcase ").length - 1);
+    }
+
+}
@@ -63,6 +63,11 @@ public abstract class AbstractTest {
         convertAndValidate(metricClass, input, expectedResult);
     }
 
+//    @Test
+    public void verifyStreaming() throws Exception {
+        convertStreamingAndValidate(metricClass, input, expectedResult);
+    }
+
     private String readXmlAsString(File input)
             throws IOException {
         String xmlString = "";
@@ -117,6 +122,32 @@ public abstract class AbstractTest {
         Assert.assertTrue(outputResult);
     }
 
+    protected void convertStreamingAndValidate(Class<? extends InputMetric> metricClass, String inputXMLPath, String expectedResultPath) throws Exception {
+        InputMetric inputMetric = InputMetricFactory.getInstance(metricClass);
+        Assert.assertTrue(inputMetric instanceof StreamingConverterProvider);
+        StreamingConverter converter = ((StreamingConverterProvider) inputMetric).getStreamingConverter();
+        Assert.assertNotNull(converter);
+
+        File outputXMLFile = file.newFile();
+        File inputXMLFile = new File(this.getClass().getResource(inputXMLPath).toURI());
+
+        converter.convert(inputXMLFile, outputXMLFile);
+        Diff myDiff = new Diff(readXmlAsString(outputXMLFile), readXmlAsString(new File(this.getClass().getResource(expectedResultPath).toURI())));
+        try {
+            Assert.assertTrue("Streaming conversion did not work " + myDiff, myDiff.similar());
+        } catch (Error e) {
+            System.err.println(readXmlAsString(outputXMLFile));
+            throw e;
+        }
+
+        //The generated output file must be valid
+        boolean outputResult = inputMetric.validateOutputFile(outputXMLFile);
+        for (ValidationError validatorError : inputMetric.getOutputValidationErrors()) {
+            System.out.println(validatorError);
+        }
+        Assert.assertTrue(outputResult);
+    }
+
     protected void convertAndValidate(String inputXMLPath, String inputXSLPath, String expectedResultPath) throws Exception {
 
         CustomInputMetric customInputMetric = CustomInputMetric.class.newInstance();
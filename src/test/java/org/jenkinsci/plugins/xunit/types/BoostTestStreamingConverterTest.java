@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.xunit.service.CacheStatistics;
+import org.jenkinsci.plugins.xunit.service.XSLTemplatesCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Verifies that the streaming converter writes the same bytes of the
+ * stylesheet, also when the log is followed by the report in the same file.
+ */
+@RunWith(Parameterized.class)
+public class BoostTestStreamingConverterTest {
+
+    private static final String TEST_LOG = "testlog.xml";
+    private static final String TEST_LOG_AND_REPORT = "testlog-testresult.xml";
+
+    @Parameters(name = "{0}/{1}")
+    public static Collection<Object[]> data() {
+        Collection<Object[]> data = new ArrayList<>();
+        for (String folder : new String[] { "autotest", "autotest-multiple", "testcase1", "testcase2", "testcase3" }) {
+            data.add(new Object[] { folder, TEST_LOG });
+            data.add(new Object[] { folder, TEST_LOG_AND_REPORT });
+        }
+        for (int testNumber = 4; testNumber <= 19; testNumber++) {
+            data.add(new Object[] { "testcase" + testNumber, TEST_LOG });
+        }
+        return data;
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final String testFolder;
+    private final String inputName;
+
+    public BoostTestStreamingConverterTest(String testFolder, String inputName) {
+        this.testFolder = testFolder;
+        this.inputName = inputName;
+    }
+
+    @Test
+    public void same_bytes_of_the_stylesheet() throws Exception {
+        File input = new File(getClass().getResource("boosttest/" + testFolder + "/" + inputName).toURI());
+
+        File xslInput = input;
+        if (TEST_LOG_AND_REPORT.equals(inputName)) {
+            // the stylesheet can not parse the report that follows the log
+            String content = FileUtils.readFileToString(input, "UTF-8");
+            xslInput = folder.newFile();
+            FileUtils.writeStringToFile(xslInput, content.substring(0, content.indexOf("</TestLog>") + "</TestLog>".length()), "UTF-8");
+        }
+        File xslOutput = folder.newFile();
+        transform(xslInput, xslOutput);
+
+        File streamingOutput = folder.newFile();
+        new BoostTestStreamingConverter().convert(input, streamingOutput);
+
+        Assert.assertEquals(FileUtils.readFileToString(xslOutput, "UTF-8"), FileUtils.readFileToString(streamingOutput, "UTF-8"));
+    }
+
+    private static void transform(File input, File output) throws Exception {
+        BoostTest inputMetric = new BoostTest();
+        Templates templates = XSLTemplatesCache.getInstance().getTemplates(inputMetric.getXslResourceClass(), inputMetric.getXslName(), new CacheStatistics("test"));
+        // same setup of XUnitConversionService
+        Transformer transformer = templates.newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new StreamSource(input), new StreamResult(output));
+    }
+
+}
@@ -23,6 +23,10 @@ THE SOFTWARE.
 */
 package org.jenkinsci.plugins.xunit.types;
 
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
 import org.junit.Test;
 import org.jvnet.hudson.test.Issue;
 
@@ -133,4 +137,31 @@ public class BoostTestTest extends AbstractTest {
     public void testTestCase19() throws Exception {
         convertAndValidate(BoostTest.class, "boosttest/testcase19/testlog.xml", "boosttest/testcase19/junit-result.xml");
     }
+
+    @Test
+    public void testStreamingAutoTestMultiple() throws Exception {
+        convertStreamingAndValidate(BoostTest.class, "boosttest/autotest-multiple/testlog.xml", "boosttest/autotest-multiple/junit-result.xml");
+    }
+
+    @Test
+    public void testStreamingLogFollowedByReport() throws Exception {
+        convertStreamingAndValidate(BoostTest.class, "boosttest/autotest-multiple/testlog-testresult.xml", "boosttest/autotest-multiple/junit-result.xml");
+    }
+
+    @Test
+    public void testStreamingMicrosecondTime() throws Exception {
+        File input = file.newFile();
+        FileUtils.writeStringToFile(input, "<TestLog><TestSuite name=\"suite\">" //
+                + "<TestCase name=\"fast\"><TestingTime>1</TestingTime></TestCase>" //
+                + "<TestCase name=\"slow\"><TestingTime>123456789</TestingTime></TestCase>" //
+                + "</TestSuite></TestLog>", "UTF-8");
+        File output = file.newFile();
+
+        new BoostTestStreamingConverter().convert(input, output);
+
+        String report = FileUtils.readFileToString(output, "UTF-8");
+        Assert.assertTrue(report, report.contains("tests=\"2\" errors=\"0\" failures=\"0\""));
+        Assert.assertTrue(report, report.contains("name=\"fast\" time=\"0.000001\""));
+        Assert.assertTrue(report, report.contains("name=\"slow\" time=\"123.456789\""));
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.util.List;
+
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+import org.jenkinsci.plugins.xunit.measurement.MeasurementsFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CTestStreamingConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void numeric_measurements_are_recorded() throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("ctest", 3)).toURI());
+        File junitFile = new File(folder.getRoot(), "TEST-ctest.xml");
+
+        new CTestStreamingConverter().convert(input, junitFile);
+
+        File measurementsFile = MeasurementsFile.getFile(junitFile);
+        Assert.assertTrue(measurementsFile.isFile());
+        List<Measurement> measurements = MeasurementsFile.read(measurementsFile);
+        Assert.assertEquals(3, measurements.size());
+
+        Measurement executionTime = measurements.get(0);
+        Assert.assertEquals("projectroot.libs.QVtkVisualization.tests", executionTime.getClassName());
+        Assert.assertEquals("LoggingSinkTests.loggingSinkTest_CallLoggingCallback", executionTime.getTestName());
+        Assert.assertEquals("Execution Time", executionTime.getName());
+        Assert.assertEquals(0.0074303, executionTime.getValue(), 0);
+
+        Measurement processors = measurements.get(2);
+        Assert.assertEquals("simulator.SimulatorTest.readEventFile_mediaDetectedEvent_oneSignalEmitted", processors.getTestName());
+        Assert.assertEquals("Processors", processors.getName());
+        Assert.assertEquals(1, processors.getValue(), 0);
+    }
+
+    @Test
+    public void text_measurements_are_not_recorded() throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("ctest", 2)).toURI());
+        File junitFile = new File(folder.getRoot(), "TEST-ctest.xml");
+
+        new CTestStreamingConverter().convert(input, junitFile);
+
+        Assert.assertFalse(MeasurementsFile.getFile(junitFile).exists());
+    }
+
+}
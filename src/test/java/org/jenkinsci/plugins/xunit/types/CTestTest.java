@@ -52,4 +52,10 @@ public class CTestTest extends AbstractTest {
         super.verifyXSLT();
     }
 
+    @Override
+    @Test
+    public void verifyStreaming() throws Exception {
+        super.verifyStreaming();
+    }
+
 }
\ No newline at end of file
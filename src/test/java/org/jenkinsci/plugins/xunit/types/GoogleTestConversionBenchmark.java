@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Compares the throughput of the GoogleTest stylesheet with the streaming
+ * converter on a set of generated shard reports.
+ * <p>
+ * It is not a unit test, run it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.jenkinsci.plugins.xunit.types.GoogleTestConversionBenchmark}
+ * optionally passing the number of shards, tests per shard and rounds.
+ */
+public final class GoogleTestConversionBenchmark {
+
+    private GoogleTestConversionBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int shards = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int tests = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        File directory = File.createTempFile("googletest", "benchmark");
+        FileUtils.forceDelete(directory);
+        FileUtils.forceMkdir(directory);
+        try {
+            File[] reports = new File[shards];
+            long size = 0;
+            for (int i = 0; i < shards; i++) {
+                reports[i] = createShard(directory, i, tests);
+                size += reports[i].length();
+            }
+            File output = new File(directory, "junit.xml");
+            System.out.println(shards + " shards, " + (size / 1024) + " KB");
+
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                for (File report : reports) {
+                    GoogleTestStreamingConverterTest.transform(report, output);
+                }
+                long xsl = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                GoogleTestStreamingConverter converter = new GoogleTestStreamingConverter();
+                for (File report : reports) {
+                    converter.convert(report, output);
+                }
+                long streaming = System.nanoTime() - start;
+
+                System.out.println("round " + round + ": stylesheet " + throughput(size, xsl) + " MB/s, streaming " + throughput(size, streaming) + " MB/s");
+            }
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    private static String throughput(long size, long nanos) {
+        return String.format("%.1f", size / 1048576d / (nanos / 1000000000d));
+    }
+
+    private static File createShard(File directory, int shard, int tests) throws Exception {
+        File report = new File(directory, "shard-" + shard + ".xml");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(report), "UTF-8")) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<testsuites tests=\"" + tests + "\" failures=\"" + (tests / 10) + "\" disabled=\"0\" errors=\"0\" time=\"1.5\" name=\"AllTests\">\n");
+            writer.write("  <testsuite name=\"Shard" + shard + "\" tests=\"" + tests + "\" failures=\"" + (tests / 10) + "\" disabled=\"0\" errors=\"0\" time=\"1.5\">\n");
+            for (int i = 0; i < tests; i++) {
+                writer.write("    <testcase name=\"Test" + i + "\" status=\"run\" time=\"0.003\" classname=\"Shard" + shard + "\"");
+                if (i % 10 == 0) {
+                    writer.write(">\n      <failure message=\"Value of: actual\nExpected: expected\" type=\"\"><![CDATA[");
+                    for (int line = 0; line < 50; line++) {
+                        writer.write("test.cc:" + line + "\nValue of: actual\n  Actual: false\nExpected: true\n");
+                    }
+                    writer.write("]]></failure>\n    </testcase>\n");
+                } else {
+                    writer.write("/>\n");
+                }
+            }
+            writer.write("  </testsuite>\n</testsuites>\n");
+        }
+        return report;
+    }
+
+}
@@ -52,4 +52,10 @@ public class GoogleTestTest extends AbstractTest {
         super.verifyXSLT();
     }
 
-}
\ No newline at end of file
+    @Override
+    @Test
+    public void verifyStreaming() throws Exception {
+        super.verifyStreaming();
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JUnitInputMetricTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void user_report_is_not_modified() throws Exception {
+        File input = folder.newFile("TEST-report.xml");
+        FileUtils.copyFile(new File(getClass().getResource(AbstractTest.resolveInput("junit", 1)).toURI()), input);
+        long lastModified = input.lastModified() - 3600 * 1000;
+        Assert.assertTrue(input.setLastModified(lastModified));
+        String content = FileUtils.readFileToString(input, "UTF-8");
+
+        File output = new File(folder.newFolder(), "TEST-converted.xml");
+        new JUnitInputMetric().convert(input, output);
+
+        Assert.assertEquals(content, FileUtils.readFileToString(output, "UTF-8"));
+        Assert.assertEquals(content, FileUtils.readFileToString(input, "UTF-8"));
+        Assert.assertEquals(lastModified, input.lastModified());
+
+        // removing the generated report leaves the user report
+        Assert.assertTrue(output.delete());
+        Assert.assertTrue(input.isFile());
+    }
+
+    @Test
+    public void report_is_copied_when_passthrough_is_disabled() throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("junit", 1)).toURI());
+        File output = new File(folder.getRoot(), "TEST-converted.xml");
+
+        System.setProperty(JUnitInputMetric.PASSTHROUGH_PROPERTY, "false");
+        try {
+            new JUnitInputMetric().convert(input, output);
+        } finally {
+            System.clearProperty(JUnitInputMetric.PASSTHROUGH_PROPERTY);
+        }
+
+        Assert.assertEquals(FileUtils.readFileToString(input, "UTF-8"), FileUtils.readFileToString(output, "UTF-8"));
+        // copies are touched to be seen as new reports
+        Assert.assertTrue(output.lastModified() >= input.lastModified());
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.lib.dtkit.model.InputMetric;
+import org.jenkinsci.lib.dtkit.model.InputMetricFactory;
+
+/**
+ * Measures how the MSTest stylesheet conversion time grows with the number
+ * of results, a linear join of the results with their test definitions takes
+ * about four times longer for four times the results.
+ * <p>
+ * It is not a unit test, run it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.jenkinsci.plugins.xunit.types.MSTestConversionBenchmark}
+ * optionally passing the number of results of the small report and rounds.
+ */
+public final class MSTestConversionBenchmark {
+
+    private MSTestConversionBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File directory = File.createTempFile("mstest", "benchmark");
+        FileUtils.forceDelete(directory);
+        FileUtils.forceMkdir(directory);
+        try {
+            InputMetric inputMetric = InputMetricFactory.getInstance(MSTest.class);
+            File small = createReport(directory, tests);
+            File large = createReport(directory, tests * 4);
+            File output = new File(directory, "junit.xml");
+
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                inputMetric.convert(small, output);
+                long smallTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                inputMetric.convert(large, output);
+                long largeTime = System.nanoTime() - start;
+
+                System.out.println("round " + round + ": " + tests + " results " + (smallTime / 1000000) + " ms, " + (tests * 4) + " results "
+                        + (largeTime / 1000000) + " ms, ratio " + String.format("%.1f", (double) largeTime / smallTime));
+            }
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    /* package */ static File createReport(File directory, int tests) throws Exception {
+        File report = new File(directory, "mstest-" + tests + ".trx");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(report), "UTF-8")) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<TestRun id=\"run\" xmlns=\"http://microsoft.com/schemas/VisualStudio/TeamTest/2010\">\n");
+            writer.write("<ResultSummary outcome=\"Completed\"><Counters total=\"" + tests + "\" executed=\"" + tests + "\" passed=\"" + tests
+                    + "\" error=\"0\" failed=\"0\" timeout=\"0\" inconclusive=\"0\"/></ResultSummary>\n");
+            writer.write("<Times start=\"2018-01-01T10:00:00.000+01:00\" finish=\"2018-01-01T10:01:00.000+01:00\"/>\n");
+            writer.write("<TestDefinitions>\n");
+            for (int i = 0; i < tests; i++) {
+                writer.write("<UnitTest name=\"test" + i + "\" id=\"id-" + i + "\"><TestMethod className=\"Acme.Test" + (i % 100)
+                        + ", Acme\" name=\"test" + i + "\"/></UnitTest>\n");
+            }
+            writer.write("</TestDefinitions>\n<Results>\n");
+            for (int i = 0; i < tests; i++) {
+                writer.write("<UnitTestResult testId=\"id-" + i + "\" testName=\"test" + i + "\" duration=\"00:00:00.0010000\" outcome=\"Passed\"/>\n");
+            }
+            writer.write("</Results>\n</TestRun>\n");
+        }
+        return report;
+    }
+
+}
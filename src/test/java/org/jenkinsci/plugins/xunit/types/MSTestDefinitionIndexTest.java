@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Templates;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.jenkinsci.lib.dtkit.model.InputMetric;
+import org.jenkinsci.lib.dtkit.model.InputMetricFactory;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import net.sf.saxon.TransformerFactoryImpl;
+
+/**
+ * Verifies that results are joined with their test definitions through an
+ * index and that the output is the same of the stylesheet that searched the
+ * definitions in the whole report, the conversion time is measured by
+ * {@link MSTestConversionBenchmark}.
+ */
+public class MSTestDefinitionIndexTest {
+
+    private static final String XSL_NAMESPACE = "http://www.w3.org/1999/XSL/Transform";
+    private static final String SCAN_XSL = "mstest/mstest-1.0-to-junit-1.0-scan.xsl";
+    private static final int TESTS = 200;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test_definitions_are_indexed_by_id() throws Exception {
+        Document stylesheet = readStylesheet();
+
+        NodeList keys = stylesheet.getElementsByTagNameNS(XSL_NAMESPACE, "key");
+        Assert.assertEquals(2, keys.getLength());
+        for (int i = 0; i < keys.getLength(); i++) {
+            Element key = (Element) keys.item(i);
+            Assert.assertEquals("@id", key.getAttribute("use"));
+        }
+        Assert.assertEquals("unit-test", ((Element) keys.item(0)).getAttribute("name"));
+        Assert.assertEquals("web-test", ((Element) keys.item(1)).getAttribute("name"));
+    }
+
+    @Test
+    public void results_look_up_their_definition_through_the_index() throws Exception {
+        Document stylesheet = readStylesheet();
+
+        boolean lookup = false;
+        NodeList loops = stylesheet.getElementsByTagNameNS(XSL_NAMESPACE, "for-each");
+        for (int i = 0; i < loops.getLength(); i++) {
+            String select = ((Element) loops.item(i)).getAttribute("select");
+            Assert.assertFalse("the definitions are searched in the whole report: " + select, select.contains("[@id=$testId]"));
+            lookup |= select.contains("key('unit-test', $testId)") && select.contains("key('web-test', $testId)");
+        }
+        Assert.assertTrue(lookup);
+    }
+
+    @Test
+    public void each_result_gets_the_class_of_its_definition() throws Exception {
+        InputMetric inputMetric = InputMetricFactory.getInstance(MSTest.class);
+        File output = folder.newFile("junit.xml");
+        inputMetric.convert(MSTestConversionBenchmark.createReport(folder.getRoot(), 200), output);
+
+        String junit = FileUtils.readFileToString(output, "UTF-8");
+        Assert.assertEquals(200, junit.split("<testcase ").length - 1);
+        Assert.assertTrue(junit.contains("classname=\"Acme.Test42\" name=\"test142\""));
+    }
+
+    @Test
+    public void output_is_the_same_of_the_scanning_stylesheet() throws Exception {
+        Templates indexed = newTemplates(new MSTest().getXslName());
+        Templates scan = newTemplates(SCAN_XSL);
+
+        for (int tests : new int[] { TESTS, TESTS * 4 }) {
+            File report = MSTestConversionBenchmark.createReport(folder.getRoot(), tests);
+
+            String junit = transform(indexed, report);
+            Assert.assertEquals(tests, junit.split("<testcase ").length - 1);
+            Assert.assertEquals(transform(scan, report), junit);
+        }
+    }
+
+    @Test
+    public void conversion_time_grows_less_than_quadratically() throws Exception {
+        Templates indexed = newTemplates(new MSTest().getXslName());
+        File small = MSTestConversionBenchmark.createReport(folder.getRoot(), TESTS * 10);
+        File large = MSTestConversionBenchmark.createReport(folder.getRoot(), TESTS * 40);
+
+        // the fastest of some rounds is not affected by the machine load
+        long smallTime = Long.MAX_VALUE;
+        long largeTime = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            smallTime = Math.min(smallTime, time(indexed, small));
+            largeTime = Math.min(largeTime, time(indexed, large));
+        }
+        Assume.assumeTrue("the conversion is too fast to be measured", smallTime > TimeUnit.MILLISECONDS.toNanos(20));
+
+        // four times the results take four times longer when the join is
+        // linear and sixteen times longer when it is quadratic
+        Assert.assertTrue("the conversion time grows " + (double) largeTime / smallTime + " times", largeTime < smallTime * 12);
+    }
+
+    private Templates newTemplates(String xslName) throws Exception {
+        URL xsl = MSTest.class.getResource(xslName);
+        return new TransformerFactoryImpl().newTemplates(new StreamSource(xsl.toString()));
+    }
+
+    private String transform(Templates templates, File report) throws Exception {
+        StringWriter output = new StringWriter();
+        templates.newTransformer().transform(new StreamSource(report), new StreamResult(output));
+        return output.toString();
+    }
+
+    private long time(Templates templates, File report) throws Exception {
+        long start = System.nanoTime();
+        templates.newTransformer().transform(new StreamSource(report), new StreamResult(new NullOutputStream()));
+        return System.nanoTime() - start;
+    }
+
+    private Document readStylesheet() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try (InputStream is = MSTest.class.getResourceAsStream(new MSTest().getXslName())) {
+            return factory.newDocumentBuilder().parse(is);
+        }
+    }
+
+}
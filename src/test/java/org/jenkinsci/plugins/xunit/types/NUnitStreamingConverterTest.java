@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.xunit.service.CacheStatistics;
+import org.jenkinsci.plugins.xunit.service.XSLTemplatesCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Verifies that the streaming converter writes the same bytes of the
+ * stylesheet for reports of every NUnit 2.x schema.
+ * <p>
+ * There is no sample for the 2.1 and 2.4 schemas, they are obtained removing
+ * from the 2.2 samples the elements and attributes that those schemas do not
+ * define.
+ */
+@RunWith(Parameterized.class)
+public class NUnitStreamingConverterTest {
+
+    @Parameters(name = "testcase{0} nunit-{1}")
+    public static Collection<Object[]> data() {
+        Collection<Object[]> data = new ArrayList<>();
+        for (int testNumber : new int[] { 1, 2, 3, 4, 5 }) {
+            data.add(new Object[] { testNumber, "2.1" });
+        }
+        for (int testNumber : new int[] { 1, 2, 3, 4, 5, 9 }) {
+            data.add(new Object[] { testNumber, "2.2" });
+            data.add(new Object[] { testNumber, "2.4" });
+        }
+        for (int testNumber : new int[] { 6, 7, 8, 11, 12, 13, 15 }) {
+            data.add(new Object[] { testNumber, "2.5" });
+            data.add(new Object[] { testNumber, "2.6" });
+        }
+        for (int testNumber : new int[] { 10, 14 }) {
+            data.add(new Object[] { testNumber, "2.x" });
+        }
+        return data;
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final int testNumber;
+    private final String schemaVersion;
+
+    public NUnitStreamingConverterTest(int testNumber, String schemaVersion) {
+        this.testNumber = testNumber;
+        this.schemaVersion = schemaVersion;
+    }
+
+    @Test
+    public void same_bytes_of_the_stylesheet() throws Exception {
+        File input = getInput();
+
+        assertSameBytes(input);
+    }
+
+    @Test
+    public void same_bytes_of_the_stylesheet_without_indentation() throws Exception {
+        // string values of the suites change when there is no whitespace,
+        // this affects the suite names of the stylesheet
+        File input = folder.newFile();
+        String content = FileUtils.readFileToString(getInput(), "UTF-8");
+        FileUtils.writeStringToFile(input, content.replaceAll(">\\s+<", "><"), "UTF-8");
+
+        assertSameBytes(input);
+    }
+
+    private File getInput() throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("nunit", testNumber)).toURI());
+        if ("2.1".equals(schemaVersion) || "2.4".equals(schemaVersion)) {
+            String content = FileUtils.readFileToString(input, "UTF-8") //
+                    .replaceAll("(?s)<environment[^>]*?(/>|>.*?</environment>)", "") //
+                    .replaceAll("(?s)<culture-info[^>]*?(/>|>.*?</culture-info>)", "") //
+                    .replaceAll(" asserts=\"[^\"]*\"", "");
+            input = folder.newFile();
+            FileUtils.writeStringToFile(input, content, "UTF-8");
+        }
+
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI) //
+                .newSchema(NUnit.class.getResource("nunit-" + schemaVersion + ".xsd"));
+        schema.newValidator().validate(new StreamSource(input));
+        return input;
+    }
+
+    private void assertSameBytes(File input) throws Exception {
+        File xslOutput = folder.newFile();
+        transform(input, xslOutput);
+
+        File streamingOutput = folder.newFile();
+        new NUnitStreamingConverter().convert(input, streamingOutput);
+
+        Assert.assertEquals(FileUtils.readFileToString(xslOutput, "UTF-8"), FileUtils.readFileToString(streamingOutput, "UTF-8"));
+    }
+
+    private static void transform(File input, File output) throws Exception {
+        NUnit inputMetric = new NUnit();
+        Templates templates = XSLTemplatesCache.getInstance().getTemplates(inputMetric.getXslResourceClass(), inputMetric.getXslName(), new CacheStatistics("test"));
+        // same setup of XUnitConversionService
+        Transformer transformer = templates.newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new StreamSource(input), new StreamResult(output));
+    }
+
+}
@@ -64,4 +64,10 @@ public class NUnitTest extends AbstractTest {
         super.verifyXSLT();
     }
 
+    @Override
+    @Test
+    public void verifyStreaming() throws Exception {
+        super.verifyStreaming();
+    }
+
 }
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.util.List;
+
+import org.jenkinsci.plugins.xunit.measurement.Measurement;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QTestLibMeasurementsReaderTest {
+
+    @Test
+    public void benchmark_results_are_read() throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("qtestlib", 6)).toURI());
+
+        List<Measurement> measurements = new QTestLibMeasurementsReader().read(input);
+        Assert.assertEquals(3, measurements.size());
+
+        Measurement append = measurements.get(0);
+        Assert.assertEquals("tst_QStringBenchmark", append.getClassName());
+        Assert.assertEquals("append", append.getTestName());
+        Assert.assertEquals("WalltimeMilliseconds", append.getName());
+        Assert.assertEquals(0.0352, append.getValue(), 0);
+
+        Measurement argLong = measurements.get(2);
+        Assert.assertEquals("arg", argLong.getTestName());
+        Assert.assertEquals("WalltimeMilliseconds [long]", argLong.getName());
+        Assert.assertEquals(0.125, argLong.getValue(), 0);
+    }
+
+    @Test
+    public void reports_without_benchmarks_have_no_measurements() throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("qtestlib", 5)).toURI());
+
+        Assert.assertTrue(new QTestLibMeasurementsReader().read(input).isEmpty());
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.lib.dtkit.model.InputMetricXSL;
+import org.jenkinsci.plugins.xunit.service.CacheStatistics;
+import org.jenkinsci.plugins.xunit.service.XSLTemplatesCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReportSplitterTest {
+
+    private static final Pattern TESTSUITE = Pattern.compile("(?s)<testsuite .*?</testsuite>");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void chunks_of_nunit3_have_the_same_test_suites() throws Exception {
+        NUnit3 inputMetric = new NUnit3();
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("nunit3", 3)).toURI());
+
+        ReportSplitter splitter = inputMetric.getReportSplitter();
+        splitter.setChunkSize(1);
+        Assert.assertTrue(splitter.isSplittable(input));
+        List<File> chunks = splitter.split(input, folder.newFolder());
+        // a fixture for each chunk
+        Assert.assertEquals(8, chunks.size());
+
+        Assert.assertEquals(getTestSuites(inputMetric, Collections.singletonList(input)), getTestSuites(inputMetric, chunks));
+    }
+
+    @Test
+    public void chunks_keep_many_units_up_to_the_chunk_size() throws Exception {
+        NUnit3 inputMetric = new NUnit3();
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("nunit3", 3)).toURI());
+
+        ReportSplitter splitter = inputMetric.getReportSplitter();
+        splitter.setChunkSize(input.length() / 3);
+        List<File> chunks = splitter.split(input, folder.newFolder());
+        Assert.assertTrue(chunks.size() > 1);
+        Assert.assertTrue(chunks.size() < 8);
+
+        Assert.assertEquals(getTestSuites(inputMetric, Collections.singletonList(input)), getTestSuites(inputMetric, chunks));
+    }
+
+    @Test
+    public void report_without_units_has_no_chunks() throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("nunit3", 1)).toURI());
+
+        ReportSplitter splitter = new ReportSplitter("assembly");
+        splitter.setChunkSize(1);
+        Assert.assertTrue(splitter.split(input, folder.newFolder()).isEmpty());
+    }
+
+    @Test
+    public void compressed_report_is_split_on_its_uncompressed_size() throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("nunit3", 3)).toURI());
+        File compressed = folder.newFile("TestResult.xml.gz");
+        try (OutputStream os = new GZIPOutputStream(new FileOutputStream(compressed))) {
+            FileUtils.copyFile(input, os);
+        }
+
+        ReportSplitter splitter = new NUnit3().getReportSplitter();
+        splitter.setChunkSize(compressed.length());
+        Assert.assertTrue(splitter.isSplittable(compressed));
+        splitter.setChunkSize(input.length());
+        Assert.assertFalse(splitter.isSplittable(compressed));
+    }
+
+    private List<String> getTestSuites(InputMetricXSL inputMetric, List<File> inputs) throws Exception {
+        Templates templates = XSLTemplatesCache.getInstance().getTemplates(inputMetric.getXslResourceClass(), inputMetric.getXslName(), new CacheStatistics("test"));
+
+        List<String> testSuites = new ArrayList<>();
+        for (File input : inputs) {
+            File output = folder.newFile();
+            Transformer transformer = templates.newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.transform(new StreamSource(input), new StreamResult(output));
+
+            Matcher matcher = TESTSUITE.matcher(FileUtils.readFileToString(output, "UTF-8"));
+            while (matcher.find()) {
+                testSuites.add(matcher.group());
+            }
+        }
+        // the stylesheet could write the suites in a different order
+        Collections.sort(testSuites);
+        return testSuites;
+    }
+
+}
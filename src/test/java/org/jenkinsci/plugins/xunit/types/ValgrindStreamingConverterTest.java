@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018, Nikolas Falco
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.xunit.types;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ValgrindStreamingConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void every_error_is_reported_by_default() throws Exception {
+        String failure = convert(new ValgrindStreamingConverter());
+
+        Assert.assertEquals(4, StringUtils.countMatches(failure, "are definitely lost"));
+        Assert.assertFalse(failure.contains("Occurrences:"));
+        Assert.assertFalse(failure.contains("Total leaked bytes:"));
+    }
+
+    @Test
+    public void errors_with_same_kind_and_top_frames_are_collapsed() throws Exception {
+        String failure = convert(new ValgrindStreamingConverter(2));
+
+        Assert.assertEquals(2, StringUtils.countMatches(failure, "are definitely lost"));
+        Assert.assertTrue(failure.contains("loss record 1 of 4"));
+        Assert.assertFalse(failure.contains("loss record 3 of 4"));
+        Assert.assertTrue(failure.contains("  Occurrences: 3\n  Total leaked bytes: 200\n"));
+        Assert.assertTrue(failure.contains("  Total leaked bytes: 16\n"));
+        Assert.assertTrue(failure.contains("Invalid read of size 4"));
+    }
+
+    @Test
+    public void deeper_fingerprint_distinguishes_the_callers() throws Exception {
+        String failure = convert(new ValgrindStreamingConverter(3));
+
+        Assert.assertEquals(4, StringUtils.countMatches(failure, "are definitely lost"));
+        Assert.assertFalse(failure.contains("Occurrences:"));
+    }
+
+    @Test
+    public void fingerprint_frames_are_part_of_the_settings() throws Exception {
+        Assert.assertEquals("", new ValgrindStreamingConverter().getSettings());
+        Assert.assertNotEquals(new ValgrindStreamingConverter(2).getSettings(), new ValgrindStreamingConverter(3).getSettings());
+    }
+
+    private String convert(ValgrindStreamingConverter converter) throws Exception {
+        File input = new File(getClass().getResource(AbstractTest.resolveInput("valgrind", 3)).toURI());
+        File junitFile = folder.newFile();
+
+        converter.convert(input, junitFile);
+
+        String report = FileUtils.readFileToString(junitFile, "UTF-8");
+        Assert.assertTrue(report.contains("failures=\"1\""));
+        return StringUtils.substringBetween(report, "<failure>", "</failure>");
+    }
+
+}
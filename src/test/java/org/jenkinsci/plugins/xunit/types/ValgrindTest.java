@@ -51,4 +51,10 @@ public class ValgrindTest extends AbstractTest {
         super.verifyXSLT();
     }
 
-}
\ No newline at end of file
+    @Override
+    @Test
+    public void verifyStreaming() throws Exception {
+        super.verifyStreaming();
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarOutputStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveEntryFileTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    @Test
+    public void tar_entries_are_read_in_archive_order_and_kept_in_memory() throws Exception {
+        File archive = newTar("./a/TEST-foo.xml", "./b/TEST-foo.xml", "./c/TEST-bar.xml");
+
+        try (ArchiveEntryFile.Cursor cursor = new ArchiveEntryFile.Cursor(archive)) {
+            ArchiveEntryFile first = cursor.read("a/TEST-foo.xml");
+            ArchiveEntryFile last = cursor.read("c/TEST-bar.xml");
+            // an entry before the current one opens the archive again
+            ArchiveEntryFile second = cursor.read("b/TEST-foo.xml");
+            Assert.assertTrue(archive.delete());
+
+            Assert.assertEquals(archive.getPath() + "!/a/TEST-foo.xml", first.getPath());
+            Assert.assertEquals("./a/TEST-foo.xml", read(first));
+            Assert.assertEquals("./b/TEST-foo.xml", read(second));
+            Assert.assertEquals("./c/TEST-bar.xml", read(last));
+            Assert.assertEquals("./c/TEST-bar.xml".length(), last.length());
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void missing_tar_entry_fails_when_opened() throws Exception {
+        File archive = newTar("./a/TEST-foo.xml");
+
+        try (ArchiveEntryFile.Cursor cursor = new ArchiveEntryFile.Cursor(archive)) {
+            read(cursor.read("d/TEST-missing.xml"));
+        }
+    }
+
+    @Test
+    public void zip_entries_are_read_from_the_archive() throws Exception {
+        File archive = fileRule.newFile("reports.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry("TEST-foo.xml"));
+            zip.write("<testsuite/>".getBytes("UTF-8"));
+            zip.closeEntry();
+        }
+
+        try (ArchiveEntryFile.Cursor cursor = new ArchiveEntryFile.Cursor(archive)) {
+            Assert.assertEquals("<testsuite/>", read(cursor.read("TEST-foo.xml")));
+        }
+    }
+
+    private File newTar(String... names) throws Exception {
+        File archive = fileRule.newFile("reports.tar.gz");
+        try (TarOutputStream tar = new TarOutputStream(new GZIPOutputStream(new FileOutputStream(archive)))) {
+            for (String name : names) {
+                byte[] content = name.getBytes("UTF-8");
+                TarEntry entry = new TarEntry(name);
+                entry.setSize(content.length);
+                tar.putNextEntry(entry);
+                tar.write(content);
+                tar.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+    private String read(File file) throws Exception {
+        try (InputStream is = ArchiveEntryFile.openStream(file)) {
+            return IOUtils.toString(is, "UTF-8");
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompressionUtilTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    @Test
+    public void plain_file_is_read_as_is() throws Exception {
+        File file = fileRule.newFile("report.xml");
+        FileUtils.writeStringToFile(file, "<testsuites/>", "UTF-8");
+
+        Assert.assertFalse(CompressionUtil.isCompressed(file));
+        try (InputStream is = CompressionUtil.newInputStream(file)) {
+            Assert.assertEquals("<testsuites/>", IOUtils.toString(is, "UTF-8"));
+        }
+    }
+
+    @Test
+    public void gzip_file_is_inflated_whatever_is_its_name() throws Exception {
+        File file = fileRule.newFile("report.xml");
+        try (OutputStream os = new GZIPOutputStream(new FileOutputStream(file))) {
+            os.write("<testsuites/>".getBytes("UTF-8"));
+        }
+
+        Assert.assertTrue(CompressionUtil.isCompressed(file));
+        try (InputStream is = CompressionUtil.newInputStream(file)) {
+            Assert.assertEquals("<testsuites/>", IOUtils.toString(is, "UTF-8"));
+        }
+    }
+
+    @Test
+    public void empty_file_is_not_compressed() throws Exception {
+        File file = fileRule.newFile();
+
+        Assert.assertFalse(CompressionUtil.isCompressed(file));
+        try (InputStream is = CompressionUtil.newInputStream(file)) {
+            Assert.assertEquals(-1, is.read());
+        }
+    }
+
+    @Test
+    public void uncompressed_length_is_read_from_the_gzip_trailer() throws Exception {
+        File file = fileRule.newFile("report.xml.gz");
+        try (OutputStream os = new GZIPOutputStream(new FileOutputStream(file))) {
+            os.write(new byte[100000]);
+        }
+
+        Assert.assertEquals(100000, CompressionUtil.getUncompressedLength(file));
+    }
+
+}
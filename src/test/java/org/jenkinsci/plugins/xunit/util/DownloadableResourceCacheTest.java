@@ -0,0 +1,140 @@
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class DownloadableResourceCacheTest {
+
+    private static final String CONTENT = "<xsl:stylesheet/>";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private HttpServer server;
+    private final AtomicInteger downloads = new AtomicInteger();
+    private final AtomicInteger revalidations = new AtomicInteger();
+    private volatile boolean sendETag = true;
+    private volatile long delay;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/custom.xsl", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+                if (ETAG.equals(ifNoneMatch) || LAST_MODIFIED.equals(ifModifiedSince)) {
+                    revalidations.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+
+                downloads.incrementAndGet();
+                if (sendETag) {
+                    exchange.getResponseHeaders().add("ETag", ETAG);
+                } else {
+                    exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+                }
+                byte[] body = CONTENT.getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private String getURL() {
+        return "http://localhost:" + server.getAddress().getPort() + "/custom.xsl";
+    }
+
+    @Test
+    public void resource_is_not_downloaded_again_before_ttl() throws Exception {
+        DownloadableResourceCache cache = new DownloadableResourceCache(60000);
+
+        Assert.assertEquals(CONTENT, cache.get(getURL()));
+        Assert.assertEquals(CONTENT, cache.get(getURL()));
+
+        Assert.assertEquals(1, downloads.get());
+        Assert.assertEquals(0, revalidations.get());
+    }
+
+    @Test
+    public void not_modified_etag_returns_cached_copy() throws Exception {
+        DownloadableResourceCache cache = new DownloadableResourceCache(0);
+
+        Assert.assertEquals(CONTENT, cache.get(getURL()));
+        Assert.assertEquals(CONTENT, cache.get(getURL()));
+
+        Assert.assertEquals(1, downloads.get());
+        Assert.assertEquals(1, revalidations.get());
+    }
+
+    @Test
+    public void not_modified_since_returns_cached_copy() throws Exception {
+        sendETag = false;
+        DownloadableResourceCache cache = new DownloadableResourceCache(0);
+
+        Assert.assertEquals(CONTENT, cache.get(getURL()));
+        Assert.assertEquals(CONTENT, cache.get(getURL()));
+
+        Assert.assertEquals(1, downloads.get());
+        Assert.assertEquals(1, revalidations.get());
+    }
+
+    @Test
+    public void concurrent_requests_download_once() throws Exception {
+        delay = 200;
+        final DownloadableResourceCache cache = new DownloadableResourceCache(60000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return cache.get(getURL());
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                Assert.assertEquals(CONTENT, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(1, downloads.get());
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.jenkinsci.plugins.xunit.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReportScannerFolderTest {
+
+    private final List<String> folders = Arrays.asList("build/test-results", "./target/surefire-reports/");
+
+    @Test
+    public void includes_inside_the_folders() {
+        Assert.assertTrue(new ReportScanner("build/test-results/**/*.xml").isWithin(folders));
+        Assert.assertTrue(new ReportScanner("build/test-results/TEST-*.xml, target/surefire-reports/*.xml").isWithin(folders));
+        Assert.assertTrue(new ReportScanner("target\\surefire-reports\\").isWithin(folders));
+    }
+
+    @Test
+    public void includes_outside_the_folders() {
+        Assert.assertFalse(new ReportScanner("**/TEST-*.xml").isWithin(folders));
+        Assert.assertFalse(new ReportScanner("build/test-results/*.xml, reports/*.xml").isWithin(folders));
+        Assert.assertFalse(new ReportScanner("build/*/TEST-*.xml").isWithin(folders));
+        Assert.assertFalse(new ReportScanner("build/test-results/../other/*.xml").isWithin(folders));
+        Assert.assertFalse(new ReportScanner("build/test-results").isWithin(folders));
+        Assert.assertFalse(new ReportScanner("build/test-results/*.xml").isWithin(Collections.<String> emptyList()));
+    }
+
+    @Test
+    public void includes_inside_the_workspace() {
+        Assert.assertTrue(new ReportScanner("**/TEST-*.xml").isWithin(Arrays.asList(".")));
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.File;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.FileSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import hudson.Util;
+
+/**
+ * Verifies that the scanner finds the same files of the Ant file sets.
+ */
+@RunWith(Parameterized.class)
+public class ReportScannerTest {
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        Collection<Object[]> data = new ArrayList<>();
+        for (String pattern : new String[] { "*.xml", "**/*.xml", "input.xml", "sub/*.xml", "**/sub/**/*.xml", "**/*.xml, **/*.txt",
+                "sub/", "**/a?c.xml", "sub/**", "**", "*/*/*.xml", "sub/deep/**/*.xml", "**/TEST-*.xml", "missing/*.xml",
+                "*.zip", "**/*.xml,sub/**" }) {
+            data.add(new Object[] { pattern });
+        }
+        return data;
+    }
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    private final String pattern;
+
+    public ReportScannerTest(String pattern) {
+        this.pattern = pattern;
+    }
+
+    @Before
+    public void createTree() throws Exception {
+        for (String file : new String[] { "input.xml", "abc.xml", "readme.txt", "reports.zip", //
+                "sub/input.xml", "sub/abc.xml", "sub/TEST-a.xml", "sub/deep/input.xml", "sub/deep/deeper/axc.xml", //
+                "other/sub/input.xml", "other/sub/x/TEST-b.xml", "other/readme.txt", //
+                ".git/input.xml", "sub/.svn/input.xml", "sub/input.xml~" }) {
+            File report = new File(fileRule.getRoot(), file);
+            report.getParentFile().mkdirs();
+            report.createNewFile();
+        }
+        new File(fileRule.getRoot(), "empty/sub").mkdirs();
+    }
+
+    @Test
+    public void same_files_of_the_ant_scanner() throws Exception {
+        File baseDir = fileRule.getRoot();
+        FileSet fs = Util.createFileSet(baseDir, pattern);
+        DirectoryScanner ds = fs.getDirectoryScanner();
+        List<String> expected = new ArrayList<>(Arrays.asList(ds.getIncludedFiles()));
+        Collections.sort(expected);
+
+        Map<String, BasicFileAttributes> files = new ReportScanner(pattern).scan(baseDir);
+
+        Assert.assertEquals(expected, new ArrayList<>(files.keySet()));
+        for (Map.Entry<String, BasicFileAttributes> file : files.entrySet()) {
+            Assert.assertEquals(new File(baseDir, file.getKey()).lastModified(), file.getValue().lastModifiedTime().toMillis());
+        }
+    }
+
+    @Test
+    public void same_files_in_same_order_with_a_parallel_walk() throws Exception {
+        File baseDir = fileRule.getRoot();
+        ReportScanner scanner = new ReportScanner(pattern);
+        List<String> expected = new ArrayList<>(scanner.scan(baseDir).keySet());
+
+        scanner.setParallelism(4);
+        Map<String, BasicFileAttributes> files = scanner.scan(baseDir);
+
+        Assert.assertEquals(expected, new ArrayList<>(files.keySet()));
+    }
+
+}
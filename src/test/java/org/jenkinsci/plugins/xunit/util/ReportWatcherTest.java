@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins.xunit.util;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReportWatcherTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    @Test
+    public void files_written_in_the_watched_folders_are_recorded() throws Exception {
+        File workspace = fileRule.getRoot();
+        File results = new File(workspace, "build/test-results");
+        Assert.assertTrue(results.mkdirs());
+        FileUtils.writeStringToFile(new File(results, "TEST-old.xml"), "<testsuite/>", "UTF-8");
+        FileUtils.writeStringToFile(new File(results, "TEST-modified.xml"), "<testsuite/>", "UTF-8");
+
+        ReportWatcher watcher = new ReportWatcher(workspace, Arrays.asList("build/test-results", "target/surefire-reports"));
+        FileUtils.writeStringToFile(new File(results, "TEST-new.xml"), "<testsuite/>", "UTF-8");
+        FileUtils.writeStringToFile(new File(results, "TEST-modified.xml"), "<testsuite tests=\"1\"/>", "UTF-8");
+        FileUtils.writeStringToFile(new File(results, "module/TEST-nested.xml"), "<testsuite/>", "UTF-8");
+        // created after the start of the watch
+        FileUtils.writeStringToFile(new File(workspace, "target/surefire-reports/TEST-late.xml"), "<testsuite/>", "UTF-8");
+        FileUtils.writeStringToFile(new File(workspace, "build/TEST-outside.xml"), "<testsuite/>", "UTF-8");
+        Map<String, Long> files = watcher.stop();
+
+        Assume.assumeNotNull(files); // file system without change notifications
+        Assert.assertEquals(Arrays.asList( //
+                path("build/test-results/TEST-modified.xml"), //
+                path("build/test-results/TEST-new.xml"), //
+                path("build/test-results/module/TEST-nested.xml"), //
+                path("target/surefire-reports/TEST-late.xml")), Arrays.asList(files.keySet().toArray()));
+        Assert.assertEquals(Long.valueOf(new File(results, "TEST-new.xml").lastModified()), files.get(path("build/test-results/TEST-new.xml")));
+    }
+
+    private static String path(String path) {
+        return path.replace('/', File.separatorChar);
+    }
+
+}